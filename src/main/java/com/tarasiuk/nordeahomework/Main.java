@@ -1,15 +1,26 @@
 package com.tarasiuk.nordeahomework;
 
-import com.tarasiuk.nordeahomework.domain.Sentence;
-import com.tarasiuk.nordeahomework.output.CsvWriter;
-import com.tarasiuk.nordeahomework.output.XmlWriter;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.FanOutSink;
+import com.tarasiuk.nordeahomework.output.SentenceSink;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
+import com.tarasiuk.nordeahomework.output.SinkType;
 import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.ProcessorOptions;
+import com.tarasiuk.nordeahomework.processing.ResourceBudget;
+import com.tarasiuk.nordeahomework.server.ListenAddress;
+import com.tarasiuk.nordeahomework.server.SentenceServer;
+import com.tarasiuk.nordeahomework.server.SentenceService;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,16 +30,18 @@ public class Main {
 
   private static final String DEFAULT_INPUT_DIR = "src/test/resources/in";
   private static final String DEFAULT_OUTPUT_DIR = "src/test/resources/out";
+  private static final String HTTP_NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
 
   public static void main(String[] args) {
     try {
-      List<Path> filePaths = createFilePaths(args);
-
-      Path inputFile = filePaths.get(0);
-      Path xmlOutputFile = filePaths.get(1);
-      Path csvOutputFile = filePaths.get(2);
+      Options options = Options.parse(args);
+      if (options.listenAddress().isPresent()) {
+        serve(options.listenAddress().get(), options);
+        return;
+      }
+      FilePaths filePaths = createFilePaths(options.positional(), options.sinks());
 
-      process(inputFile, xmlOutputFile, csvOutputFile);
+      process(filePaths.inputFile(), filePaths.outputFiles(), options);
     } catch (IOException e) {
       logger.error("Initialization or processing failed: {}", e.getMessage(), e);
       System.exit(1);
@@ -43,41 +56,188 @@ public class Main {
 
   public static void process(Path inputFile, Path xmlOutputFile, Path csvOutputFile)
       throws IOException, XMLStreamException {
-    logger.info("Starting processing for file: {}", inputFile.getFileName());
+    Map<SinkType, Path> outputFiles = new EnumMap<>(SinkType.class);
+    outputFiles.put(SinkType.XML, xmlOutputFile);
+    outputFiles.put(SinkType.CSV, csvOutputFile);
+    process(inputFile, outputFiles, Options.defaults());
+  }
+
+  /**
+   * Processes the input file and writes the sentences to one output file per enabled sink. All
+   * sinks receive each batch concurrently through a {@link FanOutSink}. The run keeps within the
+   * options' {@link ResourceBudget} and logs its peak usage when done. Its thread limit covers the
+   * threads writing the sinks and those closing finished shards.
+   *
+   * @param inputFile The path to the input text file.
+   * @param outputFiles The output file of each sink to enable.
+   * @param options The processing options.
+   * @throws IOException If an I/O error occurs reading the input or writing an output.
+   * @throws XMLStreamException If an error occurs writing XML output.
+   * @throws IllegalArgumentException If asynchronous writes are combined with a thread limit.
+   */
+  public static void process(Path inputFile, Map<SinkType, Path> outputFiles, Options options)
+      throws IOException, XMLStreamException {
+    logger.info(
+        "Starting processing for file: {} (engine: {}, sinks: {})",
+        inputFile.getFileName(),
+        options.engine(),
+        outputFiles.keySet());
     long startTime = System.currentTimeMillis();
+    ResourceBudget budget = options.resourceBudget();
+    SinkOptions sinkOptions =
+        withinThreadBudget(options.sinkOptions(), outputFiles.keySet(), budget.maxThreads());
+    int shardedSinks = shardedSinkCount(sinkOptions, outputFiles.keySet());
+
+    ProcessorOptions processorOptions =
+        ProcessorOptions.defaults()
+            .withSpillThreshold(options.spillWords())
+            .withBudget(budget)
+            .withCollation(options.collation());
 
-    try (Processor processor = new Processor(inputFile);
-        XmlWriter xmlWriter = new XmlWriter(xmlOutputFile);
-        CsvWriter csvWriter = new CsvWriter(csvOutputFile)) {
+    try (Processor processor =
+            new Processor(
+                inputFile, options.engine().create(options.preparedModels()), processorOptions);
+        FanOutSink sink =
+            new FanOutSink(
+                createSinks(outputFiles, sinkOptions), budget.maxThreads())) {
 
-      xmlWriter.openDocument();
+      sink.open();
 
-      List<Sentence> batch;
+      SentenceBatch batch = new SentenceBatch();
       int sentenceCount = 0;
-      while (!(batch = processor.readNextSentences()).isEmpty()) {
-        xmlWriter.writeSentences(batch);
-        csvWriter.writeSentences(batch);
+      while (processor.readNextSentences(batch)) {
+        if (sentenceCount == 0) {
+          logger.info(
+              "First sentences ready after {} ms.", System.currentTimeMillis() - startTime);
+        }
+        sink.writeSentences(batch);
         sentenceCount += batch.size();
       }
       logger.info("Successfully processed {} sentences.", sentenceCount);
+      logger.info(
+          "Peak usage: buffer {} chars, batch {} bytes, {} output threads (budget {}).",
+          processor.peakBufferChars(),
+          processor.peakBatchBytes(),
+          sink.threadCount() + shardedSinks * sinkOptions.shardCloserThreads(),
+          budget);
     } // try-with-resources ensures close() is called
 
     long endTime = System.currentTimeMillis();
     logger.info("Processing finished in {} ms.", (endTime - startTime));
   }
 
-  private static List<Path> createFilePaths(String[] args) throws IOException {
+  /**
+   * Fits the background threads of the sinks into the thread limit. The threads not needed to
+   * write the sinks are shared by the sharded outputs to close finished shards, and without any to
+   * spare, shards are closed on the writing threads. Asynchronous writes run on the JDK's shared
+   * thread pool, outside any limit, so they cannot be combined with one.
+   */
+  private static SinkOptions withinThreadBudget(
+      SinkOptions sinkOptions, Set<SinkType> sinks, int maxThreads) {
+    if (maxThreads == 0) {
+      return sinkOptions;
+    }
+    if (sinkOptions.asyncWrites()) {
+      throw new IllegalArgumentException(
+          "Option --"
+              + Options.ASYNC_IO
+              + " cannot be combined with --"
+              + Options.MAX_THREADS
+              + ": its writes run on threads outside the limit.");
+    }
+    int shardedSinks = shardedSinkCount(sinkOptions, sinks);
+    if (shardedSinks == 0) {
+      return sinkOptions;
+    }
+    int spareThreads = maxThreads - Math.min(sinks.size(), maxThreads);
+    return sinkOptions.withShardCloserThreads(
+        Math.min(sinkOptions.shardCloserThreads(), spareThreads / shardedSinks));
+  }
+
+  /** Returns the number of the sinks that write their output in shards. */
+  private static int shardedSinkCount(SinkOptions sinkOptions, Set<SinkType> sinks) {
+    if (!sinkOptions.isSharded()) {
+      return 0;
+    }
+    return (int)
+        sinks.stream().filter(type -> type == SinkType.XML || type == SinkType.CSV).count();
+  }
+
+  /**
+   * Runs a {@link SentenceServer} on the given address until the JVM is shut down, with one warm
+   * segmentation engine per available processor, or per thread of the budget if fewer.
+   *
+   * @param address The address to listen on.
+   * @param options The processing options.
+   * @throws IOException If the engines cannot be created or the address cannot be bound.
+   * @throws InterruptedException If the main thread is interrupted while serving.
+   */
+  public static void serve(ListenAddress address, Options options)
+      throws IOException, InterruptedException {
+    int engines = Runtime.getRuntime().availableProcessors();
+    int maxThreads = options.resourceBudget().maxThreads();
+    if (maxThreads > 0) {
+      engines = Math.min(engines, maxThreads);
+    }
+    SentenceService service = new SentenceService(options.engine(), engines);
+    if (System.getProperty(HTTP_NO_DELAY_PROPERTY) == null) {
+      // Without it, the JDK HTTP server's responses wait for the client's delayed ACK, ~40 ms.
+      System.setProperty(HTTP_NO_DELAY_PROPERTY, "true");
+    }
+    SentenceServer server = SentenceServer.start(address, service);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  try {
+                    server.close();
+                  } catch (IOException e) {
+                    logger.warn("Error stopping server: {}", e.getMessage(), e);
+                  }
+                }));
+    logger.info("Serving requests on {}", server.address());
+    // The server threads are daemons; keep the JVM alive until it is shut down.
+    Thread.currentThread().join();
+  }
+
+  /**
+   * Creates one sink per output file. If creating a sink fails, the sinks created so far are
+   * closed before the failure is rethrown.
+   */
+  private static List<SentenceSink> createSinks(
+      Map<SinkType, Path> outputFiles, SinkOptions sinkOptions)
+      throws IOException, XMLStreamException {
+    List<SentenceSink> sinks = new ArrayList<>(outputFiles.size());
+    try {
+      for (Map.Entry<SinkType, Path> outputFile : outputFiles.entrySet()) {
+        sinks.add(outputFile.getKey().create(outputFile.getValue(), sinkOptions));
+      }
+    } catch (IOException | XMLStreamException | RuntimeException e) {
+      for (SentenceSink sink : sinks) {
+        try {
+          sink.close();
+        } catch (IOException | XMLStreamException closeException) {
+          e.addSuppressed(closeException);
+        }
+      }
+      throw e;
+    }
+    return sinks;
+  }
+
+  private static FilePaths createFilePaths(List<String> args, Set<SinkType> sinks)
+      throws IOException {
     String inputFileName;
-    if (args.length > 0) {
-      inputFileName = args[0];
+    if (args.size() > 0) {
+      inputFileName = args.get(0);
     } else {
       inputFileName = "small.in";
       logger.warn("No input file specified, using default: {}", inputFileName);
     }
 
     String outputDirName;
-    if (args.length > 1) {
-      outputDirName = args[1];
+    if (args.size() > 1) {
+      outputDirName = args.get(1);
     } else {
       outputDirName = DEFAULT_OUTPUT_DIR;
       logger.warn("No output directory specified, using default: {}", outputDirName);
@@ -85,8 +245,7 @@ public class Main {
 
     String outputName = inputFileName.substring(0, inputFileName.lastIndexOf('.'));
     Path inputFile;
-    Path xmlOutputFile;
-    Path csvOutputFile;
+    Map<SinkType, Path> outputFiles = new EnumMap<>(SinkType.class);
 
     try {
       inputFile = Paths.get(DEFAULT_INPUT_DIR, inputFileName);
@@ -98,17 +257,21 @@ public class Main {
       Path outputDir = Paths.get(outputDirName);
       Files.createDirectories(outputDir);
 
-      xmlOutputFile = outputDir.resolve(outputName + ".xml");
-      csvOutputFile = outputDir.resolve(outputName + ".csv");
+      for (SinkType sink : sinks) {
+        outputFiles.put(sink, outputDir.resolve(outputName + sink.extension()));
+      }
 
     } catch (InvalidPathException e) {
       throw new IOException("Error setting up file paths: " + e.getMessage(), e);
     }
 
     logger.info("Input file: {}", inputFile.toAbsolutePath());
-    logger.info("XML output file: {}", xmlOutputFile.toAbsolutePath());
-    logger.info("CSV output file: {}", csvOutputFile.toAbsolutePath());
+    outputFiles.forEach(
+        (sink, outputFile) ->
+            logger.info("{} output file: {}", sink, outputFile.toAbsolutePath()));
 
-    return List.of(inputFile, xmlOutputFile, csvOutputFile);
+    return new FilePaths(inputFile, outputFiles);
   }
+
+  private record FilePaths(Path inputFile, Map<SinkType, Path> outputFiles) {}
 }
@@ -0,0 +1,303 @@
+package com.tarasiuk.nordeahomework;
+
+import com.tarasiuk.nordeahomework.output.SinkOptions;
+import com.tarasiuk.nordeahomework.output.SinkType;
+import com.tarasiuk.nordeahomework.processing.ResourceBudget;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import com.tarasiuk.nordeahomework.server.ListenAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IllformedLocaleException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Command line options of the application. Arguments starting with {@code --} are named options
+ * of the form {@code --name=value}; all other arguments are positional (input file name, output
+ * directory).
+ */
+public final class Options {
+  public static final String ENGINE = "engine";
+  public static final String SINKS = "sinks";
+  public static final String INDEX_INTERVAL = "index-interval";
+  public static final String SHARD_SENTENCES = "shard-sentences";
+  public static final String SHARD_BYTES = "shard-bytes";
+  public static final String BUFFER_SIZE = "buffer-size";
+  public static final String ASYNC_IO = "async-io";
+  public static final String LISTEN = "listen";
+  public static final String PREPARED_MODELS = "prepared-models";
+  public static final String SPILL_WORDS = "spill-words";
+  public static final String MAX_BUFFER_CHARS = "max-buffer-chars";
+  public static final String MAX_BATCH_BYTES = "max-batch-bytes";
+  public static final String MAX_THREADS = "max-threads";
+  public static final String COLLATION = "collation";
+
+  private static final Set<String> KNOWN_OPTIONS =
+      Set.of(
+          ENGINE,
+          SINKS,
+          INDEX_INTERVAL,
+          SHARD_SENTENCES,
+          SHARD_BYTES,
+          BUFFER_SIZE,
+          ASYNC_IO,
+          LISTEN,
+          PREPARED_MODELS,
+          SPILL_WORDS,
+          MAX_BUFFER_CHARS,
+          MAX_BATCH_BYTES,
+          MAX_THREADS,
+          COLLATION);
+
+  private final List<String> positional;
+  private final Map<String, String> named;
+
+  private Options(List<String> positional, Map<String, String> named) {
+    this.positional = Collections.unmodifiableList(positional);
+    this.named = Collections.unmodifiableMap(named);
+  }
+
+  /**
+   * Parses command line arguments.
+   *
+   * @param args The command line arguments.
+   * @return The parsed options.
+   * @throws IllegalArgumentException If a named option is malformed or unknown.
+   */
+  public static Options parse(String... args) {
+    List<String> positional = new ArrayList<>();
+    Map<String, String> named = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        positional.add(arg);
+        continue;
+      }
+      int separator = arg.indexOf('=');
+      String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+      String value = separator < 0 ? "true" : arg.substring(separator + 1);
+      if (!KNOWN_OPTIONS.contains(name)) {
+        throw new IllegalArgumentException("Unknown option: --" + name);
+      }
+      named.put(name, value);
+    }
+    return new Options(positional, named);
+  }
+
+  /**
+   * Returns the options used when none are given on the command line.
+   *
+   * @return The default options.
+   */
+  public static Options defaults() {
+    return parse();
+  }
+
+  /**
+   * Returns the positional arguments, in order.
+   *
+   * @return The unmodifiable list of positional arguments.
+   */
+  public List<String> positional() {
+    return positional;
+  }
+
+  /**
+   * Returns the segmentation engine selected with {@code --engine}, {@link
+   * SegmentationEngineType#OPENNLP} by default.
+   *
+   * @return The selected engine type.
+   */
+  public SegmentationEngineType engine() {
+    String value = named.get(ENGINE);
+    return value == null ? SegmentationEngineType.OPENNLP : SegmentationEngineType.fromName(value);
+  }
+
+  /**
+   * Returns the file of pre-parsed OpenNLP models selected with {@code --prepared-models=file}.
+   * The models are loaded from it if it is up to date, and it is created otherwise.
+   *
+   * @return The prepared models file, or {@code null} if the models are loaded from the classpath.
+   */
+  public Path preparedModels() {
+    String value = named.get(PREPARED_MODELS);
+    return value == null ? null : Path.of(value.trim());
+  }
+
+  /**
+   * Returns the number of words selected with {@code --spill-words} above which a sentence is
+   * sorted externally in temporary files, keeping memory use bounded for extremely long sentences.
+   *
+   * @return The spill threshold, or {@code 0} (the default) to sort all sentences in memory.
+   * @throws IllegalArgumentException If the value is not a positive size that fits an int.
+   */
+  public int spillWords() {
+    long value = sizeValue(SPILL_WORDS, 0);
+    if (named.containsKey(SPILL_WORDS) && (value <= 0 || value > Integer.MAX_VALUE)) {
+      throw new IllegalArgumentException(
+          "Option --" + SPILL_WORDS + " must be a positive word count: " + named.get(SPILL_WORDS));
+    }
+    return (int) value;
+  }
+
+  /**
+   * Returns the locale selected with {@code --collation=tag}, a BCP 47 language tag such as {@code
+   * de} or {@code sv-SE}, whose collation rules order the words of each sentence instead of the
+   * default case-insensitive order.
+   *
+   * @return The collation locale, or {@code null} for the default order.
+   * @throws IllegalArgumentException If the value is not a well-formed language tag.
+   */
+  public Locale collation() {
+    String value = named.get(COLLATION);
+    if (value == null) {
+      return null;
+    }
+    Locale locale;
+    try {
+      locale = new Locale.Builder().setLanguageTag(value.trim()).build();
+    } catch (IllformedLocaleException e) {
+      throw new IllegalArgumentException(
+          "Option --" + COLLATION + " must be a language tag: " + value, e);
+    }
+    if (locale.getLanguage().isEmpty()) {
+      throw new IllegalArgumentException(
+          "Option --" + COLLATION + " must name a language: " + value);
+    }
+    return locale;
+  }
+
+  /**
+   * Returns the per-run resource limits. {@code --max-buffer-chars=n} limits the input text
+   * buffered while looking for a sentence end, {@code --max-batch-bytes=n} the approximate size of
+   * the words of a batch, and {@code --max-threads=n} the threads writing output (in server mode,
+   * the segmentation engines serving requests). The sizes accept a {@code k}, {@code m} or {@code
+   * g} suffix. All are unlimited by default.
+   *
+   * @return The resource budget.
+   * @throws IllegalArgumentException If a limit is not a valid number or out of range.
+   */
+  public ResourceBudget resourceBudget() {
+    long maxBufferChars = sizeValue(MAX_BUFFER_CHARS, 0);
+    if (maxBufferChars > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Option --" + MAX_BUFFER_CHARS + " is too large: " + named.get(MAX_BUFFER_CHARS));
+    }
+    return new ResourceBudget(
+        (int) maxBufferChars, sizeValue(MAX_BATCH_BYTES, 0), intValue(MAX_THREADS, 0));
+  }
+
+  /**
+   * Returns the output sinks selected with {@code --sinks}, a comma-separated list of sink names.
+   * XML and CSV are enabled by default.
+   *
+   * @return The selected sink types, in declaration order.
+   * @throws IllegalArgumentException If a sink name is unknown or no sink is selected.
+   */
+  public Set<SinkType> sinks() {
+    String value = named.get(SINKS);
+    if (value == null) {
+      return EnumSet.of(SinkType.XML, SinkType.CSV);
+    }
+    Set<SinkType> sinks = EnumSet.noneOf(SinkType.class);
+    for (String name : value.split(",")) {
+      if (!name.isBlank()) {
+        sinks.add(SinkType.fromName(name));
+      }
+    }
+    if (sinks.isEmpty()) {
+      throw new IllegalArgumentException("At least one output sink must be selected.");
+    }
+    return sinks;
+  }
+
+  /**
+   * Returns the settings for the output sinks. {@code --index-interval=n} writes a sidecar index
+   * entry for every n-th sentence of the XML and CSV outputs; by default no index is written.
+   * {@code --shard-sentences=n} and {@code --shard-bytes=n} split those outputs into shards of at
+   * most n sentences or about n bytes; both accept a {@code k}, {@code m} or {@code g} suffix.
+   * {@code --buffer-size=n} sets the output buffer size of those writers, 256k by default, and
+   * {@code --async-io} makes them write full buffers asynchronously while filling a second one.
+   *
+   * @return The sink settings.
+   * @throws IllegalArgumentException If a setting is not a valid number.
+   */
+  public SinkOptions sinkOptions() {
+    long bufferSize = sizeValue(BUFFER_SIZE, SinkOptions.DEFAULT_BUFFER_SIZE);
+    return new SinkOptions(
+        intValue(INDEX_INTERVAL, 0),
+        sizeValue(SHARD_SENTENCES, 0),
+        sizeValue(SHARD_BYTES, 0),
+        (int) Math.min(bufferSize, Integer.MAX_VALUE),
+        booleanValue(ASYNC_IO),
+        SinkOptions.DEFAULT_SHARD_CLOSER_THREADS);
+  }
+
+  /**
+   * Returns the address to serve requests on, selected with {@code --listen=tcp:host:port}, {@code
+   * --listen=http:host:port} or {@code --listen=unix:path}. Without it, the input file is
+   * processed once.
+   *
+   * @return The listen address, or empty if no server is to be started.
+   * @throws IllegalArgumentException If the address is malformed.
+   */
+  public Optional<ListenAddress> listenAddress() {
+    String value = named.get(LISTEN);
+    return value == null ? Optional.empty() : Optional.of(ListenAddress.parse(value.trim()));
+  }
+
+  private int intValue(String name, int defaultValue) {
+    String value = named.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Option --" + name + " must be a number: " + value, e);
+    }
+  }
+
+  private boolean booleanValue(String name) {
+    String value = named.get(name);
+    if (value == null) {
+      return false;
+    }
+    return switch (value.trim().toLowerCase(Locale.ROOT)) {
+      case "true" -> true;
+      case "false" -> false;
+      default ->
+          throw new IllegalArgumentException(
+              "Option --" + name + " must be true or false: " + value);
+    };
+  }
+
+  /** Parses a count or size, accepting a {@code k}, {@code m} or {@code g} suffix (base 1024). */
+  private long sizeValue(String name, long defaultValue) {
+    String value = named.get(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    String number = value.trim().toLowerCase(Locale.ROOT);
+    int shift =
+        switch (number.isEmpty() ? ' ' : number.charAt(number.length() - 1)) {
+          case 'k' -> 10;
+          case 'm' -> 20;
+          case 'g' -> 30;
+          default -> 0;
+        };
+    if (shift > 0) {
+      number = number.substring(0, number.length() - 1);
+    }
+    try {
+      return Math.multiplyExact(Long.parseLong(number), 1L << shift);
+    } catch (NumberFormatException | ArithmeticException e) {
+      throw new IllegalArgumentException("Option --" + name + " must be a size: " + value, e);
+    }
+  }
+}
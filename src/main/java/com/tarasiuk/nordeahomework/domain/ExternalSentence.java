@@ -0,0 +1,47 @@
+package com.tarasiuk.nordeahomework.domain;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A sentence with too many words to hold in memory. Its words are kept in sorted order outside the
+ * heap and are read back as a stream, so writing it needs memory for one word at a time rather
+ * than for the whole sentence. See {@link SentenceBatch#externalSentence()}.
+ */
+public interface ExternalSentence {
+
+  /**
+   * Returns the number of words in the sentence.
+   *
+   * @return The word count.
+   */
+  long wordCount();
+
+  /**
+   * Returns the total number of characters of all words, e.g. for estimating output sizes.
+   *
+   * @return The character count.
+   */
+  long charCount();
+
+  /**
+   * Opens a new reader over the words in sorted order. Several readers may be open at the same
+   * time, also on different threads; each reads all words independently.
+   *
+   * @return A reader positioned at the first word.
+   * @throws IOException If the words cannot be read.
+   */
+  WordReader openWords() throws IOException;
+
+  /** Reads the words of an {@link ExternalSentence} one at a time. */
+  interface WordReader extends Closeable {
+
+    /**
+     * Reads the next word.
+     *
+     * @return The next word, or {@code null} once all words have been read.
+     * @throws IOException If an I/O error occurs.
+     */
+    String next() throws IOException;
+  }
+}
@@ -0,0 +1,245 @@
+package com.tarasiuk.nordeahomework.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A reusable batch of sentences. Words of all sentences are stored in one flat array, with the end
+ * offset of each sentence kept in a parallel {@code int} array, so a batch that is {@link #clear()
+ * cleared} and refilled allocates nothing once its arrays have grown to the steady-state batch
+ * size. Callers hand the same batch back to the producer after consuming it instead of creating a
+ * new list of {@link Sentence} records per batch. Instances are not thread-safe.
+ *
+ * <p>A batch may instead hold a single {@link ExternalSentence}, a sentence too long to keep in
+ * memory. Such a batch contains nothing else, and consumers read its words through {@link
+ * #externalSentence()} instead of {@link #word(int, int)}.
+ */
+public final class SentenceBatch {
+  private static final int INITIAL_WORD_CAPACITY = 512;
+  private static final int INITIAL_SENTENCE_CAPACITY = 32;
+
+  /** Approximate heap size of a word besides its characters: the String, its array and a slot. */
+  private static final int WORD_OVERHEAD_BYTES = 48;
+
+  private String[] words = new String[INITIAL_WORD_CAPACITY];
+  private int[] sentenceEnds = new int[INITIAL_SENTENCE_CAPACITY];
+  private int wordCount = 0;
+  private int sentenceCount = 0;
+  private long charCount = 0;
+  private ExternalSentence externalSentence;
+
+  /**
+   * Returns the number of complete sentences in this batch.
+   *
+   * @return The number of sentences.
+   */
+  public int size() {
+    return externalSentence != null ? 1 : sentenceCount;
+  }
+
+  /**
+   * Checks whether this batch contains no complete sentences.
+   *
+   * @return {@code true} if the batch has no sentences.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns the external sentence this batch consists of, if any.
+   *
+   * @return The batch's only sentence if it is stored externally, otherwise {@code null}.
+   */
+  public ExternalSentence externalSentence() {
+    return externalSentence;
+  }
+
+  /**
+   * Replaces the content of this batch with a single externally stored sentence.
+   *
+   * @param sentence The sentence.
+   */
+  public void setExternalSentence(ExternalSentence sentence) {
+    clear();
+    this.externalSentence = sentence;
+  }
+
+  /**
+   * Returns the number of words in the given sentence.
+   *
+   * @param sentence The index of the sentence within this batch.
+   * @return The number of words in the sentence.
+   * @throws IllegalStateException If the batch holds an {@link #externalSentence()}.
+   */
+  public int wordCount(int sentence) {
+    if (externalSentence != null) {
+      throw new IllegalStateException("The sentence is stored externally.");
+    }
+    return sentenceEnds[sentence] - sentenceStart(sentence);
+  }
+
+  /**
+   * Returns a word of the given sentence.
+   *
+   * @param sentence The index of the sentence within this batch.
+   * @param index The index of the word within the sentence.
+   * @return The word.
+   */
+  public String word(int sentence, int index) {
+    return words[sentenceStart(sentence) + index];
+  }
+
+  /**
+   * Appends a word to the sentence currently being built. The sentence becomes visible once {@link
+   * #endSentence(Comparator)} is called.
+   *
+   * @param word The word to append.
+   */
+  public void addWord(String word) {
+    if (wordCount == words.length) {
+      words = Arrays.copyOf(words, wordCount * 2);
+    }
+    words[wordCount++] = word;
+    charCount += word.length();
+  }
+
+  /**
+   * Returns the approximate heap size of the words held, including those of a sentence not yet
+   * completed, counting two bytes per character and a fixed overhead per word. An {@link
+   * #externalSentence()} is not held in memory and counts as nothing.
+   *
+   * @return The estimated size in bytes.
+   */
+  public long estimatedBytes() {
+    return 2 * charCount + (long) WORD_OVERHEAD_BYTES * wordCount;
+  }
+
+  /**
+   * Completes the sentence currently being built, sorting its words with the given order. Does
+   * nothing if no words were added since the previous sentence.
+   *
+   * @param order The order in which the sentence's words are stored.
+   */
+  public void endSentence(Comparator<? super String> order) {
+    Arrays.sort(words, sentenceStart(sentenceCount), wordCount, order);
+    endSentence();
+  }
+
+  /**
+   * Completes the sentence currently being built, sorting its words in place with the given
+   * sorter. Does nothing if no words were added since the previous sentence.
+   *
+   * @param sorter The sorter of the sentence's words.
+   */
+  public void endSentence(WordSorter sorter) {
+    sorter.sort(words, sentenceStart(sentenceCount), wordCount);
+    endSentence();
+  }
+
+  /**
+   * Completes the sentence currently being built, keeping its words in the order they were added.
+   * Used when the words are already sorted, e.g. when reading them back from a written output.
+   * Does nothing if no words were added since the previous sentence.
+   *
+   * @throws IllegalStateException If the batch holds an {@link #externalSentence()}.
+   */
+  public void endSentence() {
+    if (wordCount == sentenceStart(sentenceCount)) {
+      return;
+    }
+    if (externalSentence != null) {
+      throw new IllegalStateException("A batch with an external sentence holds nothing else.");
+    }
+    if (sentenceCount == sentenceEnds.length) {
+      sentenceEnds = Arrays.copyOf(sentenceEnds, sentenceCount * 2);
+    }
+    sentenceEnds[sentenceCount++] = wordCount;
+  }
+
+  /**
+   * Appends a range of sentences from another batch, keeping their word order.
+   *
+   * @param source The batch to copy the sentences from.
+   * @param from The index of the first sentence to copy (inclusive).
+   * @param to The index of the last sentence to copy (exclusive).
+   * @throws IllegalArgumentException If the source holds an {@link #externalSentence()}.
+   */
+  public void addSentences(SentenceBatch source, int from, int to) {
+    if (source.externalSentence != null) {
+      throw new IllegalArgumentException("External sentences cannot be copied.");
+    }
+    for (int i = from; i < to; i++) {
+      int start = source.sentenceStart(i);
+      int end = source.sentenceEnds[i];
+      for (int j = start; j < end; j++) {
+        addWord(source.words[j]);
+      }
+      endSentence();
+    }
+  }
+
+  /**
+   * Removes all sentences, keeping the allocated capacity for reuse. Word references are released
+   * so they can be garbage collected.
+   */
+  public void clear() {
+    Arrays.fill(words, 0, wordCount, null);
+    wordCount = 0;
+    sentenceCount = 0;
+    charCount = 0;
+    externalSentence = null;
+  }
+
+  /**
+   * Copies the sentences of this batch into {@link Sentence} records. An {@link
+   * #externalSentence()} is read into memory in full.
+   *
+   * @return A new list with one {@link Sentence} per sentence in this batch.
+   * @throws UncheckedIOException If an external sentence cannot be read.
+   */
+  public List<Sentence> toSentences() {
+    if (externalSentence != null) {
+      List<String> words = new ArrayList<>();
+      try (ExternalSentence.WordReader reader = externalSentence.openWords()) {
+        for (String word = reader.next(); word != null; word = reader.next()) {
+          words.add(word);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return List.of(new Sentence(List.copyOf(words)));
+    }
+    List<Sentence> sentences = new ArrayList<>(sentenceCount);
+    for (int i = 0; i < sentenceCount; i++) {
+      sentences.add(
+          new Sentence(List.of(Arrays.copyOfRange(words, sentenceStart(i), sentenceEnds[i]))));
+    }
+    return sentences;
+  }
+
+  private int sentenceStart(int sentence) {
+    return sentence == 0 ? 0 : sentenceEnds[sentence - 1];
+  }
+
+  /**
+   * Sorts the words of a sentence in place, for orders that sort faster on keys computed once per
+   * word than with a {@link Comparator}. See {@link #endSentence(WordSorter)}.
+   */
+  @FunctionalInterface
+  public interface WordSorter {
+
+    /**
+     * Sorts a range of words.
+     *
+     * @param words The array holding the words.
+     * @param from The index of the first word to sort (inclusive).
+     * @param to The index of the last word to sort (exclusive).
+     */
+    void sort(String[] words, int from, int to);
+  }
+}
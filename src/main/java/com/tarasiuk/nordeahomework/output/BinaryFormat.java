@@ -0,0 +1,134 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Layout constants and encoding helpers shared by {@link BinaryWriter} and {@link BinaryReader}.
+ *
+ * <p>A file consists of a header, a sequence of blocks, a block index and a trailer:
+ *
+ * <pre>
+ * header:  magic "NHWB", version byte
+ * block:   varint newWordCount, varint dictionaryBytes, varint sentenceCount, varint sentenceBytes,
+ *          dictionary section: per new word: varint utf8Length, UTF-8 bytes
+ *          sentence section:   per sentence: varint wordCount, varint wordId...
+ * index:   varint blockCount, per block: varint offsetDelta, varint sentenceCount
+ * trailer: 8-byte big-endian index offset, magic "NHWB"
+ * </pre>
+ *
+ * Word ids refer to a dictionary that grows block by block: each block only lists the words that
+ * have not appeared in an earlier block, and ids are assigned in order of first appearance. A
+ * sentence too long to keep in memory is preceded by as many blocks without sentences as its new
+ * words need, so no dictionary section is much larger than a block. All varints are unsigned
+ * LEB128; counts, lengths and word ids fit in a signed 32-bit integer.
+ */
+final class BinaryFormat {
+  static final byte[] MAGIC = {'N', 'H', 'W', 'B'};
+  static final byte VERSION = 1;
+  static final int HEADER_LENGTH = MAGIC.length + 1;
+  static final int TRAILER_LENGTH = Long.BYTES + MAGIC.length;
+
+  private BinaryFormat() {}
+
+  /**
+   * Reads an unsigned varint from a stream.
+   *
+   * @throws EOFException If the stream ends inside the varint.
+   * @throws IOException If the varint is malformed or an I/O error occurs.
+   */
+  static long readVarint(InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException("Unexpected end of binary sentence file.");
+      }
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint in binary sentence file.");
+  }
+
+  /**
+   * Reads an unsigned varint that must fit in an {@code int}, such as a count, a length or a word
+   * id.
+   *
+   * @throws EOFException If the stream ends inside the varint.
+   * @throws IOException If the varint is malformed or larger than {@link Integer#MAX_VALUE}.
+   */
+  static int readIntVarint(InputStream in) throws IOException {
+    return checkInt(readVarint(in));
+  }
+
+  /**
+   * Returns a decoded varint as an {@code int}.
+   *
+   * @throws IOException If the value is larger than {@link Integer#MAX_VALUE}.
+   */
+  static int checkInt(long value) throws IOException {
+    if (value < 0 || value > Integer.MAX_VALUE) {
+      throw new IOException(
+          "Value out of range in binary sentence file: " + Long.toUnsignedString(value));
+    }
+    return (int) value;
+  }
+
+  /** Returns the number of bytes of the unsigned varint encoding of a value. */
+  static int varintLength(long value) {
+    int length = 1;
+    while ((value & ~0x7FL) != 0) {
+      value >>>= 7;
+      length++;
+    }
+    return length;
+  }
+
+  /** A growable byte array with varint encoding, reused between blocks. */
+  static final class Bytes {
+    private byte[] data = new byte[1024];
+    private int size = 0;
+
+    int size() {
+      return size;
+    }
+
+    byte[] array() {
+      return data;
+    }
+
+    void reset() {
+      size = 0;
+    }
+
+    void ensureCapacity(int capacity) {
+      if (capacity > data.length) {
+        data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+      }
+    }
+
+    void write(byte[] bytes) {
+      ensureCapacity(size + bytes.length);
+      System.arraycopy(bytes, 0, data, size, bytes.length);
+      size += bytes.length;
+    }
+
+    void writeVarint(long value) {
+      ensureCapacity(size + 10);
+      while ((value & ~0x7FL) != 0) {
+        data[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      data[size++] = (byte) value;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+      out.write(data, 0, size);
+    }
+  }
+}
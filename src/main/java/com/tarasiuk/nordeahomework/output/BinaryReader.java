@@ -0,0 +1,443 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams sentences back from a file written by {@link BinaryWriter}. Sentences are decoded one
+ * block at a time straight into a {@link SentenceBatch}; words are looked up in the dictionary, so
+ * reading allocates no strings beyond the dictionary itself. A block's only sentence with more
+ * than {@value #EXTERNAL_SENTENCE_WORDS} words, such as an external sentence written by the {@link
+ * BinaryWriter}, is provided as an {@link ExternalSentence} whose words are decoded from the file
+ * on demand, so reading it needs memory for the dictionary but not for its words. The block index
+ * allows {@link #seek(long) seeking} to any sentence. Implements {@link AutoCloseable} for resource
+ * management.
+ */
+public class BinaryReader implements AutoCloseable {
+  /** Word count above which the only sentence of a block is read as an external sentence. */
+  public static final int EXTERNAL_SENTENCE_WORDS = 1 << 16;
+
+  private static final Logger logger = LoggerFactory.getLogger(BinaryReader.class);
+  private final FileChannel channel;
+  private final long[] blockOffsets;
+  private final long[] blockFirstSentences;
+  private final long sentenceCount;
+  // Grown by copying, so an external sentence can keep the array it was read with while later
+  // blocks add words.
+  private String[] dictionary = new String[1024];
+  private int dictionarySize = 0;
+  private byte[] section = new byte[BinaryWriter.BLOCK_TARGET_BYTES];
+  private int sectionPosition = 0;
+  private int sectionLimit = 0;
+  private long sectionRemaining = 0;
+  private InputStream in;
+  private int nextBlock = 0;
+  private int dictionaryBlocks = 0;
+  private int sentencesToSkip = 0;
+
+  /**
+   * Constructs a BinaryReader for the given file, reading its block index and positioning it at
+   * the first sentence.
+   *
+   * @param inputFile The path to a file written by {@link BinaryWriter}.
+   * @throws IOException If the file cannot be read or is not a valid binary sentence file.
+   */
+  public BinaryReader(Path inputFile) throws IOException {
+    logger.debug("Initializing BinaryReader for file: {}", inputFile);
+    this.channel = FileChannel.open(inputFile, StandardOpenOption.READ);
+    try {
+      checkHeader();
+      long indexOffset = readTrailer();
+      in = streamAt(indexOffset);
+      int blockCount = BinaryFormat.readIntVarint(in);
+      this.blockOffsets = new long[blockCount];
+      this.blockFirstSentences = new long[blockCount];
+      long offset = 0;
+      long sentences = 0;
+      for (int i = 0; i < blockCount; i++) {
+        offset += BinaryFormat.readVarint(in);
+        blockOffsets[i] = offset;
+        blockFirstSentences[i] = sentences;
+        sentences += BinaryFormat.readIntVarint(in);
+      }
+      this.sentenceCount = sentences;
+      in = streamAt(BinaryFormat.HEADER_LENGTH);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private void checkHeader() throws IOException {
+    ByteBuffer header = readFully(0, BinaryFormat.HEADER_LENGTH);
+    byte[] magic = new byte[BinaryFormat.MAGIC.length];
+    header.get(magic);
+    if (!Arrays.equals(magic, BinaryFormat.MAGIC)) {
+      throw new IOException("Not a binary sentence file.");
+    }
+    byte version = header.get();
+    if (version != BinaryFormat.VERSION) {
+      throw new IOException("Unsupported binary sentence file version: " + version);
+    }
+  }
+
+  private long readTrailer() throws IOException {
+    long trailerOffset = channel.size() - BinaryFormat.TRAILER_LENGTH;
+    if (trailerOffset < BinaryFormat.HEADER_LENGTH) {
+      throw new IOException("Binary sentence file is truncated.");
+    }
+    ByteBuffer trailer = readFully(trailerOffset, BinaryFormat.TRAILER_LENGTH);
+    long indexOffset = trailer.getLong();
+    byte[] magic = new byte[BinaryFormat.MAGIC.length];
+    trailer.get(magic);
+    if (!Arrays.equals(magic, BinaryFormat.MAGIC)
+        || indexOffset < BinaryFormat.HEADER_LENGTH
+        || indexOffset > trailerOffset) {
+      throw new IOException("Binary sentence file is truncated or has a corrupt trailer.");
+    }
+    return indexOffset;
+  }
+
+  private ByteBuffer readFully(long position, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of binary sentence file.");
+      }
+    }
+    return buffer.flip();
+  }
+
+  private InputStream streamAt(long position) throws IOException {
+    channel.position(position);
+    return new BufferedInputStream(Channels.newInputStream(channel));
+  }
+
+  /**
+   * Returns the total number of sentences in the file.
+   *
+   * @return The number of sentences.
+   */
+  public long sentenceCount() {
+    return sentenceCount;
+  }
+
+  /**
+   * Positions the reader so that the next call to {@link #readNextSentences(SentenceBatch)}
+   * starts with the given sentence. Only the dictionaries of blocks not read yet are loaded on the
+   * way; since word ids are assigned in order of first appearance, a dictionary loaded further
+   * ahead stays valid when seeking back.
+   *
+   * @param sentence The zero-based number of the sentence to continue with.
+   * @throws IOException If an I/O error occurs.
+   * @throws IndexOutOfBoundsException If the sentence number is negative or not less than the
+   *     total number of sentences.
+   */
+  public void seek(long sentence) throws IOException {
+    if (sentence < 0 || sentence >= sentenceCount) {
+      throw new IndexOutOfBoundsException("Sentence " + sentence + " of " + sentenceCount);
+    }
+    int block = Arrays.binarySearch(blockFirstSentences, sentence);
+    if (block < 0) {
+      block = -block - 2;
+    }
+    while (dictionaryBlocks < block) {
+      in = streamAt(blockOffsets[dictionaryBlocks]);
+      readBlock(null);
+    }
+    in = streamAt(blockOffsets[block]);
+    nextBlock = block;
+    sentencesToSkip = (int) (sentence - blockFirstSentences[block]);
+  }
+
+  /**
+   * Reads the next block of sentences into the given batch, replacing its previous content. Blocks
+   * without sentences, which only extend the dictionary, are read on the way. An {@link
+   * SentenceBatch#externalSentence() external sentence} of the batch reads its words from the file,
+   * so it can only be read while this reader is open.
+   *
+   * @param batch The batch to fill. Cleared before use.
+   * @return {@code true} if the batch contains sentences, {@code false} once all blocks have been
+   *     read.
+   * @throws IOException If an I/O error occurs or the file is corrupt.
+   */
+  public boolean readNextSentences(SentenceBatch batch) throws IOException {
+    batch.clear();
+    while (nextBlock < blockOffsets.length) {
+      readBlock(batch);
+      if (!batch.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads one block at the current position. New dictionary words are only added if the block's
+   * dictionary has not been loaded before; sentences are decoded into the batch, or skipped if it
+   * is {@code null}. Both sections are streamed through the section buffer, and a sentence with
+   * more than {@value #EXTERNAL_SENTENCE_WORDS} words becomes an external sentence, so a block of
+   * any size is read in bounded memory besides the dictionary.
+   */
+  private void readBlock(SentenceBatch batch) throws IOException {
+    int block = batch == null ? dictionaryBlocks : nextBlock;
+    int newWordCount = BinaryFormat.readIntVarint(in);
+    int dictionaryBytes = BinaryFormat.readIntVarint(in);
+    int blockSentenceCount = BinaryFormat.readIntVarint(in);
+    long sentenceBytes = BinaryFormat.readVarint(in);
+    if (sentenceBytes < 0) {
+      throw new IOException("Malformed block header in binary sentence file.");
+    }
+
+    if (block == dictionaryBlocks) {
+      startSection(dictionaryBytes);
+      for (int i = 0; i < newWordCount; i++) {
+        addToDictionary(nextString(nextVarint()));
+      }
+      endSection();
+      dictionaryBlocks++;
+    } else {
+      in.skipNBytes(dictionaryBytes);
+    }
+
+    if (batch == null) {
+      return;
+    }
+    startSection(sentenceBytes);
+    for (int i = 0; i < blockSentenceCount; i++) {
+      int wordCount = nextVarint();
+      if (blockSentenceCount == 1 && wordCount > EXTERNAL_SENTENCE_WORDS) {
+        long wordsOffset =
+            blockOffsets[block]
+                + BinaryFormat.varintLength(newWordCount)
+                + BinaryFormat.varintLength(dictionaryBytes)
+                + BinaryFormat.varintLength(blockSentenceCount)
+                + BinaryFormat.varintLength(sentenceBytes)
+                + dictionaryBytes
+                + BinaryFormat.varintLength(wordCount);
+        batch.setExternalSentence(readStoredSentence(wordsOffset, wordCount));
+        break;
+      }
+      for (int j = 0; j < wordCount; j++) {
+        int id = nextWordId();
+        if (i >= sentencesToSkip) {
+          batch.addWord(dictionary[id]);
+        }
+      }
+      batch.endSentence();
+    }
+    endSection();
+    sentencesToSkip = 0;
+    nextBlock++;
+  }
+
+  private void addToDictionary(String word) {
+    if (dictionarySize == dictionary.length) {
+      dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+    }
+    dictionary[dictionarySize++] = word;
+  }
+
+  /**
+   * Checks the word ids of a sentence in the current section and counts their characters, leaving
+   * the words in the file to be decoded by the readers of the returned sentence.
+   */
+  private StoredSentence readStoredSentence(long wordsOffset, int wordCount) throws IOException {
+    long charCount = 0;
+    for (int i = 0; i < wordCount; i++) {
+      charCount += dictionary[nextWordId()].length();
+    }
+    return new StoredSentence(
+        channel, wordsOffset, wordCount, charCount, dictionary, dictionarySize);
+  }
+
+  /** Decodes the next word id of the current section, checking that it is in the dictionary. */
+  private int nextWordId() throws IOException {
+    int id = nextVarint();
+    if (id >= dictionarySize) {
+      throw new IOException("Unknown word id in binary sentence file: " + id);
+    }
+    return id;
+  }
+
+  /** Starts reading a section of the given length, of which nothing is buffered yet. */
+  private void startSection(long length) {
+    sectionRemaining = length;
+    sectionPosition = 0;
+    sectionLimit = 0;
+  }
+
+  /** Skips the part of the current section not read yet. */
+  private void endSection() throws IOException {
+    in.skipNBytes(sectionRemaining);
+    sectionRemaining = 0;
+  }
+
+  /** Refills the section buffer with the next bytes of the current section. */
+  private void fillSection() throws IOException {
+    if (sectionRemaining == 0) {
+      throw new IOException("Block section of binary sentence file ends unexpectedly.");
+    }
+    int length = (int) Math.min(sectionRemaining, section.length);
+    if (in.readNBytes(section, 0, length) != length) {
+      throw new EOFException("Unexpected end of binary sentence file.");
+    }
+    sectionRemaining -= length;
+    sectionPosition = 0;
+    sectionLimit = length;
+  }
+
+  /** Decodes the next varint of the current section. */
+  private int nextVarint() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (sectionPosition == sectionLimit) {
+        fillSection();
+      }
+      byte b = section[sectionPosition++];
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return BinaryFormat.checkInt(value);
+      }
+    }
+    throw new IOException("Malformed varint in binary sentence file.");
+  }
+
+  /** Decodes the next UTF-8 string of the given length in bytes from the current section. */
+  private String nextString(int length) throws IOException {
+    if (sectionLimit - sectionPosition >= length) {
+      String string = new String(section, sectionPosition, length, StandardCharsets.UTF_8);
+      sectionPosition += length;
+      return string;
+    }
+    byte[] bytes = new byte[length];
+    for (int copied = 0; copied < length; ) {
+      if (sectionPosition == sectionLimit) {
+        fillSection();
+      }
+      int count = Math.min(length - copied, sectionLimit - sectionPosition);
+      System.arraycopy(section, sectionPosition, bytes, copied, count);
+      sectionPosition += count;
+      copied += count;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Closes the underlying file.
+   *
+   * @throws IOException If an error occurs closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+    logger.debug("BinaryReader closed.");
+  }
+
+  /**
+   * A sentence whose word ids stay in the file and are decoded by each reader. Readers use
+   * positional reads of the shared channel, so several may be open at the same time, also on
+   * different threads.
+   */
+  private static final class StoredSentence implements ExternalSentence {
+    private final FileChannel channel;
+    private final long wordsOffset;
+    private final long wordCount;
+    private final long charCount;
+    private final String[] dictionary;
+    private final int dictionarySize;
+
+    private StoredSentence(
+        FileChannel channel,
+        long wordsOffset,
+        long wordCount,
+        long charCount,
+        String[] dictionary,
+        int dictionarySize) {
+      this.channel = channel;
+      this.wordsOffset = wordsOffset;
+      this.wordCount = wordCount;
+      this.charCount = charCount;
+      this.dictionary = dictionary;
+      this.dictionarySize = dictionarySize;
+    }
+
+    @Override
+    public long wordCount() {
+      return wordCount;
+    }
+
+    @Override
+    public long charCount() {
+      return charCount;
+    }
+
+    @Override
+    public WordReader openWords() {
+      InputStream in =
+          new BufferedInputStream(
+              new PositionalInputStream(channel, wordsOffset), BinaryWriter.BLOCK_TARGET_BYTES);
+      return new WordReader() {
+        private long remaining = wordCount;
+
+        @Override
+        public String next() throws IOException {
+          if (remaining == 0) {
+            return null;
+          }
+          remaining--;
+          int id = BinaryFormat.readIntVarint(in);
+          if (id >= dictionarySize) {
+            throw new IOException("Unknown word id in binary sentence file: " + id);
+          }
+          return dictionary[id];
+        }
+
+        @Override
+        public void close() {}
+      };
+    }
+  }
+
+  /** Reads a channel from a position on, without using or changing the channel's position. */
+  private static final class PositionalInputStream extends InputStream {
+    private final FileChannel channel;
+    private long position;
+
+    PositionalInputStream(FileChannel channel, long position) {
+      this.channel = channel;
+      this.position = position;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] one = new byte[1];
+      return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+      int count = channel.read(ByteBuffer.wrap(bytes, offset, length), position);
+      if (count > 0) {
+        position += count;
+      }
+      return count;
+    }
+  }
+}
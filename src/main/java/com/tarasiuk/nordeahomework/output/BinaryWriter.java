@@ -0,0 +1,206 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes processed sentences to a compact binary file for downstream analytics. Words are
+ * dictionary-encoded: every distinct word is stored once as UTF-8 and sentences are stored as
+ * varint-encoded lists of word ids. Sentences are grouped into blocks of roughly {@value
+ * #BLOCK_TARGET_BYTES} bytes, and a block index at the end of the file allows a {@link
+ * BinaryReader} to skip to any block. See {@link BinaryFormat} for the exact layout. Implements
+ * {@link SentenceSink}, and through it {@link AutoCloseable} for resource management.
+ */
+public class BinaryWriter implements SentenceSink {
+  /** Encoded size after which the current block is written out. */
+  static final int BLOCK_TARGET_BYTES = 64 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(BinaryWriter.class);
+  private final DataOutputStream out;
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  private final BinaryFormat.Bytes dictionarySection = new BinaryFormat.Bytes();
+  private final BinaryFormat.Bytes sentenceSection = new BinaryFormat.Bytes();
+  private final BinaryFormat.Bytes blockHeader = new BinaryFormat.Bytes();
+  private final BinaryFormat.Bytes index = new BinaryFormat.Bytes();
+  private int newWordCount = 0;
+  private int blockSentenceCount = 0;
+  private int blockCount = 0;
+  private long position = BinaryFormat.HEADER_LENGTH;
+  private long lastBlockOffset = 0;
+  private long sentenceCount = 0;
+
+  /**
+   * Constructs a BinaryWriter that will write to the specified output file path and writes the
+   * file header.
+   *
+   * @param outputFile The path to the target binary file.
+   * @throws IOException If an I/O error occurs creating the file or writing the header.
+   */
+  public BinaryWriter(Path outputFile) throws IOException {
+    logger.debug("Initializing BinaryWriter for file: {}", outputFile);
+    this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(outputFile)));
+    out.write(BinaryFormat.MAGIC);
+    out.writeByte(BinaryFormat.VERSION);
+  }
+
+  /**
+   * Encodes a batch of sentences into the current block, writing the block out once it reaches
+   * its target size. The batch is not retained and may be reused by the caller once this method
+   * returns. An external sentence is written as a block of its own.
+   *
+   * @param batch The {@link SentenceBatch} to write. If null, nothing is written.
+   * @throws IOException If an I/O error occurs writing a block.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch) throws IOException {
+    if (batch == null) {
+      logger.debug("Skipping write for null sentence batch.");
+      return;
+    }
+    if (batch.externalSentence() != null) {
+      writeExternalSentence(batch.externalSentence());
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      int wordCount = batch.wordCount(i);
+      sentenceSection.writeVarint(wordCount);
+      for (int j = 0; j < wordCount; j++) {
+        sentenceSection.writeVarint(wordId(batch.word(i, j)));
+      }
+      blockSentenceCount++;
+      sentenceCount++;
+
+      if (dictionarySection.size() + sentenceSection.size() >= BLOCK_TARGET_BYTES) {
+        writeBlock();
+      }
+    }
+  }
+
+  /** Returns the id of the word, adding it to the dictionary section if it is new. */
+  private int wordId(String word) {
+    Integer id = dictionary.get(word);
+    if (id == null) {
+      id = dictionary.size();
+      dictionary.put(word, id);
+      byte[] utf8 = word.getBytes(StandardCharsets.UTF_8);
+      dictionarySection.writeVarint(utf8.length);
+      dictionarySection.write(utf8);
+      newWordCount++;
+    }
+    return id;
+  }
+
+  /**
+   * Writes an external sentence as a block of its own, reading its words twice: first to add new
+   * words to the dictionary and compute the size of the sentence section, which precedes it in the
+   * block header, then to write the word ids, flushing them whenever a block's worth is encoded.
+   * New words are written out in blocks without sentences whenever a block's worth is collected,
+   * so the dictionary section stays bounded however many distinct words the sentence has.
+   */
+  private void writeExternalSentence(ExternalSentence sentence) throws IOException {
+    writeBlock();
+    long sentenceBytes = BinaryFormat.varintLength(sentence.wordCount());
+    try (ExternalSentence.WordReader words = sentence.openWords()) {
+      for (String word = words.next(); word != null; word = words.next()) {
+        sentenceBytes += BinaryFormat.varintLength(wordId(word));
+        if (dictionarySection.size() >= BLOCK_TARGET_BYTES) {
+          writeBlockStart(0);
+          endBlock();
+        }
+      }
+    }
+    blockSentenceCount = 1;
+    sentenceCount++;
+    writeBlockStart(sentenceBytes);
+
+    sentenceSection.writeVarint(sentence.wordCount());
+    try (ExternalSentence.WordReader words = sentence.openWords()) {
+      for (String word = words.next(); word != null; word = words.next()) {
+        sentenceSection.writeVarint(wordId(word));
+        if (sentenceSection.size() >= BLOCK_TARGET_BYTES) {
+          write(sentenceSection);
+          sentenceSection.reset();
+        }
+      }
+    }
+    write(sentenceSection);
+    endBlock();
+  }
+
+  /** Writes the current block and records it in the index, then starts a new block. */
+  private void writeBlock() throws IOException {
+    if (blockSentenceCount == 0) {
+      return;
+    }
+    writeBlockStart(sentenceSection.size());
+    write(sentenceSection);
+    endBlock();
+  }
+
+  /** Records the current block in the index and writes its header and dictionary section. */
+  private void writeBlockStart(long sentenceBytes) throws IOException {
+    index.writeVarint(position - lastBlockOffset);
+    index.writeVarint(blockSentenceCount);
+    lastBlockOffset = position;
+
+    blockHeader.reset();
+    blockHeader.writeVarint(newWordCount);
+    blockHeader.writeVarint(dictionarySection.size());
+    blockHeader.writeVarint(blockSentenceCount);
+    blockHeader.writeVarint(sentenceBytes);
+    write(blockHeader);
+    write(dictionarySection);
+  }
+
+  private void endBlock() {
+    dictionarySection.reset();
+    sentenceSection.reset();
+    newWordCount = 0;
+    blockSentenceCount = 0;
+    blockCount++;
+  }
+
+  private void write(BinaryFormat.Bytes bytes) throws IOException {
+    bytes.writeTo(out);
+    position += bytes.size();
+  }
+
+  /**
+   * Writes the last block, the block index and the trailer, and closes the underlying stream. This
+   * method should be called when all sentences have been written, typically via a
+   * try-with-resources statement.
+   *
+   * @throws IOException If an I/O error occurs writing the remaining data or closing the stream.
+   */
+  @Override
+  public void close() throws IOException {
+    logger.debug("Closing BinaryWriter.");
+    try {
+      writeBlock();
+      long indexOffset = position;
+      blockHeader.reset();
+      blockHeader.writeVarint(blockCount);
+      write(blockHeader);
+      write(index);
+      out.writeLong(indexOffset);
+      out.write(BinaryFormat.MAGIC);
+    } finally {
+      out.close();
+    }
+    logger.info(
+        "BinaryWriter closed. Sentences: {}, distinct words: {}, blocks: {}",
+        sentenceCount,
+        dictionary.size(),
+        blockCount);
+  }
+}
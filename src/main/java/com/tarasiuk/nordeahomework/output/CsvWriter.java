@@ -1,33 +1,50 @@
 package com.tarasiuk.nordeahomework.output;
 
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
 import com.tarasiuk.nordeahomework.domain.Sentence;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.StringJoiner;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Writes processed sentences to a CSV file. Uses a two-pass approach: first writes words to a
  * temporary file to determine the maximum number of words per sentence, then writes the final CSV
- * with a header row and sentence numbers to the target file. Implements {@link AutoCloseable} for
- * resource management.
+ * with a header row and sentence numbers to the target file. Words are encoded to UTF-8 once, in
+ * the first pass; the second pass copies the encoded lines byte for byte behind their sentence
+ * numbers. Implements {@link SentenceSink}, and through it {@link AutoCloseable} for resource
+ * management.
  */
-public class CsvWriter implements AutoCloseable {
+public class CsvWriter implements ShardableSink {
   public static final String DELIMITER = ", ";
   public static final String NEWLINE = System.lineSeparator();
   private static final Logger logger = LoggerFactory.getLogger(CsvWriter.class);
+  private static final byte[] DELIMITER_BYTES = DELIMITER.getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NEWLINE_BYTES = NEWLINE.getBytes(StandardCharsets.UTF_8);
+  private static final byte[] SENTENCE_PREFIX = "Sentence ".getBytes(StandardCharsets.UTF_8);
+  private static final byte LINE_END = '\n';
+  private static final byte QUOTE = '"';
+  private static final byte[] HEADER_WORD = "Word ".getBytes(StandardCharsets.UTF_8);
   private final Path finalOutputFile;
+  private final WritableByteChannel finalChannel;
   private final Path tempFile;
-  private final BufferedWriter tempWriter;
+  private final MemoryChannel tempMemory;
+  private final Utf8Output tempWriter;
+  private final SinkOptions options;
+  private final OutputIndex.Builder index;
+  private final long firstSentenceNumber;
   private int maxWords = 0;
   private int sentenceCount = 0;
+  private long sentencePrefixBytes = 0;
 
   /**
    * Constructs a CsvWriter that will write to the specified output file path. Creates a temporary
@@ -37,9 +54,74 @@ public class CsvWriter implements AutoCloseable {
    * @throws IOException If an I/O error occurs creating the temporary file or writers.
    */
   public CsvWriter(Path outputFile) throws IOException {
+    this(outputFile, SinkOptions.defaults());
+  }
+
+  /**
+   * Constructs a CsvWriter that will write to the specified output file path with the given
+   * settings. If an index interval is set, the byte offsets of indexed sentences are tracked while
+   * the final file is written and stored in a sidecar {@link OutputIndex}.
+   *
+   * @param outputFile The path to the target CSV file.
+   * @param options The sink settings.
+   * @throws IOException If an I/O error occurs creating the temporary file or writers.
+   */
+  public CsvWriter(Path outputFile, SinkOptions options) throws IOException {
+    this(outputFile, options, 1);
+  }
+
+  /**
+   * Constructs a CsvWriter whose sentence numbers start at the given number, for shards that
+   * continue the numbering of the previous shard.
+   */
+  CsvWriter(Path outputFile, SinkOptions options, long firstSentenceNumber) throws IOException {
+    this(outputFile, null, options, firstSentenceNumber);
+  }
+
+  /**
+   * Constructs a CsvWriter that writes the final CSV to the given channel, e.g. a network
+   * connection, instead of a file. Meant for small documents: the first pass is kept in memory
+   * instead of a temporary file. The channel is closed when the writer is closed.
+   *
+   * @param output The channel to write the CSV table to.
+   * @param options The sink settings. An index cannot be written for a channel.
+   * @throws IOException If an I/O error occurs preparing the output.
+   * @throws IllegalArgumentException If the options ask for an index.
+   */
+  public CsvWriter(WritableByteChannel output, SinkOptions options) throws IOException {
+    this(null, output, withoutIndex(options), 1);
+  }
+
+  private static SinkOptions withoutIndex(SinkOptions options) {
+    if (options.indexInterval() > 0) {
+      throw new IllegalArgumentException("An index can only be written for an output file.");
+    }
+    return options;
+  }
+
+  private CsvWriter(
+      Path outputFile,
+      WritableByteChannel outputChannel,
+      SinkOptions options,
+      long firstSentenceNumber)
+      throws IOException {
     this.finalOutputFile = outputFile;
+    this.finalChannel = outputChannel;
+    this.firstSentenceNumber = firstSentenceNumber;
+    this.index =
+        options.indexInterval() > 0
+            ? new OutputIndex.Builder(SinkType.CSV, options.indexInterval())
+            : null;
+    this.options = options;
+    if (outputChannel != null) {
+      this.tempFile = null;
+      this.tempMemory = new MemoryChannel();
+      this.tempWriter = new Utf8Output(tempMemory, options.bufferSize());
+      return;
+    }
     this.tempFile = Files.createTempFile("csv_writer_temp_", ".tmp");
-    this.tempWriter = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8);
+    this.tempMemory = null;
+    this.tempWriter = new Utf8Output(tempFile, options.bufferSize(), options.asyncWrites());
     logger.info("Writing sentence data to temporary file: {}", tempFile.toAbsolutePath());
   }
 
@@ -62,12 +144,126 @@ public class CsvWriter implements AutoCloseable {
         this.maxWords = words.size();
       }
 
-      tempWriter.write(
-          words.stream().map(this::escapeCsvField).collect(Collectors.joining(DELIMITER)));
-      tempWriter.write(NEWLINE);
-      sentenceCount++;
+      for (int j = 0; j < words.size(); j++) {
+        if (j > 0) {
+          tempWriter.write(DELIMITER_BYTES);
+        }
+        writeCsvField(words.get(j));
+      }
+      tempWriter.write(NEWLINE_BYTES);
+      countSentence();
+    }
+  }
+
+  /**
+   * Writes a batch of sentences to the temporary file, in the same format as {@link
+   * #writeSentences(List)}, reading the words directly from the batch. The batch is not retained
+   * and may be reused by the caller once this method returns. The words of an external sentence
+   * are streamed one at a time. Like the list overload, a null batch writes nothing.
+   *
+   * @param batch The {@link SentenceBatch} to write.
+   * @throws IOException If an I/O error occurs writing to the temporary file.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch) throws IOException {
+    if (batch == null) {
+      return;
+    }
+    ExternalSentence external = batch.externalSentence();
+    if (external != null) {
+      writeExternalSentence(external);
+      return;
+    }
+    writeSentences(batch, 0, batch.size());
+  }
+
+  /**
+   * Writes a range of the sentences of a batch to the temporary file, in the same format as {@link
+   * #writeSentences(SentenceBatch)}.
+   *
+   * @param batch The batch holding the sentences; must not hold an external sentence.
+   * @param from The index of the first sentence to write (inclusive).
+   * @param to The index of the last sentence to write (exclusive).
+   * @throws IOException If an I/O error occurs writing to the temporary file.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch, int from, int to) throws IOException {
+    for (int i = from; i < to; i++) {
+      int wordCount = batch.wordCount(i);
+      if (wordCount > this.maxWords) {
+        this.maxWords = wordCount;
+      }
+
+      for (int j = 0; j < wordCount; j++) {
+        if (j > 0) {
+          tempWriter.write(DELIMITER_BYTES);
+        }
+        writeCsvField(batch.word(i, j));
+      }
+      tempWriter.write(NEWLINE_BYTES);
+      countSentence();
+    }
+  }
+
+  /** Streams the words of an external sentence to the temporary file, one at a time. */
+  private void writeExternalSentence(ExternalSentence sentence) throws IOException {
+    long wordCount = Math.min(sentence.wordCount(), Integer.MAX_VALUE);
+    if (wordCount > this.maxWords) {
+      this.maxWords = (int) wordCount;
+    }
+    try (ExternalSentence.WordReader words = sentence.openWords()) {
+      boolean first = true;
+      for (String word = words.next(); word != null; word = words.next()) {
+        if (!first) {
+          tempWriter.write(DELIMITER_BYTES);
+        }
+        writeCsvField(word);
+        first = false;
+      }
+    }
+    tempWriter.write(NEWLINE_BYTES);
+    countSentence();
+  }
+
+  /** Counts a sentence written to the temporary file, with the number prefix it gets later. */
+  private void countSentence() {
+    sentencePrefixBytes +=
+        SENTENCE_PREFIX.length
+            + decimalLength(firstSentenceNumber + sentenceCount)
+            + DELIMITER_BYTES.length;
+    sentenceCount++;
+  }
+
+  /**
+   * Returns the size the final file would have if the writer were closed now: the header row, and
+   * the encoded sentences of the temporary file behind their sentence numbers.
+   *
+   * @return The size of the final output in bytes.
+   */
+  @Override
+  public long bytesWritten() {
+    return headerLength(maxWords) + sentencePrefixBytes + tempWriter.position();
+  }
+
+  /** Returns the length of the header row for the given number of word columns. */
+  private static long headerLength(int maxWords) {
+    if (maxWords == 0) {
+      return 0;
+    }
+    long length = NEWLINE_BYTES.length;
+    for (long first = 1, digits = 1; first <= maxWords; first *= 10, digits++) {
+      long columns = Math.min(maxWords, first * 10 - 1) - first + 1;
+      length += columns * (DELIMITER_BYTES.length + HEADER_WORD.length + digits);
+    }
+    return length;
+  }
+
+  private static int decimalLength(long value) {
+    int digits = 1;
+    for (long rest = value / 10; rest > 0; rest /= 10) {
+      digits++;
     }
-    tempWriter.flush();
+    return digits;
   }
 
   /**
@@ -86,7 +282,10 @@ public class CsvWriter implements AutoCloseable {
       try {
         tempWriter.close();
       } catch (IOException e) {
-        logger.warn("Error closing temporary writer: {}", e.getMessage(), e);
+        // Buffered sentences are lost, so the final file cannot be written.
+        logger.error("Error closing temporary writer: {}", e.getMessage(), e);
+        deleteTempFile();
+        throw e;
       }
     }
 
@@ -108,39 +307,76 @@ public class CsvWriter implements AutoCloseable {
 
   /**
    * Reads the temporary file, writes the header row, and then writes each sentence line prefixed
-   * with its sentence number to the final output file. Deletes the temporary file upon completion
-   * or failure.
+   * with its sentence number to the final output file, recording index entries if enabled. Deletes
+   * the temporary file upon completion or failure.
    *
    * @throws IOException If an I/O error occurs during file operations.
    */
   private void writeFinalFile() throws IOException {
-    logger.info("Writing final CSV file: {}", finalOutputFile.toAbsolutePath());
-    try (BufferedReader tempReader = Files.newBufferedReader(tempFile, StandardCharsets.UTF_8);
-        BufferedWriter finalWriter =
-            Files.newBufferedWriter(finalOutputFile, StandardCharsets.UTF_8)) {
+    ByteBuffer readBuffer = DirectBufferPool.acquire(options.bufferSize());
+    try (ReadableByteChannel tempReader =
+            tempFile != null
+                ? FileChannel.open(tempFile, StandardOpenOption.READ)
+                : tempMemory.reader();
+        Utf8Output finalWriter = openFinalOutput()) {
 
       writeFinalHeader(finalWriter);
 
-      String line;
-      int currentSentenceNum = 1;
-      while ((line = tempReader.readLine()) != null) {
-        finalWriter.write("Sentence ");
-        finalWriter.write(String.valueOf(currentSentenceNum++));
-        finalWriter.write(DELIMITER);
-        finalWriter.write(line);
-        finalWriter.write(NEWLINE);
+      long currentSentenceNum = firstSentenceNumber;
+      boolean atLineStart = true;
+      while (tempReader.read(readBuffer.clear()) >= 0) {
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+          if (atLineStart) {
+            if (index != null && index.isIndexed(currentSentenceNum - firstSentenceNumber)) {
+              index.add(finalWriter.position());
+            }
+            finalWriter.write(SENTENCE_PREFIX);
+            finalWriter.writeDecimal(currentSentenceNum++);
+            finalWriter.write(DELIMITER_BYTES);
+            atLineStart = false;
+          }
+          int lineEnd = indexOf(readBuffer, LINE_END);
+          atLineStart = lineEnd >= 0;
+          finalWriter.write(readBuffer, atLineStart ? lineEnd + 1 : readBuffer.limit());
+        }
       }
       logger.debug("Finished writing content to final CSV file.");
 
+      if (index != null) {
+        index.write(finalOutputFile, sentenceCount, finalWriter.position());
+        logger.debug("CSV index written for {} sentences.", sentenceCount);
+      }
+
     } finally {
+      DirectBufferPool.release(readBuffer);
       deleteTempFile();
     }
   }
 
+  private Utf8Output openFinalOutput() throws IOException {
+    if (finalChannel != null) {
+      logger.debug("Writing final CSV to channel.");
+      return new Utf8Output(finalChannel, options.bufferSize());
+    }
+    logger.info("Writing final CSV file: {}", finalOutputFile.toAbsolutePath());
+    return new Utf8Output(finalOutputFile, options.bufferSize(), options.asyncWrites());
+  }
+
+  /** Returns the index of the first occurrence of the byte from the buffer's position, or -1. */
+  private static int indexOf(ByteBuffer buffer, byte b) {
+    for (int i = buffer.position(); i < buffer.limit(); i++) {
+      if (buffer.get(i) == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   /** Deletes the temporary file used for intermediate storage. Logs errors if deletion fails. */
   private void deleteTempFile() {
     try {
-      if (Files.exists(tempFile)) {
+      if (tempFile != null && Files.exists(tempFile)) {
         Files.delete(tempFile);
         logger.debug("Temporary file deleted: {}", tempFile.toAbsolutePath());
       }
@@ -154,40 +390,50 @@ public class CsvWriter implements AutoCloseable {
    * Writes the header row to the final CSV file. The header includes "Sentence No." followed by
    * "Word 1", "Word 2", ..., up to the maximum number of words found.
    *
-   * @param finalWriter The writer for the final output file.
+   * @param finalWriter The output for the final file.
    * @throws IOException If an I/O error occurs writing the header.
    */
-  private void writeFinalHeader(BufferedWriter finalWriter) throws IOException {
+  private void writeFinalHeader(Utf8Output finalWriter) throws IOException {
     if (maxWords > 0) {
-      StringJoiner header = new StringJoiner(DELIMITER);
-
       for (int i = 1; i <= maxWords; i++) {
-        String s = "Word " + i;
-        header.add(s);
+        finalWriter.write(DELIMITER_BYTES);
+        finalWriter.write(HEADER_WORD);
+        finalWriter.writeDecimal(i);
       }
-
-      finalWriter.write(DELIMITER + header);
-      finalWriter.write(NEWLINE);
+      finalWriter.write(NEWLINE_BYTES);
     }
   }
 
   /**
-   * Escapes a string field for safe inclusion in a CSV file according to basic CSV rules (quoting
-   * fields containing delimiters, newlines, or quotes, and doubling internal quotes).
+   * Writes a string field to the temporary file, escaped for safe inclusion in a CSV file according
+   * to basic CSV rules (quoting fields containing delimiters, newlines, or quotes, and doubling
+   * internal quotes). A null field is written as an empty field.
    *
-   * @param field The string field to escape. Can be null.
-   * @return The escaped string field, or an empty string if the input field was null.
+   * @param field The string field to write. Can be null.
+   * @throws IOException If an I/O error occurs writing to the temporary file.
    */
-  private String escapeCsvField(String field) {
+  private void writeCsvField(String field) throws IOException {
+    writeField(tempWriter, field);
+  }
+
+  /** Writes a string field to the output, escaped as described for {@link #writeCsvField}. */
+  static void writeField(Utf8Output output, String field) throws IOException {
     if (field == null) {
-      return "";
+      return;
     }
 
-    if (field.contains(",") || field.contains("\n") || field.contains("\"")) {
-      String escapedField = field.replace("\"", "\"\"");
-      return "\"" + escapedField + "\"";
+    if (field.indexOf(',') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('"') >= 0) {
+      output.writeByte(QUOTE);
+      int start = 0;
+      for (int quote = field.indexOf('"'); quote >= 0; quote = field.indexOf('"', start)) {
+        output.write(field, start, quote + 1);
+        output.writeByte(QUOTE);
+        start = quote + 1;
+      }
+      output.write(field, start, field.length());
+      output.writeByte(QUOTE);
     } else {
-      return field;
+      output.write(field);
     }
   }
 }
@@ -0,0 +1,51 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A process-wide pool of direct {@link ByteBuffer}s used by {@link Utf8Output}. Direct buffers are
+ * expensive to allocate and are only freed by the garbage collector, so writers hand them back
+ * when closed and later writers, e.g. the next output shard, take them from here. Buffers are
+ * aligned to {@link #ALIGNMENT} in memory and sized in multiples of it, so full-buffer writes are
+ * aligned to file system blocks. Thread-safe.
+ */
+final class DirectBufferPool {
+  /** The alignment of buffer addresses and sizes, a common file system block size. */
+  static final int ALIGNMENT = 4096;
+
+  private static final int MAX_POOLED_PER_SIZE = 16;
+  private static final Map<Integer, Queue<ByteBuffer>> POOL = new ConcurrentHashMap<>();
+
+  private DirectBufferPool() {}
+
+  /**
+   * Takes a cleared buffer of at least the given size from the pool, allocating one if none is
+   * free.
+   */
+  static ByteBuffer acquire(int size) {
+    int capacity = alignedSize(size);
+    ByteBuffer buffer = POOL.computeIfAbsent(capacity, c -> new ConcurrentLinkedQueue<>()).poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(capacity + ALIGNMENT).alignedSlice(ALIGNMENT);
+      buffer.limit(capacity);
+      buffer = buffer.slice();
+    }
+    return buffer.clear();
+  }
+
+  /** Returns a buffer taken with {@link #acquire(int)} to the pool. It must not be used after. */
+  static void release(ByteBuffer buffer) {
+    Queue<ByteBuffer> free = POOL.get(buffer.capacity());
+    if (free != null && free.size() < MAX_POOLED_PER_SIZE) {
+      free.offer(buffer);
+    }
+  }
+
+  private static int alignedSize(int size) {
+    return Math.max(ALIGNMENT, (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+  }
+}
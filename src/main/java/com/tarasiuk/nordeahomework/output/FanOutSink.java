@@ -0,0 +1,179 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers every batch to several {@link SentenceSink}s concurrently. The first sink runs on the
+ * calling thread and every other sink on a dedicated worker thread, so the time spent per batch is
+ * that of the slowest sink rather than the sum of all of them. Each call returns only once every
+ * sink is done with the batch, so the caller may reuse the batch afterwards. With a single sink no
+ * worker threads are started and calls are passed straight through.
+ *
+ * <p>The number of threads may be limited. Sinks beyond the limit then queue for the worker
+ * threads, and with a limit of one thread all sinks are written in turn by the calling thread.
+ */
+public class FanOutSink implements SentenceSink {
+  private static final Logger logger = LoggerFactory.getLogger(FanOutSink.class);
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+  private final List<SentenceSink> sinks;
+  private final int workerThreads;
+  private final ExecutorService executor;
+
+  /**
+   * Constructs a FanOutSink delivering to the given sinks. The sinks are owned by the FanOutSink
+   * from now on and are opened and closed through it.
+   *
+   * @param sinks The sinks to deliver to. Must not be empty.
+   * @throws IllegalArgumentException If no sinks are given.
+   */
+  public FanOutSink(List<? extends SentenceSink> sinks) {
+    this(sinks, 0);
+  }
+
+  /**
+   * Constructs a FanOutSink delivering to the given sinks with at most the given number of
+   * threads, including the calling thread. The sinks are owned by the FanOutSink from now on and
+   * are opened and closed through it.
+   *
+   * @param sinks The sinks to deliver to. Must not be empty.
+   * @param maxThreads The maximum number of threads writing the sinks, or {@code 0} for one thread
+   *     per sink.
+   * @throws IllegalArgumentException If no sinks are given or the thread limit is negative.
+   */
+  public FanOutSink(List<? extends SentenceSink> sinks, int maxThreads) {
+    if (sinks.isEmpty()) {
+      throw new IllegalArgumentException("At least one sink is required.");
+    }
+    if (maxThreads < 0) {
+      throw new IllegalArgumentException("Thread limit must not be negative: " + maxThreads);
+    }
+    this.sinks = List.copyOf(sinks);
+    this.workerThreads =
+        maxThreads == 0 ? sinks.size() - 1 : Math.min(sinks.size(), maxThreads) - 1;
+    this.executor =
+        workerThreads > 0
+            ? Executors.newFixedThreadPool(workerThreads, FanOutSink::newWorkerThread)
+            : null;
+    logger.debug(
+        "FanOutSink created for {} sinks, {} worker threads.", sinks.size(), workerThreads);
+  }
+
+  /**
+   * Returns the number of threads writing the sinks, including the calling thread.
+   *
+   * @return The thread count.
+   */
+  public int threadCount() {
+    return workerThreads + 1;
+  }
+
+  private static Thread newWorkerThread(Runnable task) {
+    Thread thread = new Thread(task, "sink-writer-" + THREAD_COUNTER.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  @Override
+  public void open() throws IOException, XMLStreamException {
+    for (SentenceSink sink : sinks) {
+      sink.open();
+    }
+  }
+
+  @Override
+  public void writeSentences(SentenceBatch batch) throws IOException, XMLStreamException {
+    forEachSink(
+        sink -> {
+          sink.writeSentences(batch);
+          return null;
+        });
+  }
+
+  /**
+   * Closes all sinks concurrently and stops the worker threads. Every sink is closed even if
+   * closing another one fails; the first failure is rethrown with the others suppressed.
+   *
+   * @throws IOException If an I/O error occurs closing a sink.
+   * @throws XMLStreamException If an error occurs finishing an XML document.
+   */
+  @Override
+  public void close() throws IOException, XMLStreamException {
+    try {
+      forEachSink(
+          sink -> {
+            sink.close();
+            return null;
+          });
+    } finally {
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+    logger.debug("FanOutSink closed.");
+  }
+
+  /**
+   * Applies the action to every sink, the first one on the calling thread and the others on the
+   * worker threads, and waits until all of them are done. Without worker threads, the action is
+   * applied to every sink in turn, even after it failed for one of them.
+   */
+  private void forEachSink(SinkAction action) throws IOException, XMLStreamException {
+    if (executor == null) {
+      Throwable failure = null;
+      for (SentenceSink sink : sinks) {
+        try {
+          action.apply(sink);
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+          failure = SinkFailures.add(failure, e);
+        }
+      }
+      SinkFailures.rethrow(failure);
+      return;
+    }
+
+    List<Future<Void>> futures = new ArrayList<>(sinks.size() - 1);
+    for (SentenceSink sink : sinks.subList(1, sinks.size())) {
+      Callable<Void> task = () -> action.apply(sink);
+      futures.add(executor.submit(task));
+    }
+
+    Throwable failure = null;
+    try {
+      action.apply(sinks.get(0));
+    } catch (IOException | XMLStreamException | RuntimeException e) {
+      failure = e;
+    }
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        failure = SinkFailures.add(failure, e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure =
+            SinkFailures.add(failure, new InterruptedIOException("Interrupted waiting for sink."));
+      }
+    }
+    SinkFailures.rethrow(failure);
+  }
+
+  /** An operation on one sink. */
+  @FunctionalInterface
+  private interface SinkAction {
+    Void apply(SentenceSink sink) throws IOException, XMLStreamException;
+  }
+}
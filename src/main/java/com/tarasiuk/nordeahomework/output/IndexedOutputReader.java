@@ -0,0 +1,247 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads ranges of sentences from an XML or CSV output file using its sidecar {@link OutputIndex}.
+ * Each read seeks to the closest indexed sentence and only parses from there, so the cost of a
+ * read depends on the index interval and the range length, not on the position in the file.
+ * Implements {@link AutoCloseable} for resource management.
+ */
+public class IndexedOutputReader implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(IndexedOutputReader.class);
+  private static final String XML_FRAGMENT_ROOT = "fragment";
+  private static final String CSV_FIELD_QUOTE = "\"";
+
+  private final OutputIndex index;
+  private final FileChannel channel;
+  private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+  /**
+   * Constructs an IndexedOutputReader for the given output file, loading its index.
+   *
+   * @param outputFile The XML or CSV output file, written with an index interval set.
+   * @throws IOException If the output file or its index cannot be read.
+   */
+  public IndexedOutputReader(Path outputFile) throws IOException {
+    logger.debug("Initializing IndexedOutputReader for file: {}", outputFile);
+    this.index = OutputIndex.load(outputFile);
+    this.channel = FileChannel.open(outputFile, StandardOpenOption.READ);
+  }
+
+  /**
+   * Returns the number of sentences in the output file.
+   *
+   * @return The number of sentences.
+   */
+  public long sentenceCount() {
+    return index.sentenceCount();
+  }
+
+  /**
+   * Reads a range of sentences.
+   *
+   * @param first The zero-based number of the first sentence to read.
+   * @param count The maximum number of sentences to read.
+   * @return The sentences read, fewer than {@code count} if the file ends before.
+   * @throws IOException If an I/O error occurs or the file does not match its index.
+   * @throws XMLStreamException If the XML output cannot be parsed.
+   * @throws IndexOutOfBoundsException If {@code first} or {@code count} is negative.
+   */
+  public List<Sentence> readSentences(long first, int count)
+      throws IOException, XMLStreamException {
+    if (first < 0 || count < 0) {
+      throw new IndexOutOfBoundsException("Invalid sentence range: " + first + "+" + count);
+    }
+    if (first >= index.sentenceCount() || count == 0) {
+      return Collections.emptyList();
+    }
+    long indexed = index.indexedSentenceAtOrBefore(first);
+    int skip = (int) (first - indexed);
+    int toRead = (int) Math.min(count, index.sentenceCount() - first);
+    long offset = index.offsetOf(indexed);
+
+    channel.position(offset);
+    InputStream data =
+        new BoundedInputStream(
+            new BufferedInputStream(Channels.newInputStream(channel)), index.dataEnd() - offset);
+
+    return index.format() == SinkType.XML
+        ? readXmlSentences(data, skip, toRead)
+        : readCsvSentences(data, skip, toRead);
+  }
+
+  /**
+   * Parses sentence elements from the data, wrapped in a synthetic root element so the fragment is
+   * well-formed.
+   */
+  private List<Sentence> readXmlSentences(InputStream data, int skip, int toRead)
+      throws IOException, XMLStreamException {
+    InputStream fragment =
+        new SequenceInputStream(
+            Collections.enumeration(
+                List.of(
+                    new ByteArrayInputStream(
+                        ("<" + XML_FRAGMENT_ROOT + ">").getBytes(StandardCharsets.UTF_8)),
+                    data,
+                    new ByteArrayInputStream(
+                        ("</" + XML_FRAGMENT_ROOT + ">").getBytes(StandardCharsets.UTF_8)))));
+    XMLStreamReader reader =
+        xmlInputFactory.createXMLStreamReader(fragment, StandardCharsets.UTF_8.name());
+    List<Sentence> sentences = new ArrayList<>(toRead);
+    try {
+      List<String> words = null;
+      int seen = 0;
+      while (sentences.size() < toRead && reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (XmlWriter.SENTENCE_TAG_NAME.equals(reader.getLocalName())) {
+            words = new ArrayList<>();
+          } else if (XmlWriter.WORD_TAG_NAME.equals(reader.getLocalName()) && words != null) {
+            words.add(reader.getElementText());
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT
+            && XmlWriter.SENTENCE_TAG_NAME.equals(reader.getLocalName())) {
+          if (seen++ >= skip) {
+            sentences.add(new Sentence(List.copyOf(words)));
+          }
+          words = null;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return sentences;
+  }
+
+  /** Parses CSV rows from the data, dropping the leading sentence number column. */
+  private List<Sentence> readCsvSentences(InputStream data, int skip, int toRead)
+      throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(data, StandardCharsets.UTF_8));
+    List<Sentence> sentences = new ArrayList<>(toRead);
+    for (int i = 0; i < skip; i++) {
+      if (reader.readLine() == null) {
+        throw new IOException("CSV output ends before the sentences listed in its index.");
+      }
+    }
+    String line;
+    while (sentences.size() < toRead && (line = reader.readLine()) != null) {
+      List<String> fields = parseCsvLine(line);
+      sentences.add(new Sentence(List.copyOf(fields.subList(1, fields.size()))));
+    }
+    return sentences;
+  }
+
+  /** Splits a CSV row written by {@link CsvWriter}, undoing its field escaping. */
+  private static List<String> parseCsvLine(String line) {
+    List<String> fields = new ArrayList<>();
+    int position = 0;
+    while (position <= line.length()) {
+      int end;
+      String field;
+      if (line.startsWith(CSV_FIELD_QUOTE, position)) {
+        StringBuilder unescaped = new StringBuilder();
+        int i = position + 1;
+        while (i < line.length()) {
+          char c = line.charAt(i);
+          if (c == '"' && line.startsWith(CSV_FIELD_QUOTE, i + 1)) {
+            unescaped.append('"');
+            i += 2;
+          } else if (c == '"') {
+            break;
+          } else {
+            unescaped.append(c);
+            i++;
+          }
+        }
+        field = unescaped.toString();
+        end = i + 1;
+      } else {
+        end = line.indexOf(CsvWriter.DELIMITER, position);
+        if (end < 0) {
+          end = line.length();
+        }
+        field = line.substring(position, end);
+      }
+      fields.add(field);
+      position = end + CsvWriter.DELIMITER.length();
+    }
+    return fields;
+  }
+
+  /**
+   * Limits reading to a number of bytes, so parsing stops where sentence data ends. Closing it
+   * does not close the underlying file, which is reused between reads.
+   */
+  private static final class BoundedInputStream extends FilterInputStream {
+    private long remaining;
+
+    BoundedInputStream(InputStream in, long limit) {
+      super(in);
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int b = in.read();
+      if (b >= 0) {
+        remaining--;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      int read = in.read(b, off, (int) Math.min(len, remaining));
+      if (read > 0) {
+        remaining -= read;
+      }
+      return read;
+    }
+
+    @Override
+    public void close() {
+      // The channel is owned by the enclosing reader.
+    }
+  }
+
+  /**
+   * Closes the underlying file.
+   *
+   * @throws IOException If an error occurs closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+    logger.debug("IndexedOutputReader closed.");
+  }
+}
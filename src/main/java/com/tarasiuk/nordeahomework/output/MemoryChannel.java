@@ -0,0 +1,60 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A growable in-memory byte store that is written as a channel and then read back, used instead
+ * of a temporary file where the data is known to be small, or where it must be complete before
+ * any of it is sent. Not thread-safe.
+ */
+public final class MemoryChannel implements WritableByteChannel {
+  private static final int INITIAL_CAPACITY = 4096;
+
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+  private int size = 0;
+  private boolean open = true;
+
+  @Override
+  public int write(ByteBuffer source) {
+    int length = source.remaining();
+    if (size + length > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+    }
+    source.get(bytes, size, length);
+    size += length;
+    return length;
+  }
+
+  /**
+   * Returns the number of bytes written so far.
+   *
+   * @return The size in bytes.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a channel reading the bytes written so far.
+   *
+   * @return A new channel positioned at the first byte.
+   */
+  public ReadableByteChannel reader() {
+    return Channels.newChannel(new ByteArrayInputStream(bytes, 0, size));
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+}
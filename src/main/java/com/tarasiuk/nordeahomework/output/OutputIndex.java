@@ -0,0 +1,172 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Sidecar index mapping sentence numbers to byte offsets in an XML or CSV output file. The index
+ * is stored next to the output as {@code <output file>.idx} and holds the offset of every n-th
+ * sentence (n being the index interval), the number of sentences and the offset where sentence
+ * data ends. Sentence numbers are zero-based: the CSV row {@code Sentence 1} is sentence 0.
+ *
+ * <p>Layout: magic "NHWI", version byte, format byte (0 = XML, 1 = CSV), then varints for the
+ * interval, the sentence count, the data end offset, the number of entries and the entries as
+ * offset deltas. Use {@link IndexedOutputReader} to read sentence ranges through the index.
+ */
+public final class OutputIndex {
+  static final String EXTENSION = ".idx";
+  private static final byte[] MAGIC = {'N', 'H', 'W', 'I'};
+  private static final byte VERSION = 1;
+
+  private final SinkType format;
+  private final int interval;
+  private final long sentenceCount;
+  private final long dataEnd;
+  private final long[] offsets;
+
+  private OutputIndex(
+      SinkType format, int interval, long sentenceCount, long dataEnd, long[] offsets) {
+    this.format = format;
+    this.interval = interval;
+    this.sentenceCount = sentenceCount;
+    this.dataEnd = dataEnd;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Returns the path of the index belonging to the given output file.
+   *
+   * @param outputFile The XML or CSV output file.
+   * @return The path of its sidecar index.
+   */
+  public static Path indexFileOf(Path outputFile) {
+    return outputFile.resolveSibling(outputFile.getFileName() + EXTENSION);
+  }
+
+  /**
+   * Loads the index belonging to the given output file.
+   *
+   * @param outputFile The XML or CSV output file.
+   * @return The loaded index.
+   * @throws IOException If the index cannot be read or is corrupt.
+   */
+  public static OutputIndex load(Path outputFile) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(indexFileOf(outputFile))))) {
+      byte[] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || in.readByte() != VERSION) {
+        throw new IOException("Not a supported output index: " + indexFileOf(outputFile));
+      }
+      SinkType format = in.readByte() == 0 ? SinkType.XML : SinkType.CSV;
+      int interval = (int) BinaryFormat.readVarint(in);
+      long sentenceCount = BinaryFormat.readVarint(in);
+      long dataEnd = BinaryFormat.readVarint(in);
+      long[] offsets = new long[(int) BinaryFormat.readVarint(in)];
+      long offset = 0;
+      for (int i = 0; i < offsets.length; i++) {
+        offset += BinaryFormat.readVarint(in);
+        offsets[i] = offset;
+      }
+      return new OutputIndex(format, interval, sentenceCount, dataEnd, offsets);
+    }
+  }
+
+  /**
+   * Returns the format of the indexed output file.
+   *
+   * @return {@link SinkType#XML} or {@link SinkType#CSV}.
+   */
+  public SinkType format() {
+    return format;
+  }
+
+  /**
+   * Returns the number of sentences in the indexed output file.
+   *
+   * @return The number of sentences.
+   */
+  public long sentenceCount() {
+    return sentenceCount;
+  }
+
+  /**
+   * Returns the byte offset at which sentence data ends, i.e. the start of the XML closing tag or
+   * the end of the CSV file.
+   *
+   * @return The data end offset.
+   */
+  public long dataEnd() {
+    return dataEnd;
+  }
+
+  /**
+   * Returns the closest indexed sentence at or before the given one.
+   *
+   * @param sentence The zero-based sentence number.
+   * @return The zero-based number of the closest indexed sentence.
+   */
+  public long indexedSentenceAtOrBefore(long sentence) {
+    return Math.min(sentence / interval, offsets.length - 1L) * interval;
+  }
+
+  /**
+   * Returns the byte offset of an indexed sentence.
+   *
+   * @param indexedSentence A sentence number returned by {@link #indexedSentenceAtOrBefore(long)}.
+   * @return The byte offset at which the sentence starts.
+   */
+  public long offsetOf(long indexedSentence) {
+    return offsets[(int) (indexedSentence / interval)];
+  }
+
+  /** Collects index entries while an output file is written and stores them on completion. */
+  static final class Builder {
+    private final SinkType format;
+    private final int interval;
+    private final BinaryFormat.Bytes entries = new BinaryFormat.Bytes();
+    private long entryCount = 0;
+    private long lastOffset = 0;
+
+    Builder(SinkType format, int interval) {
+      this.format = format;
+      this.interval = interval;
+    }
+
+    /** Checks whether the given zero-based sentence needs an entry. */
+    boolean isIndexed(long sentence) {
+      return sentence % interval == 0;
+    }
+
+    /** Records the offset of the next indexed sentence. */
+    void add(long offset) {
+      entries.writeVarint(offset - lastOffset);
+      lastOffset = offset;
+      entryCount++;
+    }
+
+    /** Writes the index for the given output file. */
+    void write(Path outputFile, long sentenceCount, long dataEnd) throws IOException {
+      BinaryFormat.Bytes header = new BinaryFormat.Bytes();
+      header.write(MAGIC);
+      header.write(new byte[] {VERSION, (byte) (format == SinkType.XML ? 0 : 1)});
+      header.writeVarint(interval);
+      header.writeVarint(sentenceCount);
+      header.writeVarint(dataEnd);
+      header.writeVarint(entryCount);
+      try (OutputStream out =
+          new BufferedOutputStream(Files.newOutputStream(indexFileOf(outputFile)))) {
+        header.writeTo(out);
+        entries.writeTo(out);
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * A destination for processed sentences, such as an output file in one format. A sink is opened
+ * once, receives batches in input order and is closed when all sentences have been written. Calls
+ * on one sink never overlap, but consecutive calls may come from different threads.
+ */
+public interface SentenceSink extends AutoCloseable {
+
+  /**
+   * Prepares the sink for writing, e.g. by writing a document header. Called once before the first
+   * batch. Does nothing by default.
+   *
+   * @throws IOException If an I/O error occurs.
+   * @throws XMLStreamException If an error occurs writing XML structure.
+   */
+  default void open() throws IOException, XMLStreamException {}
+
+  /**
+   * Writes a batch of sentences. The batch is only valid for the duration of the call.
+   *
+   * @param batch The {@link SentenceBatch} to write.
+   * @throws IOException If an I/O error occurs.
+   * @throws XMLStreamException If an error occurs writing XML elements or characters.
+   */
+  void writeSentences(SentenceBatch batch) throws IOException, XMLStreamException;
+
+  /**
+   * Completes the output and releases all resources held by the sink.
+   *
+   * @throws IOException If an I/O error occurs.
+   * @throws XMLStreamException If an error occurs finishing the XML document.
+   */
+  @Override
+  void close() throws IOException, XMLStreamException;
+}
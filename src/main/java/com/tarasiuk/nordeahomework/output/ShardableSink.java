@@ -0,0 +1,32 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * A sink that {@link ShardedSink} can write shards with: it writes parts of a batch, so a shard can
+ * end within a batch, and reports the size of its output, so a shard can end at a size limit.
+ */
+interface ShardableSink extends SentenceSink {
+
+  /**
+   * Writes a range of the sentences of a batch that holds no external sentence.
+   *
+   * @param batch The batch holding the sentences.
+   * @param from The index of the first sentence to write (inclusive).
+   * @param to The index of the last sentence to write (exclusive).
+   * @throws IOException If an I/O error occurs.
+   * @throws XMLStreamException If an error occurs writing XML elements or characters.
+   */
+  void writeSentences(SentenceBatch batch, int from, int to)
+      throws IOException, XMLStreamException;
+
+  /**
+   * Returns the number of bytes the output holds for the sentences written so far, not counting
+   * what is only written on closing, such as the end of an XML document.
+   *
+   * @return The size of the output in bytes.
+   */
+  long bytesWritten();
+}
@@ -0,0 +1,269 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits an XML or CSV output into several shard files, rolling over to a new shard once the
+ * current one reaches a sentence count or a size, as reported by the shard's writer. Each shard is
+ * a complete document of its own, named after the output file with a shard number, e.g. {@code
+ * small-00001.csv}. CSV shards continue the sentence numbering of the previous shard. Finished
+ * shards are closed on {@link SinkOptions#shardCloserThreads() background threads}, so e.g. the
+ * final pass of a CSV shard overlaps with writing the next one; without them, on the writing
+ * thread.
+ *
+ * <p>A manifest next to the output, e.g. {@code small.csv.manifest}, lists every shard with the
+ * range of sentence numbers it holds.
+ */
+public class ShardedSink implements SentenceSink {
+  /** The file name extension of the shard manifest, appended to the output file name. */
+  public static final String MANIFEST_EXTENSION = ".manifest";
+
+  private static final Logger logger = LoggerFactory.getLogger(ShardedSink.class);
+  private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+  private static final String SHARD_NUMBER_FORMAT = "%s-%05d%s";
+  private static final String MANIFEST_HEADER = "Shard, First sentence, Last sentence";
+  private static final String MANIFEST_DELIMITER = ", ";
+
+  private final Path outputFile;
+  private final SinkType type;
+  private final SinkOptions options;
+  private final List<Shard> shards = new ArrayList<>();
+  private final List<Future<?>> pendingCloses = new ArrayList<>();
+  private final ExecutorService closer;
+
+  private ShardableSink current;
+  private long currentSentences = 0;
+  private long sentencesWritten = 0;
+
+  /** A finished or open shard and the range of sentence numbers it holds. */
+  private record Shard(Path file, long firstSentence, long lastSentence) {}
+
+  /**
+   * Constructs a ShardedSink writing shards of the given output.
+   *
+   * @param outputFile The path the output would have without sharding; shard files and the
+   *     manifest are created next to it.
+   * @param type The output format, {@link SinkType#XML} or {@link SinkType#CSV}.
+   * @param options The sink settings, with at least one shard limit set.
+   * @throws IllegalArgumentException If the type cannot be sharded or no shard limit is set.
+   */
+  public ShardedSink(Path outputFile, SinkType type, SinkOptions options) {
+    if (type != SinkType.XML && type != SinkType.CSV) {
+      throw new IllegalArgumentException("Sharding is not supported for " + type + " output.");
+    }
+    if (!options.isSharded()) {
+      throw new IllegalArgumentException("No shard limit set.");
+    }
+    this.outputFile = outputFile;
+    this.type = type;
+    this.options = options;
+    this.closer =
+        options.shardCloserThreads() > 0
+            ? Executors.newFixedThreadPool(
+                options.shardCloserThreads(), ShardedSink::newCloserThread)
+            : null;
+    logger.debug("ShardedSink created for {} with {}", outputFile, options);
+  }
+
+  private static Thread newCloserThread(Runnable task) {
+    Thread thread = new Thread(task, "shard-closer-" + THREAD_COUNTER.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Returns the path of the n-th shard of an output file.
+   *
+   * @param outputFile The path the output would have without sharding.
+   * @param shardNumber The one-based shard number.
+   * @return The shard path, e.g. {@code small-00001.csv} for {@code small.csv}.
+   */
+  public static Path shardFileOf(Path outputFile, int shardNumber) {
+    String fileName = outputFile.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+    String extension = dot > 0 ? fileName.substring(dot) : "";
+    return outputFile.resolveSibling(
+        String.format(SHARD_NUMBER_FORMAT, name, shardNumber, extension));
+  }
+
+  /**
+   * Returns the path of the shard manifest of an output file.
+   *
+   * @param outputFile The path the output would have without sharding.
+   * @return The manifest path, e.g. {@code small.csv.manifest}.
+   */
+  public static Path manifestFileOf(Path outputFile) {
+    return outputFile.resolveSibling(outputFile.getFileName() + MANIFEST_EXTENSION);
+  }
+
+  @Override
+  public void open() throws IOException, XMLStreamException {
+    startShard();
+  }
+
+  /**
+   * Writes the batch to the current shard, rolling over to new shards within the batch whenever
+   * a shard limit is reached. The size limit is checked against the bytes the shard's writer has
+   * written before each sentence, so a shard ends with the first sentence that reaches it. Every
+   * shard holds at least one sentence, even if it alone exceeds the size limit. A null batch is
+   * ignored, as by the unsharded writers.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch) throws IOException, XMLStreamException {
+    if (batch == null) {
+      return;
+    }
+    ExternalSentence external = batch.externalSentence();
+    if (external != null) {
+      if (currentSentences > 0 && isFull()) {
+        rollOver();
+      }
+      currentSentences++;
+      current.writeSentences(batch);
+      return;
+    }
+    if (options.shardBytes() == 0) {
+      writeCountedSentences(batch);
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      if (currentSentences > 0 && isFull()) {
+        rollOver();
+      }
+      currentSentences++;
+      current.writeSentences(batch, i, i + 1);
+    }
+  }
+
+  /** Writes the batch when only the sentence count is limited, in ranges of whole shards. */
+  private void writeCountedSentences(SentenceBatch batch) throws IOException, XMLStreamException {
+    int from = 0;
+    while (from < batch.size()) {
+      if (currentSentences >= options.shardSentences()) {
+        rollOver();
+      }
+      int to = (int) Math.min(batch.size(), from + options.shardSentences() - currentSentences);
+      current.writeSentences(batch, from, to);
+      currentSentences += to - from;
+      from = to;
+    }
+  }
+
+  private boolean isFull() {
+    return (options.shardSentences() > 0 && currentSentences >= options.shardSentences())
+        || (options.shardBytes() > 0 && current.bytesWritten() >= options.shardBytes());
+  }
+
+  private void rollOver() throws IOException, XMLStreamException {
+    finishShard();
+    startShard();
+  }
+
+  private void startShard() throws IOException, XMLStreamException {
+    Path shardFile = shardFileOf(outputFile, shards.size() + 1);
+    current =
+        type == SinkType.XML
+            ? new XmlWriter(shardFile, options)
+            : new CsvWriter(shardFile, options, sentencesWritten + 1);
+    shards.add(new Shard(shardFile, sentencesWritten + 1, sentencesWritten));
+    currentSentences = 0;
+    current.open();
+    logger.debug("Started shard {}", shardFile);
+  }
+
+  /**
+   * Records the sentence range of the current shard and hands it to a closer thread, or closes it
+   * right away without closer threads.
+   */
+  private void finishShard() throws IOException, XMLStreamException {
+    sentencesWritten += currentSentences;
+    Shard shard = shards.get(shards.size() - 1);
+    shards.set(
+        shards.size() - 1, new Shard(shard.file(), shard.firstSentence(), sentencesWritten));
+    SentenceSink finished = current;
+    current = null;
+    if (closer == null) {
+      finished.close();
+      return;
+    }
+    pendingCloses.add(
+        closer.submit(
+            () -> {
+              finished.close();
+              return null;
+            }));
+  }
+
+  /**
+   * Closes the last shard, waits for all shards to be closed and writes the manifest.
+   *
+   * @throws IOException If an I/O error occurs closing a shard or writing the manifest.
+   * @throws XMLStreamException If an error occurs finishing an XML shard.
+   */
+  @Override
+  public void close() throws IOException, XMLStreamException {
+    Throwable failure = null;
+    try {
+      if (current != null) {
+        try {
+          finishShard();
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+          failure = e;
+        }
+      }
+      for (Future<?> pending : pendingCloses) {
+        try {
+          pending.get();
+        } catch (ExecutionException e) {
+          failure = SinkFailures.add(failure, e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          failure =
+              SinkFailures.add(
+                  failure, new InterruptedIOException("Interrupted waiting for shard."));
+        }
+      }
+    } finally {
+      if (closer != null) {
+        closer.shutdown();
+      }
+    }
+    SinkFailures.rethrow(failure);
+    writeManifest();
+    logger.debug("ShardedSink closed after {} shards.", shards.size());
+  }
+
+  private void writeManifest() throws IOException {
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(manifestFileOf(outputFile), StandardCharsets.UTF_8)) {
+      writer.write(MANIFEST_HEADER);
+      writer.newLine();
+      for (Shard shard : shards) {
+        writer.write(shard.file().getFileName().toString());
+        writer.write(MANIFEST_DELIMITER);
+        writer.write(String.valueOf(shard.firstSentence()));
+        writer.write(MANIFEST_DELIMITER);
+        writer.write(String.valueOf(shard.lastSentence()));
+        writer.newLine();
+      }
+    }
+  }
+}
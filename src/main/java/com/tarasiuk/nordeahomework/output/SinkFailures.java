@@ -0,0 +1,39 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.io.IOException;
+import javax.xml.stream.XMLStreamException;
+
+/** Collects failures of several sink operations so all of them run before one is rethrown. */
+final class SinkFailures {
+
+  private SinkFailures() {}
+
+  /** Returns the first failure, with the next one added as suppressed if there already is one. */
+  static Throwable add(Throwable failure, Throwable next) {
+    if (failure == null) {
+      return next;
+    }
+    failure.addSuppressed(next);
+    return failure;
+  }
+
+  /** Rethrows the failure, if any, as one of the exception types sinks may throw. */
+  static void rethrow(Throwable failure) throws IOException, XMLStreamException {
+    if (failure == null) {
+      return;
+    }
+    if (failure instanceof IOException e) {
+      throw e;
+    }
+    if (failure instanceof XMLStreamException e) {
+      throw e;
+    }
+    if (failure instanceof RuntimeException e) {
+      throw e;
+    }
+    if (failure instanceof Error e) {
+      throw e;
+    }
+    throw new IOException("Sink failed: " + failure.getMessage(), failure);
+  }
+}
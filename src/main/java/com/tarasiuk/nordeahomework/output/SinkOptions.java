@@ -0,0 +1,105 @@
+package com.tarasiuk.nordeahomework.output;
+
+/**
+ * Settings shared by the file based {@link SentenceSink}s.
+ *
+ * @param indexInterval Write a sidecar index entry for every n-th sentence, see {@link
+ *     OutputIndex}; {@code 0} disables the index.
+ * @param shardSentences Roll XML and CSV output over to a new shard after this many sentences,
+ *     see {@link ShardedSink}; {@code 0} for no limit.
+ * @param shardBytes Roll XML and CSV output over to a new shard once it holds this many bytes,
+ *     ending a shard with the sentence that reaches the limit; {@code 0} for no limit.
+ * @param bufferSize The size in bytes of the buffer each XML and CSV writer fills before writing
+ *     to its file, rounded up to whole 4 KiB blocks.
+ * @param asyncWrites Whether the XML and CSV writers write full buffers asynchronously while
+ *     filling a second one. The writes run on the JDK's shared thread pool.
+ * @param shardCloserThreads The number of background threads each sharded output closes its
+ *     finished shards on; {@code 0} closes them on the thread writing the output.
+ */
+public record SinkOptions(
+    int indexInterval,
+    long shardSentences,
+    long shardBytes,
+    int bufferSize,
+    boolean asyncWrites,
+    int shardCloserThreads) {
+  /** The buffer size used when none is given. */
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+  /** The number of shard closer threads used when none is given. */
+  public static final int DEFAULT_SHARD_CLOSER_THREADS = 2;
+
+  /** The largest accepted buffer size. */
+  public static final int MAX_BUFFER_SIZE = 1 << 30;
+
+  public SinkOptions {
+    if (indexInterval < 0) {
+      throw new IllegalArgumentException("Index interval must not be negative: " + indexInterval);
+    }
+    if (shardSentences < 0 || shardBytes < 0) {
+      throw new IllegalArgumentException("Shard limits must not be negative.");
+    }
+    if (bufferSize <= 0 || bufferSize > MAX_BUFFER_SIZE) {
+      throw new IllegalArgumentException("Buffer size out of range: " + bufferSize);
+    }
+    if (shardCloserThreads < 0) {
+      throw new IllegalArgumentException(
+          "Shard closer threads must not be negative: " + shardCloserThreads);
+    }
+  }
+
+  /**
+   * Returns the settings used when none are given: no index, no sharding, default buffers
+   * written synchronously.
+   *
+   * @return The default settings.
+   */
+  public static SinkOptions defaults() {
+    return new SinkOptions(0, 0, 0, DEFAULT_BUFFER_SIZE, false, DEFAULT_SHARD_CLOSER_THREADS);
+  }
+
+  /**
+   * Returns a copy of these settings with the given buffer size.
+   *
+   * @param bufferSize The buffer size in bytes.
+   * @return The changed settings.
+   * @throws IllegalArgumentException If the buffer size is out of range.
+   */
+  public SinkOptions withBufferSize(int bufferSize) {
+    return new SinkOptions(
+        indexInterval, shardSentences, shardBytes, bufferSize, asyncWrites, shardCloserThreads);
+  }
+
+  /**
+   * Returns a copy of these settings with asynchronous writes switched on or off.
+   *
+   * @param asyncWrites Whether full buffers are written asynchronously.
+   * @return The changed settings.
+   */
+  public SinkOptions withAsyncWrites(boolean asyncWrites) {
+    return new SinkOptions(
+        indexInterval, shardSentences, shardBytes, bufferSize, asyncWrites, shardCloserThreads);
+  }
+
+  /**
+   * Returns a copy of these settings with the given number of shard closer threads.
+   *
+   * @param shardCloserThreads The number of threads per sharded output, or {@code 0} to close
+   *     shards on the thread writing the output.
+   * @return The changed settings.
+   * @throws IllegalArgumentException If the number is negative.
+   */
+  public SinkOptions withShardCloserThreads(int shardCloserThreads) {
+    return new SinkOptions(
+        indexInterval, shardSentences, shardBytes, bufferSize, asyncWrites, shardCloserThreads);
+  }
+
+  /**
+   * Checks whether XML and CSV output is split into shards.
+   *
+   * @return {@code true} if a shard limit is set.
+   */
+  public boolean isSharded() {
+    return shardSentences > 0 || shardBytes > 0;
+  }
+}
@@ -0,0 +1,150 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a {@link Flow.Publisher} of sentences to a {@link SentenceSink}. Sentences are collected
+ * into batches of a fixed size, and the next batch is only requested once the previous one has
+ * been written, so a slow sink slows down the publisher rather than the other way around.
+ *
+ * <p>The sink is owned by the subscriber: it is opened on subscription and closed when the stream
+ * ends, with the outcome reported through {@link #completion()}.
+ */
+public class SinkSubscriber implements Flow.Subscriber<Sentence> {
+  private static final Logger logger = LoggerFactory.getLogger(SinkSubscriber.class);
+
+  /** Number of sentences requested and written at a time by default. */
+  public static final int DEFAULT_BATCH_SIZE = 256;
+
+  private final SentenceSink sink;
+  private final int batchSize;
+  private final SentenceBatch batch = new SentenceBatch();
+  private final CompletableFuture<Long> completion = new CompletableFuture<>();
+  private Flow.Subscription subscription;
+  private int received = 0;
+  private long sentenceCount = 0;
+
+  /**
+   * Constructs a SinkSubscriber writing batches of {@link #DEFAULT_BATCH_SIZE} sentences.
+   *
+   * @param sink The sink to write to. Must not be opened yet.
+   */
+  public SinkSubscriber(SentenceSink sink) {
+    this(sink, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Constructs a SinkSubscriber writing batches of the given number of sentences.
+   *
+   * @param sink The sink to write to. Must not be opened yet.
+   * @param batchSize The number of sentences requested and written at a time.
+   * @throws IllegalArgumentException If the batch size is not positive.
+   */
+  public SinkSubscriber(SentenceSink sink, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    this.sink = Objects.requireNonNull(sink, "sink");
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Returns a future completed with the number of sentences written once the sink has been closed,
+   * or completed exceptionally if the publisher or the sink failed.
+   *
+   * @return The completion of this subscriber.
+   */
+  public CompletableFuture<Long> completion() {
+    return completion;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (this.subscription != null) {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    try {
+      sink.open();
+    } catch (IOException | XMLStreamException | RuntimeException e) {
+      subscription.cancel();
+      fail(e);
+      return;
+    }
+    subscription.request(batchSize);
+  }
+
+  @Override
+  public void onNext(Sentence sentence) {
+    if (completion.isDone()) {
+      return;
+    }
+    for (String word : sentence.words()) {
+      batch.addWord(word);
+    }
+    batch.endSentence();
+    if (++received == batchSize) {
+      received = 0;
+      try {
+        writeBatch();
+      } catch (IOException | XMLStreamException | RuntimeException e) {
+        subscription.cancel();
+        fail(e);
+        return;
+      }
+      subscription.request(batchSize);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    logger.error("Sentence stream failed: {}", throwable.getMessage(), throwable);
+    fail(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    if (completion.isDone()) {
+      return;
+    }
+    try {
+      writeBatch();
+      sink.close();
+    } catch (IOException | XMLStreamException | RuntimeException e) {
+      fail(e);
+      return;
+    }
+    logger.debug("Wrote {} sentences from the stream.", sentenceCount);
+    completion.complete(sentenceCount);
+  }
+
+  private void writeBatch() throws IOException, XMLStreamException {
+    if (!batch.isEmpty()) {
+      sink.writeSentences(batch);
+      sentenceCount += batch.size();
+      batch.clear();
+    }
+  }
+
+  /** Closes the sink, keeping any failure to do so as suppressed, and fails the completion. */
+  private void fail(Throwable failure) {
+    if (completion.isDone()) {
+      return;
+    }
+    try {
+      sink.close();
+    } catch (IOException | XMLStreamException | RuntimeException e) {
+      failure.addSuppressed(e);
+    }
+    completion.completeExceptionally(failure);
+  }
+}
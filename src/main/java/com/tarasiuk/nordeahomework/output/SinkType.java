@@ -0,0 +1,72 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import javax.xml.stream.XMLStreamException;
+
+/** The available {@link SentenceSink} implementations, selectable by name. */
+public enum SinkType {
+  /** XML document written by {@link XmlWriter}. */
+  XML(".xml"),
+  /** CSV table written by {@link CsvWriter}. */
+  CSV(".csv"),
+  /** Dictionary-encoded binary file written by {@link BinaryWriter}. */
+  BINARY(".bin"),
+  /** Corpus statistics and word frequencies written by {@link StatisticsWriter}. */
+  STATS(".stats");
+
+  private final String extension;
+
+  SinkType(String extension) {
+    this.extension = extension;
+  }
+
+  /**
+   * Resolves a sink type from its command line name, e.g. {@code xml}.
+   *
+   * @param name The case-insensitive sink name.
+   * @return The matching sink type.
+   * @throws IllegalArgumentException If no sink has the given name.
+   */
+  public static SinkType fromName(String name) {
+    try {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown output sink: " + name, e);
+    }
+  }
+
+  /**
+   * Returns the file name extension of this sink's output, including the leading dot.
+   *
+   * @return The file name extension, e.g. {@code .xml}.
+   */
+  public String extension() {
+    return extension;
+  }
+
+  /**
+   * Creates a new sink of this type writing to the given file. XML and CSV outputs are split into
+   * shards when the options set a shard limit, see {@link ShardedSink}; binary output and
+   * statistics are never sharded.
+   *
+   * @param outputFile The path to the output file.
+   * @param options The sink settings.
+   * @return The new, not yet opened, sink.
+   * @throws IOException If an I/O error occurs creating the output.
+   * @throws XMLStreamException If an error occurs initializing an XML stream writer.
+   */
+  public SentenceSink create(Path outputFile, SinkOptions options)
+      throws IOException, XMLStreamException {
+    if (options.isSharded() && (this == XML || this == CSV)) {
+      return new ShardedSink(outputFile, this, options);
+    }
+    return switch (this) {
+      case XML -> new XmlWriter(outputFile, options);
+      case CSV -> new CsvWriter(outputFile, options);
+      case BINARY -> new BinaryWriter(outputFile);
+      case STATS -> new StatisticsWriter(outputFile, options);
+    };
+  }
+}
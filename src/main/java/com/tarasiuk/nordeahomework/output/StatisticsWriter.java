@@ -0,0 +1,203 @@
+package com.tarasiuk.nordeahomework.output;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.statistics.CorpusStatistics;
+import com.tarasiuk.nordeahomework.statistics.WordCounter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates corpus-wide statistics over the processed sentences and writes them when closed: a
+ * plain-text report with the sentence and word counts, the vocabulary size, the most frequent
+ * words and the sentence length histogram, and a CSV file with the frequency of every distinct
+ * word (see {@link #frequencyFileOf(Path)}), most frequent first. Sentences are counted as they
+ * arrive, so memory grows with the vocabulary rather than with the input. Implements {@link
+ * SentenceSink}, and through it {@link AutoCloseable} for resource management.
+ *
+ * <p>The report has three tab-separated tables, each with a header line, separated by empty
+ * lines: the totals ({@code Sentences}, {@code Words}, {@code Vocabulary}, {@code Mean
+ * sentence length}, {@code Longest sentence}); the top words with their rank, count and share of
+ * all words; and the number of sentences per length, e.g. {@code 12} or {@code 65-128} words.
+ */
+public class StatisticsWriter implements SentenceSink {
+  /** Number of most frequent words listed in the report by default. */
+  public static final int DEFAULT_TOP_WORDS = 100;
+
+  /** Suffix replacing the report file's extension to name the frequency file. */
+  public static final String FREQUENCY_EXTENSION = ".words.csv";
+
+  private static final Logger logger = LoggerFactory.getLogger(StatisticsWriter.class);
+  private static final byte[] TAB = {'\t'};
+  private static final byte[] NEWLINE_BYTES = CsvWriter.NEWLINE.getBytes(StandardCharsets.UTF_8);
+  private static final byte[] DELIMITER_BYTES =
+      CsvWriter.DELIMITER.getBytes(StandardCharsets.UTF_8);
+
+  private final Path reportFile;
+  private final SinkOptions options;
+  private final int topWords;
+  private final CorpusStatistics statistics = new CorpusStatistics();
+
+  /**
+   * Constructs a StatisticsWriter listing the {@value #DEFAULT_TOP_WORDS} most frequent words.
+   *
+   * @param reportFile The path to the report file. The frequency file is written next to it.
+   * @param options The sink settings; only the buffer size applies.
+   */
+  public StatisticsWriter(Path reportFile, SinkOptions options) {
+    this(reportFile, options, DEFAULT_TOP_WORDS);
+  }
+
+  /**
+   * Constructs a StatisticsWriter listing the given number of most frequent words.
+   *
+   * @param reportFile The path to the report file. The frequency file is written next to it.
+   * @param options The sink settings; only the buffer size applies.
+   * @param topWords The number of most frequent words listed in the report.
+   * @throws IllegalArgumentException If the number of top words is negative.
+   */
+  public StatisticsWriter(Path reportFile, SinkOptions options, int topWords) {
+    if (topWords < 0) {
+      throw new IllegalArgumentException("Number of top words must not be negative: " + topWords);
+    }
+    logger.debug("Initializing StatisticsWriter for file: {}", reportFile);
+    this.reportFile = reportFile;
+    this.options = options;
+    this.topWords = topWords;
+  }
+
+  /**
+   * Returns the path of the word frequency file written with a report, e.g. {@code
+   * small.words.csv} for {@code small.stats}.
+   *
+   * @param reportFile The path to the report file.
+   * @return The path to the frequency file.
+   */
+  public static Path frequencyFileOf(Path reportFile) {
+    String fileName = reportFile.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot > 0 ? fileName.substring(0, dot) : fileName;
+    return reportFile.resolveSibling(name + FREQUENCY_EXTENSION);
+  }
+
+  /**
+   * Returns the statistics aggregated so far, e.g. for callers embedding the writer. They must not
+   * be modified.
+   *
+   * @return The live statistics.
+   */
+  public CorpusStatistics statistics() {
+    return statistics;
+  }
+
+  /**
+   * Counts the sentences and words of a batch. The batch is not retained and may be reused by the
+   * caller once this method returns.
+   *
+   * @param batch The {@link SentenceBatch} to count. If null, nothing is counted.
+   * @throws IOException If the words of an external sentence cannot be read.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch) throws IOException {
+    if (batch == null) {
+      return;
+    }
+    statistics.add(batch);
+  }
+
+  /**
+   * Writes the report and the frequency file.
+   *
+   * @throws IOException If an I/O error occurs writing either file.
+   */
+  @Override
+  public void close() throws IOException {
+    logger.debug("Closing StatisticsWriter.");
+    String[] ranked = statistics.words().wordsByFrequency();
+    try (Utf8Output report = new Utf8Output(reportFile, options.bufferSize(), false)) {
+      writeReport(report, ranked);
+    }
+    try (Utf8Output frequencies =
+        new Utf8Output(frequencyFileOf(reportFile), options.bufferSize(), false)) {
+      writeFrequencies(frequencies, ranked);
+    }
+    logger.info(
+        "StatisticsWriter closed. Sentences: {}, words: {}, distinct words: {}",
+        statistics.sentenceCount(),
+        statistics.wordCount(),
+        ranked.length);
+  }
+
+  private void writeReport(Utf8Output out, String[] ranked) throws IOException {
+    WordCounter words = statistics.words();
+    long sentences = statistics.sentenceCount();
+    out.write("Statistic\tvalue");
+    out.write(NEWLINE_BYTES);
+    writeLine(out, "Sentences", sentences);
+    writeLine(out, "Words", statistics.wordCount());
+    writeLine(out, "Vocabulary", words.size());
+    out.write("Mean sentence length");
+    out.write(TAB);
+    out.write(
+        String.format(
+            Locale.ROOT,
+            "%.2f",
+            sentences == 0 ? 0.0 : (double) statistics.wordCount() / sentences));
+    out.write(NEWLINE_BYTES);
+    writeLine(out, "Longest sentence", statistics.maxSentenceLength());
+
+    out.write(NEWLINE_BYTES);
+    out.write("Rank\tword\tcount\tshare");
+    out.write(NEWLINE_BYTES);
+    for (int i = 0; i < Math.min(topWords, ranked.length); i++) {
+      long count = words.count(ranked[i]);
+      out.writeDecimal(i + 1);
+      out.write(TAB);
+      out.write(ranked[i]);
+      out.write(TAB);
+      out.writeDecimal(count);
+      out.write(TAB);
+      out.write(String.format(Locale.ROOT, "%.2f%%", 100.0 * count / words.total()));
+      out.write(NEWLINE_BYTES);
+    }
+
+    out.write(NEWLINE_BYTES);
+    out.write("Sentence length\tsentences");
+    out.write(NEWLINE_BYTES);
+    for (CorpusStatistics.LengthBucket bucket : statistics.lengthHistogram()) {
+      out.writeDecimal(bucket.minWords());
+      if (bucket.maxWords() > bucket.minWords()) {
+        out.writeByte((byte) '-');
+        out.writeDecimal(bucket.maxWords());
+      }
+      out.write(TAB);
+      out.writeDecimal(bucket.sentences());
+      out.write(NEWLINE_BYTES);
+    }
+  }
+
+  private static void writeLine(Utf8Output out, String name, long value) throws IOException {
+    out.write(name);
+    out.write(TAB);
+    out.writeDecimal(value);
+    out.write(NEWLINE_BYTES);
+  }
+
+  /** Writes every distinct word with its count as a CSV row, in the given order. */
+  private void writeFrequencies(Utf8Output out, String[] ranked) throws IOException {
+    WordCounter words = statistics.words();
+    out.write("Word");
+    out.write(DELIMITER_BYTES);
+    out.write("Count");
+    out.write(NEWLINE_BYTES);
+    for (String word : ranked) {
+      CsvWriter.writeField(out, word);
+      out.write(DELIMITER_BYTES);
+      out.writeDecimal(words.count(word));
+      out.write(NEWLINE_BYTES);
+    }
+  }
+}
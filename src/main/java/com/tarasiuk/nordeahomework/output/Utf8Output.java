@@ -0,0 +1,247 @@
+package com.tarasiuk.nordeahomework.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Writes UTF-8 text straight into a pooled direct {@link ByteBuffer} that is written to a {@link
+ * FileChannel}, or another channel, only when full or on close. Characters are encoded once,
+ * without an intermediate {@code Writer} or charset encoder, and all writes but the last are full,
+ * block-aligned buffers. Unpaired surrogates are written as {@code ?}, as the JDK encoder does.
+ * Not thread-safe.
+ *
+ * <p>With asynchronous writes, a full buffer is handed to an {@link AsynchronousFileChannel} and
+ * filling continues in a second buffer, so the caller only waits for the disk when it fills the
+ * second buffer before the first one is written. Failures of a write surface on the next buffer
+ * switch or on close.
+ */
+final class Utf8Output implements Closeable {
+  // Bytes per char reserved when encoding: three for any char, plus one for a trailing surrogate
+  // pair that straddles the end of a chunk.
+  private static final int MAX_BYTES_PER_CHAR = 3;
+  private static final byte REPLACEMENT = '?';
+
+  private final WritableByteChannel channel;
+  private final AsynchronousFileChannel asyncChannel;
+  private ByteBuffer buffer;
+  // With asynchronous writes: the buffer being written while a write is pending, else the next
+  // buffer to fill.
+  private ByteBuffer spare;
+  private Future<Integer> pending;
+  private long pendingPosition;
+  private long flushedBytes = 0;
+
+  /**
+   * Creates or truncates the file and prepares a buffer of the given size.
+   *
+   * @param file The file to write.
+   * @param bufferSize The buffer size in bytes, rounded up to whole file system blocks.
+   * @param asyncWrites Whether to write full buffers asynchronously while filling a second one.
+   * @throws IOException If the file cannot be opened.
+   */
+  Utf8Output(Path file, int bufferSize, boolean asyncWrites) throws IOException {
+    StandardOpenOption[] openOptions = {
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+    };
+    if (asyncWrites) {
+      this.channel = null;
+      this.asyncChannel = AsynchronousFileChannel.open(file, openOptions);
+      this.spare = DirectBufferPool.acquire(bufferSize);
+    } else {
+      this.channel = FileChannel.open(file, openOptions);
+      this.asyncChannel = null;
+    }
+    this.buffer = DirectBufferPool.acquire(bufferSize);
+  }
+
+  /**
+   * Prepares a buffer of the given size for writing to a channel, e.g. a network connection.
+   * Writes are synchronous. The channel is closed with this output.
+   *
+   * @param channel The channel to write.
+   * @param bufferSize The buffer size in bytes, rounded up to whole file system blocks.
+   */
+  Utf8Output(WritableByteChannel channel, int bufferSize) {
+    this.channel = channel;
+    this.asyncChannel = null;
+    this.buffer = DirectBufferPool.acquire(bufferSize);
+  }
+
+  /** Returns the file offset of the next byte written. */
+  long position() {
+    return flushedBytes + buffer.position();
+  }
+
+  void writeByte(byte b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      drain();
+    }
+    buffer.put(b);
+  }
+
+  /** Writes bytes that are already encoded, e.g. markup constants. */
+  void write(byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      if (!buffer.hasRemaining()) {
+        drain();
+      }
+      int length = Math.min(buffer.remaining(), bytes.length - offset);
+      buffer.put(bytes, offset, length);
+      offset += length;
+    }
+  }
+
+  /** Copies the bytes of the source from its position up to {@code end}, advancing it. */
+  void write(ByteBuffer source, int end) throws IOException {
+    while (source.position() < end) {
+      if (!buffer.hasRemaining()) {
+        drain();
+      }
+      int length = Math.min(buffer.remaining(), end - source.position());
+      buffer.put(buffer.position(), source, source.position(), length);
+      buffer.position(buffer.position() + length);
+      source.position(source.position() + length);
+    }
+  }
+
+  /** Writes a non-negative number in decimal digits. */
+  void writeDecimal(long value) throws IOException {
+    if (buffer.remaining() < 20) {
+      drain();
+    }
+    int digits = 1;
+    for (long rest = value / 10; rest > 0; rest /= 10) {
+      digits++;
+    }
+    int end = buffer.position() + digits;
+    for (int i = end - 1; i >= buffer.position(); i--) {
+      buffer.put(i, (byte) ('0' + value % 10));
+      value /= 10;
+    }
+    buffer.position(end);
+  }
+
+  void write(String text) throws IOException {
+    write(text, 0, text.length());
+  }
+
+  /** Encodes the characters of the text from {@code start} (inclusive) to {@code end}. */
+  void write(String text, int start, int end) throws IOException {
+    int i = start;
+    while (i < end) {
+      int chunkEnd = Math.min(end, i + (buffer.remaining() - 1) / MAX_BYTES_PER_CHAR);
+      if (chunkEnd <= i) {
+        drain();
+        continue;
+      }
+      int position = buffer.position();
+      for (; i < chunkEnd; i++) {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+          buffer.put(position++, (byte) c);
+        } else if (c < 0x800) {
+          buffer.put(position++, (byte) (0xC0 | c >> 6));
+          buffer.put(position++, (byte) (0x80 | c & 0x3F));
+        } else if (!Character.isSurrogate(c)) {
+          buffer.put(position++, (byte) (0xE0 | c >> 12));
+          buffer.put(position++, (byte) (0x80 | c >> 6 & 0x3F));
+          buffer.put(position++, (byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < end
+            && Character.isLowSurrogate(text.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, text.charAt(++i));
+          buffer.put(position++, (byte) (0xF0 | codePoint >> 18));
+          buffer.put(position++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+          buffer.put(position++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+          buffer.put(position++, (byte) (0x80 | codePoint & 0x3F));
+        } else {
+          buffer.put(position++, REPLACEMENT);
+        }
+      }
+      buffer.position(position);
+    }
+  }
+
+  /** Writes the buffered bytes to the file and waits until they are written. */
+  void flush() throws IOException {
+    drain();
+    awaitPending();
+  }
+
+  /** Writes the buffered bytes, or starts writing them if writes are asynchronous. */
+  private void drain() throws IOException {
+    buffer.flip();
+    if (asyncChannel == null) {
+      while (buffer.hasRemaining()) {
+        flushedBytes += channel.write(buffer);
+      }
+      buffer.clear();
+      return;
+    }
+
+    awaitPending();
+    ByteBuffer full = buffer;
+    buffer = spare.clear();
+    spare = full;
+    pendingPosition = flushedBytes;
+    flushedBytes += full.remaining();
+    pending = asyncChannel.write(full, pendingPosition);
+  }
+
+  /** Waits for the pending asynchronous write, continuing it until the whole buffer is written. */
+  private void awaitPending() throws IOException {
+    while (pending != null) {
+      try {
+        pendingPosition += pending.get();
+      } catch (ExecutionException e) {
+        pending = null;
+        throw e.getCause() instanceof IOException cause
+            ? cause
+            : new IOException("Asynchronous write failed.", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for a write.");
+      }
+      pending = spare.hasRemaining() ? asyncChannel.write(spare, pendingPosition) : null;
+    }
+  }
+
+  /**
+   * Writes the buffered bytes, waits for pending writes, closes the file and returns the buffers
+   * to the pool.
+   */
+  @Override
+  public void close() throws IOException {
+    if (buffer == null) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      // A buffer may still be read by a write that was not waited for; it is left to the GC.
+      if (pending == null) {
+        DirectBufferPool.release(buffer);
+        if (spare != null) {
+          DirectBufferPool.release(spare);
+        }
+      }
+      buffer = null;
+      spare = null;
+      if (asyncChannel != null) {
+        asyncChannel.close();
+      } else {
+        channel.close();
+      }
+    }
+  }
+}
@@ -1,67 +1,125 @@
 package com.tarasiuk.nordeahomework.output;
 
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
 import com.tarasiuk.nordeahomework.domain.Sentence;
-import java.io.BufferedWriter;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Writes processed sentences to an XML file using the StAX API ({@link XMLStreamWriter}). Each
- * sentence and word is represented by specific XML elements. Implements {@link AutoCloseable} for
- * resource management.
+ * Writes processed sentences to an XML file. Each sentence and word is represented by specific XML
+ * elements. The markup is pre-encoded and words are encoded to UTF-8 straight into the output
+ * buffer, escaping {@code <}, {@code >} and {@code &} as StAX writers do. Implements {@link
+ * SentenceSink}, and through it {@link AutoCloseable} for resource management.
+ *
+ * <p>Since the document is no longer written through a StAX writer, its methods report write
+ * errors as {@link IOException} instead of {@link XMLStreamException}. The file constructors still
+ * declare {@link XMLStreamException} so that existing callers handling it keep compiling.
  */
-public class XmlWriter implements AutoCloseable {
+public class XmlWriter implements ShardableSink {
   public static final String NEWLINE = System.lineSeparator();
   public static final String SENTENCE_TAG_NAME = "sentence";
   public static final String WORD_TAG_NAME = "word";
   private static final Logger logger = LoggerFactory.getLogger(XmlWriter.class);
-  private final Writer writer;
-  private final XMLStreamWriter xmlWriter;
+  private static final byte[] DOCUMENT_START =
+      bytes("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + NEWLINE + "<text>" + NEWLINE);
+  private static final byte[] DOCUMENT_END = bytes("</text>" + NEWLINE);
+  private static final byte[] SENTENCE_START = bytes("<" + SENTENCE_TAG_NAME + ">");
+  private static final byte[] SENTENCE_END = bytes("</" + SENTENCE_TAG_NAME + ">" + NEWLINE);
+  private static final byte[] WORD_START = bytes("<" + WORD_TAG_NAME + ">");
+  private static final byte[] WORD_END = bytes("</" + WORD_TAG_NAME + ">");
+  private static final byte[] LESS_THAN = bytes("&lt;");
+  private static final byte[] GREATER_THAN = bytes("&gt;");
+  private static final byte[] AMPERSAND = bytes("&amp;");
+  private final Path outputFile;
+  private final Utf8Output output;
+  private final OutputIndex.Builder index;
   private boolean documentStarted = false;
+  private long sentenceCount = 0;
 
   /**
-   * Constructs an XmlWriter that will write to the specified output file path. Creates the
-   * necessary writers and prepares for XML output.
+   * Constructs an XmlWriter that will write to the specified output file path. Opens the
+   * file and prepares for XML output.
    *
    * @param outputFile The path to the target XML file.
-   * @throws IOException If an I/O error occurs creating the file or writers.
-   * @throws XMLStreamException If an error occurs initializing the XML stream writer.
+   * @throws IOException If an I/O error occurs creating the file.
+   * @throws XMLStreamException Never; declared for compatibility with earlier versions.
    */
   public XmlWriter(Path outputFile) throws IOException, XMLStreamException {
+    this(outputFile, SinkOptions.defaults());
+  }
+
+  /**
+   * Constructs an XmlWriter that will write to the specified output file path with the given
+   * settings. If an index interval is set, the byte offsets of indexed sentences are tracked while
+   * writing and stored in a sidecar {@link OutputIndex} when the writer is closed.
+   *
+   * @param outputFile The path to the target XML file.
+   * @param options The sink settings.
+   * @throws IOException If an I/O error occurs creating the file.
+   * @throws XMLStreamException Never; declared for compatibility with earlier versions.
+   */
+  public XmlWriter(Path outputFile, SinkOptions options) throws IOException, XMLStreamException {
     logger.debug("Initializing XmlWriter for file: {}", outputFile);
-    this.writer =
-        new BufferedWriter(
-            new OutputStreamWriter(Files.newOutputStream(outputFile), StandardCharsets.UTF_8));
-    this.xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(this.writer);
+    this.outputFile = outputFile;
+    this.index =
+        options.indexInterval() > 0
+            ? new OutputIndex.Builder(SinkType.XML, options.indexInterval())
+            : null;
+    this.output = new Utf8Output(outputFile, options.bufferSize(), options.asyncWrites());
+  }
+
+  /**
+   * Constructs an XmlWriter that writes to the given channel, e.g. a network connection, instead
+   * of a file. The channel is closed when the writer is closed.
+   *
+   * @param output The channel to write the XML document to.
+   * @param options The sink settings. An index cannot be written for a channel.
+   * @throws IllegalArgumentException If the options ask for an index.
+   */
+  public XmlWriter(WritableByteChannel output, SinkOptions options) {
+    if (options.indexInterval() > 0) {
+      throw new IllegalArgumentException("An index can only be written for an output file.");
+    }
+    this.outputFile = null;
+    this.index = null;
+    this.output = new Utf8Output(output, options.bufferSize());
+  }
+
+  private static byte[] bytes(String markup) {
+    return markup.getBytes(StandardCharsets.UTF_8);
   }
 
   /**
    * Writes the XML declaration and the root element start tag ({@code <text>}) to the output file.
    * This must be called once before writing any sentences.
    *
-   * @throws XMLStreamException If an error occurs writing the XML structure.
+   * @throws IOException If an I/O error occurs writing the XML structure.
    */
-  public void openDocument() throws XMLStreamException {
+  public void openDocument() throws IOException {
     logger.debug("Opening XML document.");
     if (!documentStarted) {
-      xmlWriter.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
-      xmlWriter.writeCharacters(NEWLINE);
-      xmlWriter.writeStartElement("text");
-      xmlWriter.writeCharacters(NEWLINE);
+      output.write(DOCUMENT_START);
       documentStarted = true;
     }
   }
 
+  /**
+   * Opens the document, see {@link #openDocument()}.
+   *
+   * @throws IOException If an I/O error occurs writing the XML structure.
+   */
+  @Override
+  public void open() throws IOException {
+    openDocument();
+  }
+
   /**
    * Writes a list of sentences to the XML file. Each sentence is enclosed in {@code <sentence>}
    * tags, and each word within a sentence is enclosed in {@code <word>} tags. Assumes {@link
@@ -69,10 +127,10 @@ public class XmlWriter implements AutoCloseable {
    *
    * @param sentences The list of {@link Sentence} objects to write. Can be null or empty (will be
    *     skipped).
-   * @throws XMLStreamException If an error occurs writing the XML elements or characters.
+   * @throws IOException If an I/O error occurs writing the XML elements or characters.
    * @throws IllegalStateException If {@link #openDocument()} has not been called first.
    */
-  public void writeSentences(List<Sentence> sentences) throws XMLStreamException {
+  public void writeSentences(List<Sentence> sentences) throws IOException {
     if (!documentStarted) {
       logger.error("Attempted to write sentences before opening document.");
       throw new IllegalStateException("Document must be opened before writing sentences.");
@@ -84,50 +142,138 @@ public class XmlWriter implements AutoCloseable {
     logger.trace("Writing {} sentences to XML.", sentences.size());
 
     for (Sentence sentence : sentences) {
-      xmlWriter.writeStartElement(SENTENCE_TAG_NAME);
+      writeSentenceStart();
       for (String word : sentence.words()) {
-        xmlWriter.writeStartElement(WORD_TAG_NAME);
-        xmlWriter.writeCharacters(word);
-        xmlWriter.writeEndElement();
+        writeWord(word);
+      }
+      output.write(SENTENCE_END);
+    }
+  }
+
+  /**
+   * Writes a batch of sentences to the XML file, in the same format as {@link
+   * #writeSentences(List)}, reading the words directly from the batch. The batch is not retained
+   * and may be reused by the caller once this method returns. The words of an external sentence
+   * are streamed one at a time. Like the list overload, a null batch writes nothing.
+   *
+   * @param batch The {@link SentenceBatch} to write.
+   * @throws IOException If an I/O error occurs writing the XML elements or characters.
+   * @throws IllegalStateException If {@link #openDocument()} has not been called first.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch) throws IOException {
+    if (!documentStarted) {
+      logger.error("Attempted to write sentences before opening document.");
+      throw new IllegalStateException("Document must be opened before writing sentences.");
+    }
+    if (batch == null) {
+      logger.debug("Skipping write for null sentence batch.");
+      return;
+    }
+    logger.trace("Writing {} sentences to XML.", batch.size());
+
+    ExternalSentence external = batch.externalSentence();
+    if (external != null) {
+      writeSentenceStart();
+      try (ExternalSentence.WordReader words = external.openWords()) {
+        for (String word = words.next(); word != null; word = words.next()) {
+          writeWord(word);
+        }
+      }
+      output.write(SENTENCE_END);
+      return;
+    }
+    writeSentences(batch, 0, batch.size());
+  }
+
+  /**
+   * Writes a range of the sentences of a batch, in the same format as {@link
+   * #writeSentences(SentenceBatch)}.
+   *
+   * @param batch The batch holding the sentences; must not hold an external sentence.
+   * @param from The index of the first sentence to write (inclusive).
+   * @param to The index of the last sentence to write (exclusive).
+   * @throws IOException If an I/O error occurs writing the XML elements or characters.
+   */
+  @Override
+  public void writeSentences(SentenceBatch batch, int from, int to) throws IOException {
+    for (int i = from; i < to; i++) {
+      writeSentenceStart();
+      int wordCount = batch.wordCount(i);
+      for (int j = 0; j < wordCount; j++) {
+        writeWord(batch.word(i, j));
+      }
+      output.write(SENTENCE_END);
+    }
+  }
+
+  /**
+   * Returns the number of bytes written so far, up to the end of the last sentence.
+   *
+   * @return The size of the output in bytes, without the end of the document.
+   */
+  @Override
+  public long bytesWritten() {
+    return output.position();
+  }
+
+  /** Writes the start tag of the next sentence, recording its offset first if it is indexed. */
+  private void writeSentenceStart() throws IOException {
+    if (index != null && index.isIndexed(sentenceCount)) {
+      index.add(output.position());
+    }
+    sentenceCount++;
+    output.write(SENTENCE_START);
+  }
+
+  private void writeWord(String word) throws IOException {
+    output.write(WORD_START);
+    int start = 0;
+    for (int i = 0; i < word.length(); i++) {
+      byte[] entity =
+          switch (word.charAt(i)) {
+            case '<' -> LESS_THAN;
+            case '>' -> GREATER_THAN;
+            case '&' -> AMPERSAND;
+            default -> null;
+          };
+      if (entity != null) {
+        output.write(word, start, i);
+        output.write(entity);
+        start = i + 1;
       }
-      xmlWriter.writeEndElement();
-      xmlWriter.writeCharacters(NEWLINE);
     }
-    xmlWriter.flush();
+    output.write(word, start, word.length());
+    output.write(WORD_END);
   }
 
   /**
    * Closes the root XML element ({@code </text>}), finishes the XML document, and closes the
-   * underlying writers. This method should be called when all sentences have been written,
-   * typically via a try-with-resources statement.
+   * output file. This method should be called when all sentences have been written, typically via
+   * a try-with-resources statement.
    *
-   * @throws XMLStreamException If an error occurs writing the final XML elements or closing the XML
-   *     stream writer.
+   * @throws IOException If an I/O error occurs writing the end of the document or the sidecar
+   *     index.
    */
   @Override
-  public void close() throws XMLStreamException {
+  public void close() throws IOException {
     logger.debug("Closing XmlWriter.");
+    long dataEnd = -1;
     try {
       if (documentStarted) {
-        xmlWriter.writeEndElement();
-        xmlWriter.writeCharacters(NEWLINE);
-        xmlWriter.writeEndDocument();
+        if (index != null) {
+          dataEnd = output.position();
+        }
+        output.write(DOCUMENT_END);
         logger.debug("XML document end written.");
       }
-      if (xmlWriter != null) {
-        xmlWriter.flush();
-        xmlWriter.close();
-        logger.debug("XMLStreamWriter closed.");
-      }
     } finally {
-      if (writer != null) {
-        try {
-          writer.close();
-          logger.debug("Underlying writer closed.");
-        } catch (IOException e) {
-          logger.warn("Error closing underlying writer: {}", e.getMessage(), e);
-        }
-      }
+      output.close();
+      logger.debug("Output file closed.");
+    }
+    if (dataEnd >= 0) {
+      index.write(outputFile, sentenceCount, dataEnd);
+      logger.debug("XML index written for {} sentences.", sentenceCount);
     }
     logger.info("XmlWriter closed.");
   }
@@ -0,0 +1,89 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Orders words by the collation rules of a locale, e.g. placing accented letters next to their
+ * base letter and following the alphabet of the language, with lowercase before uppercase in case
+ * ties. Words the collator considers equal are ordered by {@link String#compareTo}, so the order is
+ * total.
+ *
+ * <p>Comparing with a {@link Collator} directly costs several times more than {@link
+ * String#compareToIgnoreCase}. Instead, the collation key of each word is computed once, as bytes
+ * that compare in the collation order, and cached for repeated words. A sentence is sorted on the
+ * keys with {@link Arrays#compareUnsigned(byte[], byte[])}. Instances are not thread-safe.
+ */
+public final class CollationOrder implements Comparator<String>, SentenceBatch.WordSorter {
+  /** Number of cached keys after which the cache is cleared, bounding its memory. */
+  private static final int MAX_CACHED_KEYS = 1 << 16;
+
+  private final Collator collator;
+  private final Map<String, Key> cache = new HashMap<>();
+  private Key[] keys = new Key[64];
+
+  /** A word with its collation key. */
+  private record Key(String word, byte[] bytes) implements Comparable<Key> {
+    @Override
+    public int compareTo(Key other) {
+      int result = Arrays.compareUnsigned(bytes, other.bytes);
+      return result != 0 ? result : word.compareTo(other.word);
+    }
+  }
+
+  /**
+   * Constructs the order of the given locale.
+   *
+   * @param locale The locale whose collation rules are used.
+   */
+  public CollationOrder(Locale locale) {
+    this.collator = Collator.getInstance(locale);
+    collator.setStrength(Collator.TERTIARY);
+    collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+  }
+
+  @Override
+  public int compare(String a, String b) {
+    return key(a).compareTo(key(b));
+  }
+
+  /**
+   * Sorts a range of words by their cached collation keys.
+   *
+   * @param words The array holding the words.
+   * @param from The index of the first word to sort (inclusive).
+   * @param to The index of the last word to sort (exclusive).
+   */
+  @Override
+  public void sort(String[] words, int from, int to) {
+    int count = to - from;
+    if (count > keys.length) {
+      keys = new Key[Math.max(count, keys.length * 2)];
+    }
+    for (int i = 0; i < count; i++) {
+      keys[i] = key(words[from + i]);
+    }
+    Arrays.sort(keys, 0, count);
+    for (int i = 0; i < count; i++) {
+      words[from + i] = keys[i].word();
+      keys[i] = null;
+    }
+  }
+
+  private Key key(String word) {
+    Key key = cache.get(word);
+    if (key == null) {
+      if (cache.size() >= MAX_CACHED_KEYS) {
+        cache.clear();
+      }
+      key = new Key(word, collator.getCollationKey(word).toByteArray());
+      cache.put(word, key);
+    }
+    return key;
+  }
+}
@@ -0,0 +1,324 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the words of one sentence and sorts them, in memory while the sentence has at most a
+ * given number of words and with an external merge sort beyond that. Once the limit is reached,
+ * the words held so far are sorted and written to a temporary run file, so no more than the limit
+ * is ever held in memory. Runs are merged into an {@link ExternalSentence} when the sentence ends,
+ * with intermediate merge passes if there are more runs than can be merged at once.
+ *
+ * <p>The sorter is reused for the next sentence once its words were moved to a batch or handed
+ * over as an external sentence. Instances are not thread-safe, but the sentences they create may be
+ * read on several threads at the same time: every reader merges with an order of its own, so the
+ * order does not need to be thread-safe.
+ */
+final class ExternalWordSorter implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(ExternalWordSorter.class);
+
+  /** Maximum number of runs read at the same time while merging. */
+  static final int MAX_MERGE_FAN_IN = 64;
+
+  private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+  private final Supplier<? extends Comparator<String>> orders;
+  private final Comparator<String> order;
+  private final int maxWordsInMemory;
+  private final List<Run> runs = new ArrayList<>();
+  private String[] words = new String[16];
+  private int wordsInMemory = 0;
+  private long wordCount = 0;
+  private long charCount = 0;
+
+  /**
+   * Constructs a sorter.
+   *
+   * @param orders Creates the order of the sorted words, once for the sorter and once for every
+   *     reader of a sentence it creates.
+   * @param maxWordsInMemory The number of words held in memory before they are spilled to a run.
+   */
+  ExternalWordSorter(Supplier<? extends Comparator<String>> orders, int maxWordsInMemory) {
+    if (maxWordsInMemory <= 0) {
+      throw new IllegalArgumentException("The in-memory word limit must be positive.");
+    }
+    this.orders = orders;
+    this.order = orders.get();
+    this.maxWordsInMemory = maxWordsInMemory;
+  }
+
+  /** Adds a word of the current sentence, spilling the words held so far at the limit. */
+  void add(String word) throws IOException {
+    if (wordsInMemory == maxWordsInMemory) {
+      spillRun();
+    }
+    if (wordsInMemory == words.length) {
+      words = Arrays.copyOf(words, (int) Math.min((long) words.length * 2, maxWordsInMemory));
+    }
+    words[wordsInMemory++] = word;
+    wordCount++;
+    charCount += word.length();
+  }
+
+  /** Checks whether the current sentence exceeded the limit, i.e. must be ended externally. */
+  boolean hasSpilled() {
+    return !runs.isEmpty();
+  }
+
+  /**
+   * Moves the words of the current sentence, which must not have spilled, to the batch as its
+   * sentence in progress, and resets the sorter for the next sentence.
+   */
+  void moveTo(SentenceBatch batch) {
+    for (int i = 0; i < wordsInMemory; i++) {
+      batch.addWord(words[i]);
+    }
+    Arrays.fill(words, 0, wordsInMemory, null);
+    wordsInMemory = 0;
+    wordCount = 0;
+    charCount = 0;
+  }
+
+  /**
+   * Completes the current sentence as an external sentence, which takes over the run files, and
+   * resets the sorter for the next sentence.
+   */
+  SpilledSentence finish() throws IOException {
+    if (wordsInMemory > 0) {
+      spillRun();
+    }
+    while (runs.size() > MAX_MERGE_FAN_IN) {
+      mergePass();
+    }
+    SpilledSentence sentence =
+        new SpilledSentence(List.copyOf(runs), orders, wordCount, charCount);
+    logger.debug("Sorted {} words of one sentence externally in {} runs.", wordCount, runs.size());
+    runs.clear();
+    wordCount = 0;
+    charCount = 0;
+    return sentence;
+  }
+
+  /** Deletes the run files of a sentence in progress. */
+  @Override
+  public void close() {
+    Arrays.fill(words, 0, wordsInMemory, null);
+    wordsInMemory = 0;
+    deleteRuns(runs);
+    runs.clear();
+  }
+
+  /** Sorts the words held in memory and writes them to a new run. */
+  private void spillRun() throws IOException {
+    Arrays.sort(words, 0, wordsInMemory, order);
+    Path file = Files.createTempFile("sentence_spill_", ".tmp");
+    try (DataOutputStream out = openRun(file)) {
+      for (int i = 0; i < wordsInMemory; i++) {
+        writeWord(out, words[i]);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    runs.add(new Run(file, wordsInMemory));
+    if (runs.size() == 1) {
+      logger.info("Sentence exceeds {} words, sorting it externally.", maxWordsInMemory);
+    }
+    Arrays.fill(words, 0, wordsInMemory, null);
+    wordsInMemory = 0;
+  }
+
+  /** Merges consecutive groups of runs, reducing their number by up to the fan-in factor. */
+  private void mergePass() throws IOException {
+    List<Run> merged = new ArrayList<>();
+    try {
+      for (int from = 0; from < runs.size(); from += MAX_MERGE_FAN_IN) {
+        List<Run> group = runs.subList(from, Math.min(from + MAX_MERGE_FAN_IN, runs.size()));
+        Path file = Files.createTempFile("sentence_spill_", ".tmp");
+        long count = 0;
+        try (DataOutputStream out = openRun(file);
+            MergingReader reader = new MergingReader(group, order)) {
+          for (String word = reader.next(); word != null; word = reader.next()) {
+            writeWord(out, word);
+            count++;
+          }
+        } catch (IOException e) {
+          Files.deleteIfExists(file);
+          throw e;
+        }
+        merged.add(new Run(file, count));
+      }
+    } catch (IOException e) {
+      deleteRuns(merged);
+      throw e;
+    }
+    deleteRuns(runs);
+    runs.clear();
+    runs.addAll(merged);
+  }
+
+  private static DataOutputStream openRun(Path file) throws IOException {
+    return new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(file), FILE_BUFFER_SIZE));
+  }
+
+  private static void writeWord(DataOutputStream out, String word) throws IOException {
+    byte[] utf8 = word.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(utf8.length);
+    out.write(utf8);
+  }
+
+  private static void deleteRuns(List<Run> runs) {
+    for (Run run : runs) {
+      try {
+        Files.deleteIfExists(run.file());
+      } catch (IOException e) {
+        logger.warn("Error deleting spill file {}: {}", run.file(), e.getMessage(), e);
+      }
+    }
+  }
+
+  /** A sorted run file and the number of words in it. */
+  private record Run(Path file, long wordCount) {}
+
+  /** A sentence whose sorted words are stored in run files, deleted when it is closed. */
+  static final class SpilledSentence implements ExternalSentence, Closeable {
+    private final List<Run> runs;
+    private final Supplier<? extends Comparator<String>> orders;
+    private final long wordCount;
+    private final long charCount;
+
+    private SpilledSentence(
+        List<Run> runs,
+        Supplier<? extends Comparator<String>> orders,
+        long wordCount,
+        long charCount) {
+      this.runs = runs;
+      this.orders = orders;
+      this.wordCount = wordCount;
+      this.charCount = charCount;
+    }
+
+    @Override
+    public long wordCount() {
+      return wordCount;
+    }
+
+    @Override
+    public long charCount() {
+      return charCount;
+    }
+
+    @Override
+    public WordReader openWords() throws IOException {
+      return new MergingReader(runs, orders.get());
+    }
+
+    /** Deletes the run files. */
+    @Override
+    public void close() {
+      deleteRuns(runs);
+    }
+  }
+
+  /** Reads the words of several sorted runs as one sorted sequence. */
+  private static final class MergingReader implements ExternalSentence.WordReader {
+    private final List<RunReader> readers = new ArrayList<>();
+    private final PriorityQueue<RunReader> queue;
+
+    MergingReader(List<Run> runs, Comparator<String> order) throws IOException {
+      this.queue =
+          new PriorityQueue<>(
+              Math.max(1, runs.size()), (a, b) -> order.compare(a.current, b.current));
+      try {
+        for (Run run : runs) {
+          RunReader reader = new RunReader(run);
+          readers.add(reader);
+          if (reader.advance()) {
+            queue.add(reader);
+          }
+        }
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+
+    @Override
+    public String next() throws IOException {
+      RunReader reader = queue.poll();
+      if (reader == null) {
+        return null;
+      }
+      String word = reader.current;
+      if (reader.advance()) {
+        queue.add(reader);
+      }
+      return word;
+    }
+
+    @Override
+    public void close() throws IOException {
+      IOException failure = null;
+      for (RunReader reader : readers) {
+        try {
+          reader.in.close();
+        } catch (IOException e) {
+          failure = failure == null ? e : failure;
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  /** Reads the words of one run. */
+  private static final class RunReader {
+    private final DataInputStream in;
+    private long remaining;
+    private byte[] bytes = new byte[64];
+    private String current;
+
+    RunReader(Run run) throws IOException {
+      this.in =
+          new DataInputStream(
+              new BufferedInputStream(Files.newInputStream(run.file()), FILE_BUFFER_SIZE));
+      this.remaining = run.wordCount();
+    }
+
+    /** Reads the next word into {@code current}, returning {@code false} at the end of the run. */
+    boolean advance() throws IOException {
+      if (remaining == 0) {
+        current = null;
+        return false;
+      }
+      int length = in.readInt();
+      if (length > bytes.length) {
+        bytes = new byte[Math.max(length, bytes.length * 2)];
+      }
+      in.readFully(bytes, 0, length);
+      current = new String(bytes, 0, length, StandardCharsets.UTF_8);
+      remaining--;
+      return true;
+    }
+  }
+}
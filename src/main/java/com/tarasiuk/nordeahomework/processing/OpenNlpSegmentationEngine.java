@@ -0,0 +1,110 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Objects;
+import opennlp.tools.sentdetect.SentenceDetectorME;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.tokenize.TokenizerME;
+import opennlp.tools.tokenize.TokenizerModel;
+import opennlp.tools.util.Span;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SegmentationEngine} backed by the Apache OpenNLP maximum entropy sentence detector and
+ * tokenizer. This is the default and most accurate engine. Instances are not thread-safe.
+ */
+public class OpenNlpSegmentationEngine implements SegmentationEngine {
+  private static final Logger logger = LoggerFactory.getLogger(OpenNlpSegmentationEngine.class);
+
+  private static final String OPENNLP_EN_TOKEN_MODEL_PATH =
+      "/opennlp-en-ud-ewt-tokens-1.2-2.5.0.bin";
+  private static final String OPENNLP_EN_SENTENCE_MODEL_PATH =
+      "/opennlp-en-ud-ewt-sentence-1.2-2.5.0.bin";
+
+  private final SentenceDetectorME sdetector;
+  private final TokenizerME tokenizer;
+
+  /**
+   * Constructs the engine, loading the OpenNLP sentence detection and tokenizer models from the
+   * classpath.
+   *
+   * @throws IOException If an error occurs loading the OpenNLP models.
+   */
+  public OpenNlpSegmentationEngine() throws IOException {
+    this(null);
+  }
+
+  /**
+   * Constructs the engine, loading the models from a file of {@link PreparedModels pre-parsed
+   * models} if one exists for the current models, and otherwise from the classpath. In the latter
+   * case the file is created, so later runs load faster; failing to create it is only logged.
+   *
+   * @param preparedModels The prepared models file, or {@code null} to always load the models from
+   *     the classpath.
+   * @throws IOException If an error occurs loading the OpenNLP models.
+   */
+  public OpenNlpSegmentationEngine(Path preparedModels) throws IOException {
+    PreparedModels.Models models = null;
+    String source =
+        PreparedModels.source(OPENNLP_EN_SENTENCE_MODEL_PATH, OPENNLP_EN_TOKEN_MODEL_PATH);
+    if (preparedModels != null) {
+      try {
+        models = PreparedModels.read(preparedModels, source);
+      } catch (IOException e) {
+        logger.warn("Ignoring prepared models: {}", e.getMessage(), e);
+      }
+    }
+    if (models == null) {
+      models = loadClasspathModels();
+      if (preparedModels != null) {
+        try {
+          PreparedModels.write(preparedModels, source, models);
+        } catch (IOException | IllegalArgumentException e) {
+          logger.warn("Could not prepare models in {}: {}", preparedModels, e.getMessage(), e);
+        }
+      }
+    } else {
+      logger.debug("OpenNLP models loaded from {}.", preparedModels);
+    }
+    this.sdetector = new SentenceDetectorME(models.sentenceModel());
+    this.tokenizer = new TokenizerME(models.tokenizerModel());
+  }
+
+  private static PreparedModels.Models loadClasspathModels() throws IOException {
+    try (InputStream sentModelIn =
+            Objects.requireNonNull(
+                OpenNlpSegmentationEngine.class.getResourceAsStream(
+                    OPENNLP_EN_SENTENCE_MODEL_PATH),
+                "Sentence model not found on classpath at: " + OPENNLP_EN_SENTENCE_MODEL_PATH);
+        InputStream tokenModelIn =
+            Objects.requireNonNull(
+                OpenNlpSegmentationEngine.class.getResourceAsStream(OPENNLP_EN_TOKEN_MODEL_PATH),
+                "Tokenizer model not found on classpath at: " + OPENNLP_EN_TOKEN_MODEL_PATH)) {
+
+      PreparedModels.Models models =
+          new PreparedModels.Models(
+              new SentenceModel(sentModelIn), new TokenizerModel(tokenModelIn));
+      logger.debug("OpenNLP models loaded successfully.");
+      return models;
+
+    } catch (IOException | NullPointerException e) {
+      logger.error("Error loading OpenNLP models from classpath: {}", e.getMessage(), e);
+      throw new IOException("Failed to initialize OpenNLP Processor from classpath models", e);
+    }
+  }
+
+  @Override
+  public Span[] sentPosDetect(CharSequence text) {
+    return sdetector.sentPosDetect(text);
+  }
+
+  @Override
+  public void tokenizePos(CharSequence text, int start, int end, TokenConsumer consumer) {
+    for (Span token : tokenizer.tokenizePos(text.subSequence(start, end).toString())) {
+      consumer.accept(start + token.getStart(), start + token.getEnd());
+    }
+  }
+}
@@ -0,0 +1,286 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import opennlp.tools.ml.maxent.GISModel;
+import opennlp.tools.ml.model.AbstractModel;
+import opennlp.tools.ml.model.Context;
+import opennlp.tools.ml.model.MaxentModel;
+import opennlp.tools.sentdetect.SentenceDetectorFactory;
+import opennlp.tools.sentdetect.SentenceModel;
+import opennlp.tools.tokenize.TokenizerFactory;
+import opennlp.tools.tokenize.TokenizerModel;
+import opennlp.tools.util.Version;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the OpenNLP sentence and tokenizer models in a pre-parsed form that loads faster than the
+ * zipped model files. Only the parts the engine uses are kept: the factory settings and the
+ * maximum entropy parameters, written as flat length-prefixed arrays that are read back from one
+ * buffer without unzipping, property parsing or OpenNLP's artifact serializers.
+ *
+ * <p>The file records the OpenNLP version and the names of the model resources it was prepared
+ * from; a file prepared from anything else is treated as missing. Models with an abbreviation
+ * dictionary are not supported and are never prepared.
+ */
+final class PreparedModels {
+  private static final Logger logger = LoggerFactory.getLogger(PreparedModels.class);
+
+  private static final int MAGIC = 0x4E48504D; // "NHPM"
+  private static final int FORMAT_VERSION = 1;
+
+  private PreparedModels() {}
+
+  /** A sentence and tokenizer model pair. */
+  record Models(SentenceModel sentenceModel, TokenizerModel tokenizerModel) {}
+
+  /**
+   * Loads the models from a prepared file.
+   *
+   * @param file The prepared models file.
+   * @param source A description of the models the file must have been prepared from.
+   * @return The models, or {@code null} if the file does not exist or was prepared from other
+   *     models or by another OpenNLP version.
+   * @throws IOException If the file cannot be read or is corrupt.
+   */
+  static Models read(Path file, String source) throws IOException {
+    ByteBuffer in;
+    try {
+      in = ByteBuffer.wrap(Files.readAllBytes(file));
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+    try {
+      if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+        throw new IOException("Not a prepared models file: " + file);
+      }
+      String preparedFrom = readString(in);
+      if (!preparedFrom.equals(source)) {
+        logger.info("Prepared models {} are out of date ({}).", file, preparedFrom);
+        return null;
+      }
+
+      String sentenceLanguage = readString(in);
+      boolean useTokenEnd = in.get() != 0;
+      char[] eosCharacters = readString(in).toCharArray();
+      MaxentModel sentenceMaxent = readMaxentModel(in);
+
+      String tokenizerLanguage = readString(in);
+      boolean useAlphaNumericOptimization = in.get() != 0;
+      Pattern alphaNumericPattern = Pattern.compile(readString(in));
+      MaxentModel tokenizerMaxent = readMaxentModel(in);
+
+      return new Models(
+          new SentenceModel(
+              sentenceLanguage,
+              sentenceMaxent,
+              null,
+              new SentenceDetectorFactory(sentenceLanguage, useTokenEnd, null, eosCharacters)),
+          new TokenizerModel(
+              tokenizerMaxent,
+              null,
+              new TokenizerFactory(
+                  tokenizerLanguage, null, useAlphaNumericOptimization, alphaNumericPattern)));
+    } catch (BufferUnderflowException
+        | IndexOutOfBoundsException
+        | NegativeArraySizeException
+        | IllegalArgumentException e) {
+      throw new IOException("Corrupt prepared models file: " + file, e);
+    }
+  }
+
+  /**
+   * Writes the models to a prepared file. The file is written next to its final location and then
+   * moved into place, so concurrent readers never see a partial file.
+   *
+   * @param file The prepared models file to create or replace.
+   * @param source A description of the models, checked by {@link #read}.
+   * @param models The models to write.
+   * @throws IOException If the file cannot be written.
+   * @throws IllegalArgumentException If a model cannot be stored in the prepared form.
+   */
+  static void write(Path file, String source, Models models) throws IOException {
+    SentenceDetectorFactory sentenceFactory = models.sentenceModel().getFactory();
+    TokenizerFactory tokenizerFactory = models.tokenizerModel().getFactory();
+    if (sentenceFactory.getAbbreviationDictionary() != null
+        || tokenizerFactory.getAbbreviationDictionary() != null) {
+      throw new IllegalArgumentException(
+          "Models with abbreviation dictionaries are not supported.");
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    writeString(out, source);
+
+    writeString(out, sentenceFactory.getLanguageCode());
+    out.writeBoolean(sentenceFactory.isUseTokenEnd());
+    writeString(out, new String(sentenceFactory.getEOSCharacters()));
+    writeMaxentModel(out, models.sentenceModel().getMaxentModel());
+
+    writeString(out, tokenizerFactory.getLanguageCode());
+    out.writeBoolean(tokenizerFactory.isUseAlphaNumericOptimization());
+    writeString(out, tokenizerFactory.getAlphaNumericPattern().pattern());
+    writeMaxentModel(out, models.tokenizerModel().getMaxentModel());
+    out.flush();
+
+    Path directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tempFile, bytes.toByteArray());
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    logger.info("Prepared models written to {} ({} bytes).", file, bytes.size());
+  }
+
+  /**
+   * Describes the models loaded from the given classpath resources with the running OpenNLP
+   * version, for {@link #read} to detect prepared files that are out of date.
+   */
+  static String source(String... resources) {
+    return "opennlp " + Version.currentVersion() + ": " + String.join(", ", resources);
+  }
+
+  /**
+   * Writes a GIS model column by column, so it can be read back with a few bulk copies: the outcome
+   * labels; the distinct outcome patterns, each with the number of predicates using it; the byte
+   * length of every predicate label, then all labels as one UTF-8 block; and finally all
+   * parameters as one array. Predicates are written grouped by outcome pattern.
+   */
+  @SuppressWarnings("unchecked")
+  private static void writeMaxentModel(DataOutputStream out, MaxentModel model)
+      throws IOException {
+    if (!(model instanceof GISModel gisModel)) {
+      throw new IllegalArgumentException("Unsupported model type: " + model.getClass().getName());
+    }
+    Object[] dataStructures = gisModel.getDataStructures();
+    Map<String, Context> predicates = (Map<String, Context>) dataStructures[1];
+    String[] outcomes = (String[]) dataStructures[2];
+
+    Map<List<Integer>, List<String>> predicatesByPattern = new LinkedHashMap<>();
+    for (Map.Entry<String, Context> predicate : predicates.entrySet()) {
+      List<Integer> pattern = Arrays.stream(predicate.getValue().getOutcomes()).boxed().toList();
+      predicatesByPattern.computeIfAbsent(pattern, p -> new ArrayList<>()).add(predicate.getKey());
+    }
+
+    out.writeInt(outcomes.length);
+    for (String outcome : outcomes) {
+      writeString(out, outcome);
+    }
+    out.writeInt(predicatesByPattern.size());
+    for (Map.Entry<List<Integer>, List<String>> group : predicatesByPattern.entrySet()) {
+      out.writeInt(group.getValue().size());
+      out.writeInt(group.getKey().size());
+      for (int outcome : group.getKey()) {
+        out.writeInt(outcome);
+      }
+    }
+
+    ByteArrayOutputStream labels = new ByteArrayOutputStream();
+    out.writeInt(predicates.size());
+    for (List<String> group : predicatesByPattern.values()) {
+      for (String predicate : group) {
+        byte[] label = predicate.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(label.length);
+        labels.write(label);
+      }
+    }
+    out.writeInt(labels.size());
+    labels.writeTo(out);
+
+    int parameterCount = 0;
+    for (Map.Entry<List<Integer>, List<String>> group : predicatesByPattern.entrySet()) {
+      parameterCount += group.getKey().size() * group.getValue().size();
+    }
+    out.writeInt(parameterCount);
+    for (List<String> group : predicatesByPattern.values()) {
+      for (String predicate : group) {
+        for (double parameter : predicates.get(predicate).getParameters()) {
+          out.writeDouble(parameter);
+        }
+      }
+    }
+  }
+
+  private static AbstractModel readMaxentModel(ByteBuffer in) {
+    String[] outcomes = new String[in.getInt()];
+    for (int i = 0; i < outcomes.length; i++) {
+      outcomes[i] = readString(in);
+    }
+
+    // Predicates sharing an outcome pattern also share its outcomes array.
+    int[][] patterns = new int[in.getInt()][];
+    int[] patternPredicateCounts = new int[patterns.length];
+    for (int i = 0; i < patterns.length; i++) {
+      patternPredicateCounts[i] = in.getInt();
+      patterns[i] = readInts(in, in.getInt());
+    }
+
+    int[] labelLengths = readInts(in, in.getInt());
+    byte[] labels = new byte[in.getInt()];
+    in.get(labels);
+    double[] parameters = new double[in.getInt()];
+    in.asDoubleBuffer().get(parameters);
+    in.position(in.position() + parameters.length * Double.BYTES);
+
+    String[] predicates = new String[labelLengths.length];
+    Context[] contexts = new Context[labelLengths.length];
+    int predicate = 0;
+    int labelOffset = 0;
+    int parameterOffset = 0;
+    for (int i = 0; i < patterns.length; i++) {
+      int[] pattern = patterns[i];
+      for (int j = 0; j < patternPredicateCounts[i]; j++) {
+        predicates[predicate] =
+            new String(labels, labelOffset, labelLengths[predicate], StandardCharsets.UTF_8);
+        labelOffset += labelLengths[predicate];
+        contexts[predicate] =
+            new Context(
+                pattern,
+                Arrays.copyOfRange(parameters, parameterOffset, parameterOffset + pattern.length));
+        parameterOffset += pattern.length;
+        predicate++;
+      }
+    }
+    return new GISModel(contexts, predicates, outcomes);
+  }
+
+  private static int[] readInts(ByteBuffer in, int count) {
+    int[] values = new int[count];
+    in.asIntBuffer().get(values);
+    in.position(in.position() + count * Integer.BYTES);
+    return values;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+    in.position(in.position() + length);
+    return value;
+  }
+}
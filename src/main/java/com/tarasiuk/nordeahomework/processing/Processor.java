@@ -1,38 +1,54 @@
 package com.tarasiuk.nordeahomework.processing;
 
 import com.tarasiuk.nordeahomework.domain.Sentence;
-import java.io.BufferedReader;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import opennlp.tools.sentdetect.SentenceDetectorME;
-import opennlp.tools.sentdetect.SentenceModel;
-import opennlp.tools.tokenize.TokenizerME;
-import opennlp.tools.tokenize.TokenizerModel;
+import java.util.function.Supplier;
 import opennlp.tools.util.Span;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Processes an input text file, detecting sentences and tokenizing words using Apache OpenNLP.
- * Reads the input file in chunks, extracts sentences, cleans and sorts the words within each
- * sentence, and provides them in batches. Implements {@link AutoCloseable} for resource management.
+ * Processes an input text file, detecting sentences and tokenizing words using a {@link
+ * SegmentationEngine} (Apache OpenNLP by default). Reads the input file in chunks, extracts
+ * sentences, cleans and sorts the words within each sentence, and provides them in batches.
+ * Implements {@link AutoCloseable} for resource management.
+ *
+ * <p>Further settings are passed as {@link ProcessorOptions}. With a spill threshold, a sentence
+ * with more words than the threshold is sorted externally and provided as a batch of its own
+ * holding an {@link com.tarasiuk.nordeahomework.domain.ExternalSentence}, and unterminated text is
+ * tokenized before its sentence ends once it exceeds {@value #PENDING_TEXT_LIMIT} characters, so
+ * memory stays bounded however long a sentence is.
+ *
+ * <p>The {@link ResourceBudget} of the options limits the buffered text and the size of a batch.
+ * Text without a sentence end that outgrows the buffer limit fails the run (with a spill
+ * threshold, text is spilled early enough to stay within it), and a batch is provided as soon as
+ * it reaches the batch limit, so the caller's pace bounds the sentences held in memory. The peak
+ * usage of both is kept for reporting.
+ *
+ * <p>Words are sorted case-insensitively by default. With a collation locale in the options, they
+ * are sorted by the rules of its language instead, see {@link CollationOrder}.
  */
 public class Processor implements AutoCloseable {
   private static final Logger logger = LoggerFactory.getLogger(Processor.class);
 
-  private static final String OPENNLP_EN_TOKEN_MODEL_PATH =
-      "/opennlp-en-ud-ewt-tokens-1.2-2.5.0.bin";
-  private static final String OPENNLP_EN_SENTENCE_MODEL_PATH =
-      "/opennlp-en-ud-ewt-sentence-1.2-2.5.0.bin";
-
   /** Size of the buffer for reading file chunks */
-  private static final int BUFFER_SIZE = 10240;
+  static final int BUFFER_SIZE = 10240;
+
+  /**
+   * Length of buffered text without a sentence end after which its words are moved to the external
+   * sorter, if enabled. The last {@value #PENDING_TEXT_MARGIN} characters stay buffered, so the
+   * engine still sees the context of a sentence end that follows.
+   */
+  static final int PENDING_TEXT_LIMIT = 64 * 1024;
+
+  private static final int PENDING_TEXT_MARGIN = 1024;
 
   /**
    * Comparator for sorting words within a sentence. Primary sort: Case-insensitive alphabetical
@@ -43,51 +59,172 @@ public class Processor implements AutoCloseable {
   private static final Comparator<String> COMPARATOR = caseInsensitiveWithLowercaseFirst();
 
   /** Set of abbreviations for which the trailing period should be preserved during tokenization. */
-  private static final Set<String> ABBREVIATIONS_TO_PRESERVE = Set.of("Mr.", "Mrs.", "Ms.");
+  static final Set<String> ABBREVIATIONS_TO_PRESERVE = Set.of("Mr.", "Mrs.", "Ms.");
 
   /**
-   * Pattern to remove leading/trailing punctuation from tokens, or tokens consisting solely of a
-   * hyphen.
+   * Punctuation removed from the start and end of tokens. Tokens consisting solely of a hyphen are
+   * dropped as well.
    */
-  private static final Pattern PUNCTUATION_PATTERN =
-      Pattern.compile("^[.,!?:;()\"']+|[.,!?:;()\"']+$|^-$");
+  private static final String PUNCTUATION_CHARS = ".,!?:;()\"'";
 
-  private final BufferedReader reader;
+  /** {@code PUNCTUATION_CHARS}, all of which are ASCII, as a lookup table indexed by character. */
+  private static final boolean[] PUNCTUATION = createPunctuation();
+
+  /** {@code ABBREVIATIONS_TO_PRESERVE} as an array, iterated without an iterator per token. */
+  private static final String[] ABBREVIATIONS = ABBREVIATIONS_TO_PRESERVE.toArray(new String[0]);
+
+  private static final int MIN_ABBREVIATION_LENGTH =
+      ABBREVIATIONS_TO_PRESERVE.stream().mapToInt(String::length).min().orElse(0);
+  private static final int MAX_ABBREVIATION_LENGTH =
+      ABBREVIATIONS_TO_PRESERVE.stream().mapToInt(String::length).max().orElse(0);
+
+  private final Reader reader;
   private final char[] charBuffer;
   private final StringBuilder buffer = new StringBuilder();
-  private final SentenceDetectorME sdetector;
-  private final TokenizerME tokenizer;
+  private final SegmentationEngine engine;
+  private final SegmentationEngine.TokenConsumer tokenConsumer = this::acceptToken;
+  private final SentenceBatch listBatch = new SentenceBatch();
+  private final ExternalWordSorter sorter;
+  private final ResourceBudget budget;
+  private final int pendingTextLimit;
+
+  /** The order of the words of a sentence. */
+  private final Comparator<String> order;
+
+  /** Sorts a sentence on collation keys, or {@code null} to sort it with {@code order}. */
+  private final SentenceBatch.WordSorter wordSorter;
+  private SentenceBatch currentBatch;
   private boolean eofReached = false;
 
+  /** Whether the sorter holds words of a sentence whose start was removed from the buffer. */
+  private boolean continuingSentence = false;
+
+  /** A sentence sorted externally while the batch already had sentences, provided next. */
+  private ExternalWordSorter.SpilledSentence pendingSpilled;
+
+  /** The sentence provided in the last batch, deleted when the next batch is read. */
+  private ExternalWordSorter.SpilledSentence providedSpilled;
+
+  /**
+   * Whether sentence detection stopped at an external sentence or a full batch, so the buffer is
+   * processed again before the next chunk is read, as it would have been without stopping.
+   */
+  private boolean bufferInterrupted = false;
+
+  /** Length of the start of the buffer in which the engine detected no sentence. */
+  private int scannedChars = 0;
+
+  private long charsRead = 0;
+  private int peakBufferChars = 0;
+  private long peakBatchBytes = 0;
+
   /**
-   * Constructs a Processor to read and process the given input file. Loads OpenNLP sentence
-   * detection and tokenizer models from the classpath.
+   * Constructs a Processor to read and process the given input file using the default {@link
+   * OpenNlpSegmentationEngine}, which loads its models from the classpath.
    *
    * @param inputFile The path to the input text file.
    * @throws IOException If an error occurs reading the input file or loading the OpenNLP models.
    */
   public Processor(Path inputFile) throws IOException {
-    logger.debug("Initializing Processor for file: {}", inputFile);
-    try (InputStream sentModelIn =
-            Objects.requireNonNull(
-                getClass().getResourceAsStream(OPENNLP_EN_SENTENCE_MODEL_PATH),
-                "Sentence model not found on classpath at: " + OPENNLP_EN_SENTENCE_MODEL_PATH);
-        InputStream tokenModelIn =
-            Objects.requireNonNull(
-                getClass().getResourceAsStream(OPENNLP_EN_TOKEN_MODEL_PATH),
-                "Tokenizer model not found on classpath at: " + OPENNLP_EN_TOKEN_MODEL_PATH)) {
-
-      this.sdetector = new SentenceDetectorME(new SentenceModel(sentModelIn));
-      this.tokenizer = new TokenizerME(new TokenizerModel(tokenModelIn));
-      logger.debug("OpenNLP models loaded successfully.");
-
-    } catch (IOException | NullPointerException e) {
-      logger.error("Error loading OpenNLP models from classpath: {}", e.getMessage(), e);
-      throw new IOException("Failed to initialize OpenNLP Processor from classpath models", e);
-    }
-
-    this.reader = Files.newBufferedReader(inputFile, StandardCharsets.UTF_8);
+    this(inputFile, new OpenNlpSegmentationEngine());
+  }
+
+  /**
+   * Constructs a Processor to read and process the given input file using the given segmentation
+   * engine.
+   *
+   * @param inputFile The path to the input text file.
+   * @param engine The engine used to detect sentences and tokens.
+   * @throws IOException If an error occurs opening the input file.
+   */
+  public Processor(Path inputFile, SegmentationEngine engine) throws IOException {
+    this(inputFile, engine, ProcessorOptions.defaults());
+  }
+
+  /**
+   * Constructs a Processor to process the text of the given reader using the given segmentation
+   * engine, e.g. for text received over the network. The reader is closed with the Processor.
+   *
+   * @param input The reader providing the input text.
+   * @param engine The engine used to detect sentences and tokens.
+   */
+  public Processor(Reader input, SegmentationEngine engine) {
+    this(input, engine, ProcessorOptions.defaults());
+  }
+
+  /**
+   * Constructs a Processor to read and process the given input file using the given segmentation
+   * engine and settings.
+   *
+   * @param inputFile The path to the input text file.
+   * @param engine The engine used to detect sentences and tokens.
+   * @param options The processing settings.
+   * @throws IOException If an error occurs opening the input file.
+   */
+  public Processor(Path inputFile, SegmentationEngine engine, ProcessorOptions options)
+      throws IOException {
+    this(Files.newBufferedReader(inputFile, StandardCharsets.UTF_8), engine, options);
+    logger.debug("Processor reading file: {}", inputFile);
+  }
+
+  /**
+   * Constructs a Processor to process the text of the given reader using the given segmentation
+   * engine and settings. The reader is closed with the Processor.
+   *
+   * @param input The reader providing the input text.
+   * @param engine The engine used to detect sentences and tokens.
+   * @param options The processing settings.
+   */
+  public Processor(Reader input, SegmentationEngine engine, ProcessorOptions options) {
+    logger.debug("Initializing Processor with engine: {}", engine.getClass().getSimpleName());
+    this.engine = Objects.requireNonNull(engine, "engine");
+    this.reader = Objects.requireNonNull(input, "input");
     this.charBuffer = new char[BUFFER_SIZE];
+    CollationOrder collationOrder =
+        options.collation() != null ? new CollationOrder(options.collation()) : null;
+    this.order = collationOrder != null ? collationOrder : COMPARATOR;
+    this.wordSorter = collationOrder;
+    this.sorter =
+        options.spillThreshold() > 0
+            ? new ExternalWordSorter(orders(options.collation()), options.spillThreshold())
+            : null;
+    this.budget = options.budget();
+    // Spill early enough that the next chunk still fits the buffer limit.
+    this.pendingTextLimit =
+        budget.maxBufferChars() > 0
+            ? Math.min(PENDING_TEXT_LIMIT, budget.maxBufferChars() - BUFFER_SIZE)
+            : PENDING_TEXT_LIMIT;
+  }
+
+  /**
+   * Returns the largest number of characters buffered so far while looking for sentence ends.
+   *
+   * @return The peak buffer length in characters.
+   */
+  public int peakBufferChars() {
+    return peakBufferChars;
+  }
+
+  /**
+   * Returns the largest {@link SentenceBatch#estimatedBytes() estimated size} of a batch provided
+   * so far.
+   *
+   * @return The peak batch size in bytes.
+   */
+  public long peakBatchBytes() {
+    return peakBatchBytes;
+  }
+
+  /**
+   * Returns a factory of the word order for external sorting. A {@link CollationOrder} caches keys
+   * and is not thread-safe, so each call creates a new one; the default order is stateless and
+   * shared.
+   *
+   * @param collation The collation locale, or {@code null} for the default order.
+   * @return The factory of the word order.
+   */
+  private static Supplier<Comparator<String>> orders(Locale collation) {
+    return collation != null ? () -> new CollationOrder(collation) : () -> COMPARATOR;
   }
 
   /**
@@ -120,7 +257,7 @@ public class Processor implements AutoCloseable {
   }
 
   /**
-   * Closes the underlying file reader and clears the internal buffer. This method should be called
+   * Closes the underlying input reader and clears the internal buffer. This method should be called
    * when processing is complete, typically via a try-with-resources statement.
    *
    * @throws IOException If an error occurs closing the reader.
@@ -136,87 +273,309 @@ public class Processor implements AutoCloseable {
       }
     }
     buffer.setLength(0);
+    if (sorter != null) {
+      sorter.close();
+      deleteSpilled();
+    }
     logger.info("Processor closed.");
   }
 
   /**
-   * Reads the next chunk of the input file (if necessary), detects complete sentences within the
-   * available text, processes them (tokenizes, cleans, sorts words), and returns them as a list.
-   * Returns an empty list when the end of the file is reached and all buffered text has been
-   * processed.
+   * Reads and processes input until at least one sentence is found or the input is exhausted, and
+   * returns the sentences found as a list. Convenience wrapper around {@link
+   * #readNextSentences(SentenceBatch)} for callers that want {@link Sentence} records.
    *
    * @return A list of {@link Sentence} objects found in the current processing batch, or an empty
-   *     list if no complete sentences are found or EOF is reached.
+   *     list once EOF is reached and all buffered text has been processed.
    * @throws IOException If an error occurs reading from the input file.
    */
   public List<Sentence> readNextSentences() throws IOException {
+    readNextSentences(listBatch);
+    return listBatch.toSentences();
+  }
 
-    if (eofReached && buffer.isEmpty()) {
-      return Collections.emptyList();
+  /**
+   * Reads the next chunks of the input file (as necessary), detects complete sentences within the
+   * available text, processes them (tokenizes, cleans, sorts words), and stores them in the given
+   * batch, replacing its previous content. Keeps reading until at least one sentence is found or
+   * the end of the file is reached and all buffered text has been processed.
+   *
+   * <p>Callers should pass the same batch back once they are done with its content, so steady-state
+   * processing allocates little beyond the words themselves. An externally sorted sentence in the
+   * batch is deleted by the next call.
+   *
+   * @param batch The batch to fill. Cleared before use.
+   * @return {@code true} if the batch contains sentences, {@code false} once the input is
+   *     exhausted.
+   * @throws IOException If an error occurs reading from the input file or spilling words.
+   */
+  public boolean readNextSentences(SentenceBatch batch) throws IOException {
+    batch.clear();
+    if (providedSpilled != null) {
+      providedSpilled.close();
+      providedSpilled = null;
+    }
+    if (pendingSpilled != null) {
+      batch.setExternalSentence(pendingSpilled);
+      providedSpilled = pendingSpilled;
+      pendingSpilled = null;
+      return true;
+    }
+    currentBatch = batch;
+    try {
+      while (batch.isEmpty() && !(eofReached && buffer.isEmpty() && !continuingSentence)) {
+        if (!bufferInterrupted) {
+          readChunk();
+        }
+        bufferInterrupted = false;
+        processBuffer();
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      currentBatch = null;
     }
+    peakBatchBytes = Math.max(peakBatchBytes, batch.estimatedBytes());
+    return !batch.isEmpty();
+  }
 
+  /**
+   * Appends the next chunk of the input file to the buffer, or marks EOF.
+   *
+   * @throws IOException If reading fails, or if the chunk would take the buffer beyond the budget.
+   */
+  private void readChunk() throws IOException {
     if (!eofReached) {
       int bytesRead = reader.read(charBuffer);
       if (bytesRead == -1) {
         eofReached = true;
       } else {
+        if (budget.maxBufferChars() > 0 && buffer.length() + bytesRead > budget.maxBufferChars()) {
+          throw new IOException(
+              String.format(
+                  "Text at input offset %d has no sentence end within the buffer limit of %d"
+                      + " characters.",
+                  charsRead - buffer.length(),
+                  budget.maxBufferChars()));
+        }
         buffer.append(charBuffer, 0, bytesRead);
+        charsRead += bytesRead;
+        peakBufferChars = Math.max(peakBufferChars, buffer.length());
       }
     }
+  }
 
-    List<Sentence> sentencesFound = new ArrayList<>();
-    String currentText = buffer.toString();
-    Span[] sentenceSpans = sdetector.sentPosDetect(currentText);
+  /**
+   * Detects sentences in the buffer, adds them to the current batch and removes them from the
+   * buffer. At EOF, any remaining text is treated as the final sentence. Text left in the buffer is
+   * not rescanned from its start once the next chunk is appended, so a long sentence is scanned in
+   * linear time.
+   */
+  private void processBuffer() throws IOException {
+    Span[] sentenceSpans = engine.sentPosDetect(buffer, scannedChars);
     int lastProcessedEnd = 0;
 
     for (Span span : sentenceSpans) {
-      String sentence = span.getCoveredText(currentText).toString().trim();
-      if (!sentence.isEmpty()) {
-        List<String> words = extractWords(sentence);
-        if (!words.isEmpty()) {
-          sentencesFound.add(new Sentence(words));
-        }
-      }
+      addSentence(span.getStart(), span.getEnd());
       lastProcessedEnd = span.getEnd();
+      if (pendingSpilled != null || currentBatch.externalSentence() != null) {
+        // Nothing can be added to the batch after an external sentence.
+        bufferInterrupted = true;
+        break;
+      }
+      if (budget.maxBatchBytes() > 0
+          && currentBatch.estimatedBytes() >= budget.maxBatchBytes()) {
+        // Provide the full batch; the rest of the buffer is processed for the next one.
+        bufferInterrupted = true;
+        break;
+      }
     }
 
     if (lastProcessedEnd > 0) {
       buffer.delete(0, lastProcessedEnd);
-    } else if (eofReached && !buffer.isEmpty()) {
-      String remainingText = buffer.toString().trim();
-      if (!remainingText.isEmpty()) {
-        List<String> words = extractWords(remainingText);
-        if (!words.isEmpty()) {
-          sentencesFound.add(new Sentence(words));
-        }
-      }
+    } else if (eofReached && (!buffer.isEmpty() || continuingSentence)) {
+      addSentence(0, buffer.length());
       buffer.setLength(0);
+    } else if (sorter != null && buffer.length() > pendingTextLimit) {
+      spillPendingText();
     }
+    // Spans left for the next batch are still in the buffer, which is then scanned again.
+    scannedChars = bufferInterrupted ? 0 : buffer.length();
+  }
 
-    return sentencesFound;
+  /**
+   * Moves the words of the unterminated sentence at the start of the buffer to the sorter, up to
+   * the last whitespace before the trailing margin, and removes their text from the buffer.
+   */
+  private void spillPendingText() {
+    int end = buffer.length() - PENDING_TEXT_MARGIN;
+    while (end > 0 && buffer.charAt(end - 1) > ' ') {
+      end--;
+    }
+    if (end == 0) {
+      return; // A single token longer than the limit; keep buffering until it ends.
+    }
+    int start = 0;
+    while (start < end && buffer.charAt(start) <= ' ') {
+      start++;
+    }
+    if (start < end) {
+      engine.tokenizePos(buffer, start, end, tokenConsumer);
+    }
+    continuingSentence = true;
+    buffer.delete(0, end);
   }
 
   /**
-   * Extracts, cleans, and sorts words from a given sentence string. Uses the OpenNLP tokenizer,
-   * applies punctuation removal (preserving specific abbreviations), filters empty tokens, and
-   * sorts the results using the defined {@code COMPARATOR}.
+   * Extracts the words of the buffered sentence between the given offsets and adds the sentence to
+   * the current batch if it has any. Uses the engine's tokenizer, and sorts the words in the
+   * configured order. Surrounding whitespace is skipped by adjusting the offsets rather than
+   * copying the sentence. With a spill threshold, the words are collected by the sorter, which may
+   * already hold the words of the sentence's earlier text.
    *
-   * @param sentence The sentence string to process.
-   * @return A sorted list of cleaned words extracted from the sentence.
+   * @param start The start offset of the sentence in the buffer (inclusive).
+   * @param end The end offset of the sentence in the buffer (exclusive).
+   * @throws IOException If spilling the words of the sentence fails.
    */
-  private List<String> extractWords(String sentence) {
-    String[] tokens = tokenizer.tokenize(sentence);
-    return Arrays.stream(tokens)
-        .map(
-            token -> {
-              if (ABBREVIATIONS_TO_PRESERVE.contains(token)) {
-                return token;
-              } else {
-                return PUNCTUATION_PATTERN.matcher(token).replaceAll("");
-              }
-            })
-        .filter(token -> !token.isEmpty())
-        .sorted(COMPARATOR)
-        .collect(Collectors.toList());
+  private void addSentence(int start, int end) throws IOException {
+    while (start < end && buffer.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && buffer.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    if (start < end) {
+      engine.tokenizePos(buffer, start, end, tokenConsumer);
+    }
+    if (sorter == null) {
+      endSortedSentence();
+    } else {
+      completeSpillableSentence();
+    }
+  }
+
+  /**
+   * Ends the sentence collected by the sorter: sorted in memory into the current batch if it did
+   * not spill, otherwise as an external sentence forming the batch, or the next batch if the
+   * current one already has sentences.
+   */
+  private void completeSpillableSentence() throws IOException {
+    continuingSentence = false;
+    if (!sorter.hasSpilled()) {
+      sorter.moveTo(currentBatch);
+      endSortedSentence();
+      return;
+    }
+    ExternalWordSorter.SpilledSentence sentence = sorter.finish();
+    if (currentBatch.isEmpty()) {
+      currentBatch.setExternalSentence(sentence);
+      providedSpilled = sentence;
+    } else {
+      pendingSpilled = sentence;
+    }
+  }
+
+  /** Ends the sentence being built in the current batch, sorting its words in {@code order}. */
+  private void endSortedSentence() {
+    if (wordSorter != null) {
+      currentBatch.endSentence(wordSorter);
+    } else {
+      currentBatch.endSentence(order);
+    }
+  }
+
+  /** Deletes the externally sorted sentences not yet provided or still provided. */
+  private void deleteSpilled() {
+    if (pendingSpilled != null) {
+      pendingSpilled.close();
+      pendingSpilled = null;
+    }
+    if (providedSpilled != null) {
+      providedSpilled.close();
+      providedSpilled = null;
+    }
+  }
+
+  /**
+   * Cleans the buffered token between the given offsets, removing punctuation (preserving specific
+   * abbreviations) by adjusting the offsets, and adds it to the current sentence unless nothing is
+   * left of it. A {@link String} is only created for tokens that survive cleaning.
+   *
+   * @param start The start offset of the token in the buffer (inclusive).
+   * @param end The end offset of the token in the buffer (exclusive).
+   */
+  private void acceptToken(int start, int end) {
+    if (!isAbbreviationToPreserve(start, end)) {
+      if (end - start == 1 && buffer.charAt(start) == '-') {
+        return;
+      }
+      while (start < end && isPunctuation(buffer.charAt(start))) {
+        start++;
+      }
+      while (end > start && isPunctuation(buffer.charAt(end - 1))) {
+        end--;
+      }
+    }
+    if (start >= end) {
+      return;
+    }
+    if (sorter == null) {
+      currentBatch.addWord(buffer.substring(start, end));
+    } else {
+      addSpillableWord(buffer.substring(start, end));
+    }
+  }
+
+  /** Adds a word to the sorter, kept apart from {@link #acceptToken} as the rarely used path. */
+  private void addSpillableWord(String word) {
+    try {
+      sorter.add(word);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Checks whether the buffered token is one of {@code ABBREVIATIONS_TO_PRESERVE}. Tokens of other
+   * lengths or without a trailing period, almost all of them, are rejected without comparing text.
+   */
+  private boolean isAbbreviationToPreserve(int start, int end) {
+    int length = end - start;
+    if (length < MIN_ABBREVIATION_LENGTH
+        || length > MAX_ABBREVIATION_LENGTH
+        || buffer.charAt(end - 1) != '.') {
+      return false;
+    }
+    for (String abbreviation : ABBREVIATIONS) {
+      if (regionEquals(abbreviation, start, end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Compares the buffered text between the given offsets to a string without copying it. */
+  private boolean regionEquals(String expected, int start, int end) {
+    if (expected.length() != end - start) {
+      return false;
+    }
+    for (int i = 0; i < expected.length(); i++) {
+      if (buffer.charAt(start + i) != expected.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isPunctuation(char c) {
+    return c < PUNCTUATION.length && PUNCTUATION[c];
+  }
+
+  private static boolean[] createPunctuation() {
+    boolean[] punctuation = new boolean[128];
+    for (int i = 0; i < PUNCTUATION_CHARS.length(); i++) {
+      punctuation[PUNCTUATION_CHARS.charAt(i)] = true;
+    }
+    return punctuation;
   }
 }
@@ -0,0 +1,68 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Settings of a {@link Processor} besides its input and segmentation engine. Start from {@link
+ * #defaults()} and change single settings with the {@code with} methods.
+ *
+ * @param spillThreshold The maximum number of words of a sentence sorted in memory; longer
+ *     sentences are sorted externally and provided as batches of their own. {@code 0} sorts all
+ *     sentences in memory.
+ * @param budget The limits on buffered text and batch size; the thread limit does not apply.
+ * @param collation The locale whose collation rules order the words of a sentence, see {@link
+ *     CollationOrder}, or {@code null} for the default case-insensitive order.
+ */
+public record ProcessorOptions(int spillThreshold, ResourceBudget budget, Locale collation) {
+
+  public ProcessorOptions {
+    if (spillThreshold < 0) {
+      throw new IllegalArgumentException("Spill threshold must not be negative: " + spillThreshold);
+    }
+    Objects.requireNonNull(budget, "budget");
+  }
+
+  /**
+   * Returns the settings used when none are given: all sentences sorted in memory, without
+   * resource limits, in the default word order.
+   *
+   * @return The default settings.
+   */
+  public static ProcessorOptions defaults() {
+    return new ProcessorOptions(0, ResourceBudget.unlimited(), null);
+  }
+
+  /**
+   * Returns a copy of these settings with the given spill threshold.
+   *
+   * @param spillThreshold The maximum number of words of a sentence sorted in memory, or {@code 0}
+   *     to sort all sentences in memory.
+   * @return The changed settings.
+   * @throws IllegalArgumentException If the threshold is negative.
+   */
+  public ProcessorOptions withSpillThreshold(int spillThreshold) {
+    return new ProcessorOptions(spillThreshold, budget, collation);
+  }
+
+  /**
+   * Returns a copy of these settings with the given resource budget.
+   *
+   * @param budget The limits on buffered text and batch size.
+   * @return The changed settings.
+   */
+  public ProcessorOptions withBudget(ResourceBudget budget) {
+    return new ProcessorOptions(spillThreshold, budget, collation);
+  }
+
+  /**
+   * Returns a copy of these settings with the given collation locale.
+   *
+   * @param collation The locale whose collation rules order the words, or {@code null} for the
+   *     default case-insensitive order.
+   * @return The changed settings.
+   */
+  public ProcessorOptions withCollation(Locale collation) {
+    return new ProcessorOptions(spillThreshold, budget, collation);
+  }
+}
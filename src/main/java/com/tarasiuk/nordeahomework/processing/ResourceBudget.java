@@ -0,0 +1,41 @@
+package com.tarasiuk.nordeahomework.processing;
+
+/**
+ * Limits on the memory and threads a single processing run may use, so that many runs can share a
+ * host without one pathological input taking all of it. A limit of {@code 0} means unlimited.
+ *
+ * @param maxBufferChars The maximum number of characters of input text buffered by the {@link
+ *     Processor} while looking for the end of a sentence. Input whose sentence does not end within
+ *     this many characters fails the run, unless its words are spilled to disk (see {@link
+ *     ProcessorOptions#spillThreshold()}). At least {@value #MIN_BUFFER_CHARS} if set.
+ * @param maxBatchBytes The approximate maximum heap size of the words of one batch, see {@link
+ *     com.tarasiuk.nordeahomework.domain.SentenceBatch#estimatedBytes()}. A batch is handed on as
+ *     soon as it reaches this size, and the Processor reads no further until it is asked for the
+ *     next one. A single sentence larger than this forms a batch of its own.
+ * @param maxThreads The maximum number of threads writing output concurrently, including the
+ *     calling thread and the threads closing finished shards. Sinks beyond it are written by
+ *     threads that already wrote another one.
+ */
+public record ResourceBudget(int maxBufferChars, long maxBatchBytes, int maxThreads) {
+  /** The smallest buffer limit: two chunks of input, so that one can always be read. */
+  public static final int MIN_BUFFER_CHARS = 2 * Processor.BUFFER_SIZE;
+
+  public ResourceBudget {
+    if (maxBufferChars < 0 || maxBatchBytes < 0 || maxThreads < 0) {
+      throw new IllegalArgumentException("Resource limits must not be negative.");
+    }
+    if (maxBufferChars > 0 && maxBufferChars < MIN_BUFFER_CHARS) {
+      throw new IllegalArgumentException(
+          "Buffer limit must be at least " + MIN_BUFFER_CHARS + " characters: " + maxBufferChars);
+    }
+  }
+
+  /**
+   * Returns a budget without any limits.
+   *
+   * @return The unlimited budget.
+   */
+  public static ResourceBudget unlimited() {
+    return new ResourceBudget(0, 0, 0);
+  }
+}
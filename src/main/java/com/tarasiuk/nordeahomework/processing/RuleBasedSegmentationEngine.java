@@ -0,0 +1,202 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import opennlp.tools.util.Span;
+
+/**
+ * Fast, dictionary-free {@link SegmentationEngine}. Sentences end at terminal punctuation followed
+ * by whitespace, unless the preceding word is a known abbreviation or the next sentence would start
+ * with a lowercase letter. Tokens are maximal runs of characters that are neither whitespace nor
+ * separating punctuation. Trades some accuracy on unusual text for a large throughput gain over
+ * {@link OpenNlpSegmentationEngine}. Instances are stateless and thread-safe.
+ *
+ * <p>A sentence is only reported once the first character of the following sentence is visible, so
+ * text at the end of the input is left for the caller to flush. Text that grows without a sentence
+ * end is not rescanned as a whole: {@link #sentPosDetect(CharSequence, int)} resumes at the last
+ * terminal whose boundary was undecided.
+ */
+public class RuleBasedSegmentationEngine implements SegmentationEngine {
+
+  /** Abbreviations whose trailing period does not end a sentence. */
+  static final Set<String> ABBREVIATIONS = createAbbreviations();
+
+  /** Characters that end a sentence. */
+  private static final String TERMINALS = ".!?…。！？";
+
+  /** Full-width terminals that end a sentence even without following whitespace. */
+  private static final String CJK_TERMINALS = "。！？";
+
+  /** Characters that may follow a terminal and still belong to the same sentence. */
+  private static final String CLOSERS = "\"')]}”’»";
+
+  /** Characters that separate tokens in addition to whitespace. */
+  private static final String SEPARATORS = ",;:!?()[]{}\"“”«»…，、；：！？（）。";
+
+  private static final Span[] NO_SPANS = new Span[0];
+
+  /** ASCII characters that separate tokens: whitespace and the ASCII {@code SEPARATORS}. */
+  private static final boolean[] ASCII_SEPARATORS = createAsciiSeparators();
+
+  private static Set<String> createAbbreviations() {
+    Set<String> abbreviations = new HashSet<>(Processor.ABBREVIATIONS_TO_PRESERVE);
+    abbreviations.addAll(
+        Set.of(
+            "Dr.", "Prof.", "Sr.", "Jr.", "St.", "Mt.", "Gen.", "Col.", "Capt.", "Lt.", "Sgt.",
+            "Rev.", "Hon.", "Inc.", "Ltd.", "Co.", "Corp.", "No.", "vs.", "e.g.", "i.e.", "cf.",
+            "approx.", "Jan.", "Feb.", "Mar.", "Apr.", "Jun.", "Jul.", "Aug.", "Sep.", "Sept.",
+            "Oct.", "Nov.", "Dec."));
+    return Set.copyOf(abbreviations);
+  }
+
+  private static boolean[] createAsciiSeparators() {
+    boolean[] separators = new boolean[128];
+    for (char c = 0; c < separators.length; c++) {
+      separators[c] = isWhitespace(c) || SEPARATORS.indexOf(c) >= 0;
+    }
+    return separators;
+  }
+
+  /**
+   * Checks for whitespace as {@link Character#isWhitespace(char)} or {@link
+   * Character#isSpaceChar(char)} do, answering for ASCII without the Unicode tables.
+   */
+  private static boolean isWhitespace(char c) {
+    if (c < 128) {
+      return c == ' ' || (c >= '\t' && c <= '\r') || (c >= '\u001C' && c <= '\u001F');
+    }
+    return Character.isWhitespace(c) || Character.isSpaceChar(c);
+  }
+
+  private static boolean isTerminal(char c) {
+    if (c < 128) {
+      return c == '.' || c == '!' || c == '?';
+    }
+    return TERMINALS.indexOf(c) >= 0;
+  }
+
+  /** Checks whether a character may belong to a terminal run whose boundary is still undecided. */
+  private static boolean isUndecided(char c) {
+    return isWhitespace(c) || isTerminal(c) || CLOSERS.indexOf(c) >= 0;
+  }
+
+  private static int skipWhitespace(CharSequence text, int from) {
+    int i = from;
+    while (i < text.length() && isWhitespace(text.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  @Override
+  public Span[] sentPosDetect(CharSequence text) {
+    return sentPosDetect(text, 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Without a boundary in the prefix, every terminal in it was decided against once the
+   * character after it was visible, except for the terminals, closers and whitespace at its end.
+   * Scanning resumes at the start of that trailing run.
+   */
+  @Override
+  public Span[] sentPosDetect(CharSequence text, int scanned) {
+    int length = text.length();
+    List<Span> spans = null;
+    int start = skipWhitespace(text, 0);
+    int i = Math.max(start, Math.min(scanned, length));
+    while (i > start && isUndecided(text.charAt(i - 1))) {
+      i--;
+    }
+
+    while (i < length) {
+      if (!isTerminal(text.charAt(i))) {
+        i++;
+        continue;
+      }
+
+      int end = i + 1;
+      while (end < length && isTerminal(text.charAt(end))) {
+        end++;
+      }
+      while (end < length && CLOSERS.indexOf(text.charAt(end)) >= 0) {
+        end++;
+      }
+
+      if (isBoundary(text, start, i, end)) {
+        if (spans == null) {
+          spans = new ArrayList<>();
+        }
+        spans.add(new Span(start, end));
+        start = skipWhitespace(text, end);
+        i = start;
+      } else {
+        i = end;
+      }
+    }
+
+    return spans == null ? NO_SPANS : spans.toArray(NO_SPANS);
+  }
+
+  /**
+   * Decides whether the terminal run {@code [terminal, end)} closes the sentence that started at
+   * {@code sentenceStart}.
+   */
+  private boolean isBoundary(CharSequence text, int sentenceStart, int terminal, int end) {
+    int next = skipWhitespace(text, end);
+    if (next >= text.length()) {
+      return false;
+    }
+    if (next == end) {
+      return CJK_TERMINALS.indexOf(text.charAt(end - 1)) >= 0;
+    }
+    boolean singlePeriod =
+        text.charAt(terminal) == '.' && !isTerminal(text.charAt(terminal + 1));
+    if (singlePeriod) {
+      return !Character.isLowerCase(text.charAt(next))
+          && !isAbbreviation(text, sentenceStart, terminal);
+    }
+    return true;
+  }
+
+  /** Checks whether the word ending with the period at {@code period} is an abbreviation. */
+  private boolean isAbbreviation(CharSequence text, int sentenceStart, int period) {
+    int wordStart = period;
+    while (wordStart > sentenceStart && !isWhitespace(text.charAt(wordStart - 1))) {
+      wordStart--;
+    }
+    int wordLength = period + 1 - wordStart;
+    if (wordLength == 2 && Character.isUpperCase(text.charAt(wordStart))) {
+      return true; // single-letter initial, e.g. "J."
+    }
+    return wordLength > 1
+        && ABBREVIATIONS.contains(text.subSequence(wordStart, period + 1).toString());
+  }
+
+  @Override
+  public void tokenizePos(CharSequence text, int start, int end, TokenConsumer consumer) {
+    int i = start;
+    while (i < end) {
+      while (i < end && isSeparator(text.charAt(i))) {
+        i++;
+      }
+      int tokenStart = i;
+      while (i < end && !isSeparator(text.charAt(i))) {
+        i++;
+      }
+      if (i > tokenStart) {
+        consumer.accept(tokenStart, i);
+      }
+    }
+  }
+
+  private static boolean isSeparator(char c) {
+    if (c < 128) {
+      return ASCII_SEPARATORS[c];
+    }
+    return isWhitespace(c) || SEPARATORS.indexOf(c) >= 0;
+  }
+}
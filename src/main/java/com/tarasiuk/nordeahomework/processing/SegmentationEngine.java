@@ -0,0 +1,57 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import opennlp.tools.util.Span;
+
+/**
+ * Splits text into sentences and sentences into tokens. Implementations only report boundaries as
+ * offsets into the text; cleaning and sorting of the tokens is left to the {@link Processor}.
+ */
+public interface SegmentationEngine {
+
+  /**
+   * Detects sentence boundaries in the given text.
+   *
+   * @param text The text to split into sentences.
+   * @return The spans of the detected sentences, in order, relative to the start of {@code text}.
+   */
+  Span[] sentPosDetect(CharSequence text);
+
+  /**
+   * Detects sentence boundaries in text that starts with a prefix already passed to this engine
+   * without any sentence being detected in it, such as buffered text to which the next chunk of the
+   * input was appended. Returns the same spans as {@link #sentPosDetect(CharSequence)}; engines
+   * that can resume scanning near the end of the prefix override this to avoid rescanning it.
+   *
+   * @param text The text to split into sentences.
+   * @param scanned The length of the prefix of {@code text} in which no sentence was detected.
+   * @return The spans of the detected sentences, in order, relative to the start of {@code text}.
+   */
+  default Span[] sentPosDetect(CharSequence text, int scanned) {
+    return sentPosDetect(text);
+  }
+
+  /**
+   * Detects token boundaries in the sentence between the given offsets of the text. Tokens are
+   * reported as offsets into {@code text}, so callers can inspect and trim them before deciding
+   * whether to copy them out.
+   *
+   * @param text The text containing the sentence.
+   * @param start The start offset of the sentence in {@code text} (inclusive).
+   * @param end The end offset of the sentence in {@code text} (exclusive).
+   * @param consumer Receives the offsets of each detected token, in order.
+   */
+  void tokenizePos(CharSequence text, int start, int end, TokenConsumer consumer);
+
+  /** Receives the offsets of detected tokens. */
+  @FunctionalInterface
+  interface TokenConsumer {
+
+    /**
+     * Accepts one token.
+     *
+     * @param start The start offset of the token (inclusive).
+     * @param end The end offset of the token (exclusive).
+     */
+    void accept(int start, int end);
+  }
+}
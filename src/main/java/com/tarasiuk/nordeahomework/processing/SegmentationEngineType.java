@@ -0,0 +1,56 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/** The available {@link SegmentationEngine} implementations, selectable by name. */
+public enum SegmentationEngineType {
+  /** Statistical OpenNLP models; most accurate, slowest. See {@link OpenNlpSegmentationEngine}. */
+  OPENNLP,
+  /** Punctuation and abbreviation rules; much faster. See {@link RuleBasedSegmentationEngine}. */
+  RULE_BASED;
+
+  /**
+   * Resolves an engine type from its command line name, e.g. {@code opennlp} or {@code
+   * rule-based}.
+   *
+   * @param name The case-insensitive engine name.
+   * @return The matching engine type.
+   * @throws IllegalArgumentException If no engine has the given name.
+   */
+  public static SegmentationEngineType fromName(String name) {
+    try {
+      return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Unknown segmentation engine: " + name + " (expected opennlp or rule-based)", e);
+    }
+  }
+
+  /**
+   * Creates a new engine instance of this type.
+   *
+   * @return The new engine.
+   * @throws IOException If the engine's resources cannot be loaded.
+   */
+  public SegmentationEngine create() throws IOException {
+    return create(null);
+  }
+
+  /**
+   * Creates a new engine instance of this type, loading its models from a file of pre-parsed models
+   * where the engine supports it. See {@link OpenNlpSegmentationEngine#OpenNlpSegmentationEngine(
+   * Path)}.
+   *
+   * @param preparedModels The prepared models file, or {@code null} to load models as usual.
+   * @return The new engine.
+   * @throws IOException If the engine's resources cannot be loaded.
+   */
+  public SegmentationEngine create(Path preparedModels) throws IOException {
+    return switch (this) {
+      case OPENNLP -> new OpenNlpSegmentationEngine(preparedModels);
+      case RULE_BASED -> new RuleBasedSegmentationEngine();
+    };
+  }
+}
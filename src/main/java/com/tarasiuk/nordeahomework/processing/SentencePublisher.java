@@ -0,0 +1,203 @@
+package com.tarasiuk.nordeahomework.processing;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the sentences of a {@link Processor} as a {@link Flow.Publisher}. Input is read only
+ * when the subscriber has outstanding demand, so a slow subscriber throttles reading instead of
+ * letting sentences pile up in memory: at most the sentences of one {@link
+ * Processor#readNextSentences()} call are held beyond what was requested.
+ *
+ * <p>The publisher accepts a single subscriber, since the input can only be read once. Signals are
+ * delivered on a thread of the given executor, one at a time, and the processor is closed once the
+ * stream completes, fails or is cancelled.
+ */
+public class SentencePublisher implements Flow.Publisher<Sentence> {
+  private static final Logger logger = LoggerFactory.getLogger(SentencePublisher.class);
+
+  private final Processor processor;
+  private final Executor executor;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * Constructs a SentencePublisher delivering signals on a new virtual thread per burst of demand,
+   * which suits subscribers that block, e.g. on writing output.
+   *
+   * @param processor The processor providing the sentences. Owned by the publisher from now on.
+   */
+  public SentencePublisher(Processor processor) {
+    this(processor, task -> Thread.ofVirtual().name("sentence-publisher").start(task));
+  }
+
+  /**
+   * Constructs a SentencePublisher delivering signals on the given executor.
+   *
+   * @param processor The processor providing the sentences. Owned by the publisher from now on.
+   * @param executor The executor running input reading and subscriber signals.
+   */
+  public SentencePublisher(Processor processor, Executor executor) {
+    this.processor = Objects.requireNonNull(processor, "processor");
+    this.executor = Objects.requireNonNull(executor, "executor");
+  }
+
+  /**
+   * Subscribes to the sentences. A second subscriber is rejected with an {@link
+   * IllegalStateException} passed to its {@code onError}.
+   *
+   * @param subscriber The subscriber receiving the sentences.
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super Sentence> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+      subscriber.onError(new IllegalStateException("The sentences can only be subscribed once."));
+      return;
+    }
+    subscriber.onSubscribe(new SentenceSubscription(subscriber));
+  }
+
+  /**
+   * Delivers sentences as they are requested. {@link #request} and {@link #cancel} only record the
+   * change and schedule {@link #drain}, which runs on one executor thread at a time and is the only
+   * place reading input and signalling the subscriber.
+   */
+  private final class SentenceSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super Sentence> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private volatile IllegalArgumentException invalidRequest;
+
+    // Only accessed by the draining thread.
+    private List<Sentence> sentences = List.of();
+    private int nextSentence = 0;
+    private boolean done = false;
+
+    SentenceSubscription(Flow.Subscriber<? super Sentence> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("Requested " + n + " sentences.");
+      } else {
+        // Saturates at Long.MAX_VALUE, which stands for unbounded demand.
+        demand.getAndAccumulate(
+            n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+      }
+      scheduleDrain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (pendingDrains.getAndIncrement() == 0) {
+        try {
+          executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          logger.warn("Cannot deliver sentences: {}", e.getMessage(), e);
+          finish();
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    private void drain() {
+      int drains = pendingDrains.get();
+      do {
+        if (!done) {
+          deliver();
+        }
+        drains = pendingDrains.addAndGet(-drains);
+      } while (drains != 0);
+    }
+
+    /** Emits sentences while there is demand, reading more input only when all were emitted. */
+    private void deliver() {
+      try {
+        while (true) {
+          if (cancelled) {
+            logger.debug("Sentence subscription cancelled.");
+            finish();
+            return;
+          }
+          if (invalidRequest != null) {
+            finish();
+            subscriber.onError(invalidRequest);
+            return;
+          }
+          if (demand.get() == 0) {
+            return;
+          }
+          if (nextSentence == sentences.size()) {
+            sentences = processor.readNextSentences();
+            nextSentence = 0;
+            if (sentences.isEmpty()) {
+              finish();
+              subscriber.onComplete();
+              return;
+            }
+          }
+          if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          try {
+            subscriber.onNext(sentences.get(nextSentence++));
+          } catch (RuntimeException e) {
+            // A failing subscriber is treated as having cancelled the subscription.
+            logger.error("Sentence subscriber failed: {}", e.getMessage(), e);
+            finish();
+            return;
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        if (done) {
+          // Thrown by the subscriber's terminal signal; there is nobody left to tell.
+          logger.error("Sentence subscriber failed: {}", e.getMessage(), e);
+          return;
+        }
+        logger.error("Error reading sentences: {}", e.getMessage(), e);
+        finish();
+        subscriber.onError(e);
+      }
+    }
+
+    private void finish() {
+      done = true;
+      sentences = List.of();
+      try {
+        processor.close();
+      } catch (IOException e) {
+        logger.warn("Error closing processor: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  /** The subscription handed to rejected subscribers. */
+  private enum CancelledSubscription implements Flow.Subscription {
+    INSTANCE;
+
+    @Override
+    public void request(long n) {}
+
+    @Override
+    public void cancel() {}
+  }
+}
@@ -0,0 +1,89 @@
+package com.tarasiuk.nordeahomework.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames everything written to it as one chunk per write, a line with the byte length followed by
+ * the bytes, as described in {@link SentenceServer}. Closing it only stops further writes: the
+ * response is ended by {@link #end()} with the empty end chunk, or by {@link #fail(String)} with
+ * the error trailer, and the connection stays open for the next request either way.
+ */
+final class ChunkedChannel implements WritableByteChannel {
+  private static final byte[] END_CHUNK = "0\n".getBytes(StandardCharsets.US_ASCII);
+  private static final String ERROR_TRAILER = "-1\n";
+
+  private final GatheringByteChannel connection;
+  private final ByteBuffer header = ByteBuffer.allocate(16);
+  private boolean open = true;
+  private boolean ended = false;
+
+  ChunkedChannel(GatheringByteChannel connection) {
+    this.connection = connection;
+  }
+
+  @Override
+  public int write(ByteBuffer source) throws IOException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+    int length = source.remaining();
+    if (length == 0) {
+      return 0;
+    }
+    header.clear().put((length + "\n").getBytes(StandardCharsets.US_ASCII)).flip();
+    ByteBuffer[] chunk = {header, source};
+    while (source.hasRemaining()) {
+      connection.write(chunk);
+    }
+    return length;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+
+  /**
+   * Ends the response with the empty end chunk. Does nothing if the response has already ended.
+   *
+   * @throws IOException If an I/O error occurs writing to the connection.
+   */
+  void end() throws IOException {
+    if (!ended) {
+      writeTrailer(ByteBuffer.wrap(END_CHUNK));
+    }
+  }
+
+  /**
+   * Ends the response with the error trailer, a chunk length of {@code -1} followed by a line with
+   * the error message, after whatever output has been sent. Does nothing if the response has
+   * already ended.
+   *
+   * @param message The error message; line breaks are replaced with spaces.
+   * @throws IOException If an I/O error occurs writing to the connection.
+   */
+  void fail(String message) throws IOException {
+    if (!ended) {
+      String trailer = ERROR_TRAILER + message.replace('\r', ' ').replace('\n', ' ') + "\n";
+      writeTrailer(ByteBuffer.wrap(trailer.getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  private void writeTrailer(ByteBuffer trailer) throws IOException {
+    open = false;
+    ended = true;
+    while (trailer.hasRemaining()) {
+      connection.write(trailer);
+    }
+  }
+}
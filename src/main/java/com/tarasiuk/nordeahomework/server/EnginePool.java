@@ -0,0 +1,43 @@
+package com.tarasiuk.nordeahomework.server;
+
+import com.tarasiuk.nordeahomework.processing.SegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed set of warm {@link SegmentationEngine}s shared by concurrent requests. Engines are not
+ * thread-safe, so each request borrows one for its duration; requests beyond the pool size wait,
+ * which also caps the CPU-bound work at the pool size however many virtual threads are waiting.
+ */
+final class EnginePool {
+  private final BlockingQueue<SegmentationEngine> idle;
+
+  /** Creates the pool, loading all engines up front so no request pays for it. */
+  EnginePool(SegmentationEngineType type, int size) throws IOException {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Engine pool size must be positive: " + size);
+    }
+    this.idle = new ArrayBlockingQueue<>(size);
+    for (int i = 0; i < size; i++) {
+      idle.add(type.create());
+    }
+  }
+
+  /** Takes an engine, waiting until one is free. */
+  SegmentationEngine borrow() throws InterruptedIOException {
+    try {
+      return idle.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for a segmentation engine.");
+    }
+  }
+
+  /** Returns an engine taken with {@link #borrow()}. */
+  void release(SegmentationEngine engine) {
+    idle.add(engine);
+  }
+}
@@ -0,0 +1,113 @@
+package com.tarasiuk.nordeahomework.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tarasiuk.nordeahomework.output.MemoryChannel;
+import com.tarasiuk.nordeahomework.output.SinkType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves {@link SentenceServer} requests over HTTP using the JDK's built-in server, handling each
+ * exchange on a virtual thread. The output is rendered in memory before the response starts, so a
+ * failed request is answered with status 500 instead of a truncated document.
+ *
+ * <p>The JDK server writes headers and body separately; unless the JVM runs with {@code
+ * -Dsun.net.httpserver.nodelay=true}, as {@code Main.serve} sets, Nagle's algorithm then delays
+ * each response until the client's delayed ACK, about 40 ms.
+ */
+final class HttpSentenceServer implements SentenceServer {
+  private static final Logger logger = LoggerFactory.getLogger(HttpSentenceServer.class);
+  private static final int STOP_DELAY_SECONDS = 0;
+
+  private final SentenceService service;
+  private final HttpServer server;
+  private final ExecutorService exchanges = Executors.newVirtualThreadPerTaskExecutor();
+  private final ListenAddress address;
+
+  HttpSentenceServer(ListenAddress address, SentenceService service) throws IOException {
+    this.service = service;
+    this.server = HttpServer.create((InetSocketAddress) address.address(), 0);
+    server.setExecutor(exchanges);
+    server.createContext("/", this::handle);
+    server.start();
+    this.address = new ListenAddress(address.protocol(), server.getAddress());
+    logger.info("SentenceServer listening on {}", this.address);
+  }
+
+  @Override
+  public ListenAddress address() {
+    return address;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        sendError(exchange, 405, "Only POST is supported.");
+        return;
+      }
+      SinkType format =
+          switch (exchange.getRequestURI().getPath()) {
+            case "/xml" -> SinkType.XML;
+            case "/csv" -> SinkType.CSV;
+            default -> null;
+          };
+      if (format == null) {
+        sendError(exchange, 404, "Use /xml or /csv.");
+        return;
+      }
+      byte[] text;
+      try (InputStream body = exchange.getRequestBody()) {
+        text = body.readNBytes(MAX_REQUEST_BYTES + 1);
+      }
+      if (text.length > MAX_REQUEST_BYTES) {
+        sendError(exchange, 413, "Request body too large.");
+        return;
+      }
+
+      MemoryChannel output = new MemoryChannel();
+      try {
+        service.process(new String(text, StandardCharsets.UTF_8), format, output);
+      } catch (IOException | XMLStreamException | RuntimeException e) {
+        logger.warn("Request failed: {}", e.getMessage(), e);
+        sendError(exchange, 500, "Processing failed: " + e.getMessage());
+        return;
+      }
+      exchange
+          .getResponseHeaders()
+          .set(
+              "Content-Type",
+              (format == SinkType.XML ? "application/xml" : "text/csv") + "; charset=UTF-8");
+      exchange.sendResponseHeaders(200, output.size() > 0 ? output.size() : -1);
+      try (OutputStream body = exchange.getResponseBody()) {
+        Channels.newInputStream(output.reader()).transferTo(body);
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Request failed: {}", e.getMessage(), e);
+    }
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+    exchange.sendResponseHeaders(status, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  @Override
+  public void close() {
+    server.stop(STOP_DELAY_SECONDS);
+    exchanges.shutdown();
+    logger.info("SentenceServer on {} closed.", address);
+  }
+}
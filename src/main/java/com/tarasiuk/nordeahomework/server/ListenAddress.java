@@ -0,0 +1,72 @@
+package com.tarasiuk.nordeahomework.server;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.Locale;
+
+/**
+ * Where a {@link SentenceServer} listens, written as {@code tcp:host:port}, {@code
+ * http:host:port} or {@code unix:/path/to/socket}.
+ *
+ * @param protocol The protocol spoken on the socket.
+ * @param address The socket address, an {@link InetSocketAddress} for TCP and HTTP or a {@link
+ *     UnixDomainSocketAddress}.
+ */
+public record ListenAddress(Protocol protocol, SocketAddress address) {
+
+  /** The protocols a {@link SentenceServer} speaks. */
+  public enum Protocol {
+    /** The framed protocol of {@link SentenceServer} over TCP. */
+    TCP,
+    /** The framed protocol of {@link SentenceServer} over a Unix domain socket. */
+    UNIX,
+    /** HTTP, with the output format as the request path. */
+    HTTP
+  }
+
+  /**
+   * Parses an address such as {@code tcp:127.0.0.1:7070}.
+   *
+   * @param spec The address, prefixed with its protocol.
+   * @return The parsed address.
+   * @throws IllegalArgumentException If the address is malformed.
+   */
+  public static ListenAddress parse(String spec) {
+    int separator = spec.indexOf(':');
+    if (separator < 0) {
+      throw new IllegalArgumentException("Listen address must start with a protocol: " + spec);
+    }
+    Protocol protocol;
+    try {
+      protocol = Protocol.valueOf(spec.substring(0, separator).toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown protocol in listen address: " + spec, e);
+    }
+    String location = spec.substring(separator + 1);
+    if (protocol == Protocol.UNIX) {
+      return new ListenAddress(protocol, UnixDomainSocketAddress.of(location));
+    }
+
+    int portSeparator = location.lastIndexOf(':');
+    if (portSeparator <= 0) {
+      throw new IllegalArgumentException("Listen address must be host:port: " + spec);
+    }
+    try {
+      int port = Integer.parseInt(location.substring(portSeparator + 1));
+      return new ListenAddress(
+          protocol, new InetSocketAddress(location.substring(0, portSeparator), port));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid port in listen address: " + spec, e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    String location =
+        address instanceof InetSocketAddress inet
+            ? inet.getHostString() + ":" + inet.getPort()
+            : ((UnixDomainSocketAddress) address).getPath().toString();
+    return protocol.name().toLowerCase(Locale.ROOT) + ":" + location;
+  }
+}
@@ -0,0 +1,57 @@
+package com.tarasiuk.nordeahomework.server;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+
+/**
+ * A long-running server that processes documents sent by clients with a {@link SentenceService}
+ * and streams the XML or CSV output back. Each connection is served on its own virtual thread.
+ *
+ * <p>Over TCP and Unix domain sockets, a connection carries any number of requests, one after the
+ * other. A request is a header line {@code <format> <length>}, e.g. {@code xml 512}, followed by
+ * {@code length} bytes of UTF-8 text. The response starts with the line {@code OK}, followed by
+ * the output in chunks, each a line with the chunk's byte length and then the bytes, and ends with
+ * an empty chunk ({@code 0}). If processing fails after the response has started, the output sent
+ * so far is incomplete and ends with the error trailer instead: a chunk length of {@code -1}
+ * followed by a line with the error message; the connection stays open. A request that cannot be
+ * served at all is answered with the line {@code ERROR <message>} and the connection is closed.
+ * Lines end with a single {@code \n}.
+ *
+ * <p>Over HTTP, a request is a {@code POST} to {@code /xml} or {@code /csv} with the text as its
+ * body. The output is sent with its length once complete, or status 500 if processing fails.
+ */
+public interface SentenceServer extends AutoCloseable {
+  /** The largest accepted document, in bytes. */
+  int MAX_REQUEST_BYTES = 16 * 1024 * 1024;
+
+  /**
+   * Starts a server listening on the given address.
+   *
+   * @param address The address to listen on; port {@code 0} picks a free port.
+   * @param service The service processing the requests.
+   * @return The running server.
+   * @throws IOException If the address cannot be bound.
+   */
+  static SentenceServer start(ListenAddress address, SentenceService service)
+      throws IOException {
+    return address.protocol() == ListenAddress.Protocol.HTTP
+        ? new HttpSentenceServer(address, service)
+        : new SocketSentenceServer(address, service);
+  }
+
+  /**
+   * Returns the address the server is bound to, with the actual port if port {@code 0} was asked
+   * for.
+   *
+   * @return The bound address.
+   */
+  ListenAddress address();
+
+  /**
+   * Stops accepting connections and closes the open ones.
+   *
+   * @throws IOException If an error occurs closing the listening socket.
+   */
+  @Override
+  void close() throws IOException;
+}
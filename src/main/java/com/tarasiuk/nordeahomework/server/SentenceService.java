@@ -0,0 +1,81 @@
+package com.tarasiuk.nordeahomework.server;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.CsvWriter;
+import com.tarasiuk.nordeahomework.output.SentenceSink;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
+import com.tarasiuk.nordeahomework.output.SinkType;
+import com.tarasiuk.nordeahomework.output.XmlWriter;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.WritableByteChannel;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Processes documents held in memory and writes the result to a channel, for the request handlers
+ * of a {@link SentenceServer}. Keeps a pool of warm segmentation engines, so a request costs only
+ * the processing of its text. Thread-safe.
+ */
+public class SentenceService {
+  /** The size of the response buffer; larger output is sent as it is produced. */
+  static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(SentenceService.class);
+  private static final SinkOptions RESPONSE_OPTIONS =
+      SinkOptions.defaults().withBufferSize(RESPONSE_BUFFER_SIZE);
+
+  private final EnginePool engines;
+
+  /**
+   * Constructs a SentenceService, creating its engines.
+   *
+   * @param engineType The segmentation engine to use.
+   * @param engineCount The number of engines, i.e. of requests processed at the same time.
+   * @throws IOException If an engine cannot be created, e.g. its models cannot be loaded.
+   */
+  public SentenceService(SegmentationEngineType engineType, int engineCount) throws IOException {
+    this.engines = new EnginePool(engineType, engineCount);
+    logger.info("SentenceService ready with {} {} engines.", engineCount, engineType);
+  }
+
+  /**
+   * Processes a document and writes its sentences to the channel in the given format. The channel
+   * is closed when the output is complete.
+   *
+   * @param text The document text.
+   * @param format The output format, {@link SinkType#XML} or {@link SinkType#CSV}.
+   * @param output The channel to write the output to.
+   * @throws IOException If an I/O error occurs writing the output.
+   * @throws XMLStreamException If an error occurs writing XML output.
+   * @throws IllegalArgumentException If the format is not supported.
+   */
+  public void process(String text, SinkType format, WritableByteChannel output)
+      throws IOException, XMLStreamException {
+    SegmentationEngine engine = engines.borrow();
+    try (Processor processor = new Processor(new StringReader(text), engine);
+        SentenceSink sink = createSink(format, output)) {
+      sink.open();
+      SentenceBatch batch = new SentenceBatch();
+      while (processor.readNextSentences(batch)) {
+        sink.writeSentences(batch);
+      }
+    } finally {
+      engines.release(engine);
+    }
+  }
+
+  private static SentenceSink createSink(SinkType format, WritableByteChannel output)
+      throws IOException {
+    return switch (format) {
+      case XML -> new XmlWriter(output, RESPONSE_OPTIONS);
+      case CSV -> new CsvWriter(output, RESPONSE_OPTIONS);
+      case BINARY, STATS ->
+          throw new IllegalArgumentException("Output format not supported: " + format);
+    };
+  }
+}
@@ -0,0 +1,170 @@
+package com.tarasiuk.nordeahomework.server;
+
+import com.tarasiuk.nordeahomework.output.SinkType;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.xml.stream.XMLStreamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Serves the framed protocol of {@link SentenceServer} over TCP or a Unix domain socket. */
+final class SocketSentenceServer implements SentenceServer {
+  private static final Logger logger = LoggerFactory.getLogger(SocketSentenceServer.class);
+  private static final byte[] OK = "OK\n".getBytes(StandardCharsets.US_ASCII);
+  private static final int MAX_HEADER_LENGTH = 64;
+
+  private final SentenceService service;
+  private final ServerSocketChannel serverChannel;
+  private final ListenAddress address;
+  private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+  private final Set<SocketChannel> openConnections = ConcurrentHashMap.newKeySet();
+
+  SocketSentenceServer(ListenAddress address, SentenceService service) throws IOException {
+    this.service = service;
+    boolean unix = address.protocol() == ListenAddress.Protocol.UNIX;
+    this.serverChannel =
+        ServerSocketChannel.open(unix ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET);
+    try {
+      serverChannel.bind(address.address());
+    } catch (IOException e) {
+      serverChannel.close();
+      throw e;
+    }
+    this.address = new ListenAddress(address.protocol(), serverChannel.getLocalAddress());
+    Thread.ofVirtual().name("sentence-server-acceptor").start(this::acceptConnections);
+    logger.info("SentenceServer listening on {}", this.address);
+  }
+
+  @Override
+  public ListenAddress address() {
+    return address;
+  }
+
+  private void acceptConnections() {
+    while (serverChannel.isOpen()) {
+      try {
+        SocketChannel connection = serverChannel.accept();
+        if (connection.getRemoteAddress() instanceof InetSocketAddress) {
+          connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        openConnections.add(connection);
+        connections.execute(() -> serve(connection));
+      } catch (AsynchronousCloseException e) {
+        return;
+      } catch (IOException e) {
+        logger.warn("Error accepting connection: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  /** Serves the requests of one connection until the client closes it. */
+  private void serve(SocketChannel connection) {
+    try (connection) {
+      InputStream in = new BufferedInputStream(Channels.newInputStream(connection));
+      String header;
+      while ((header = readLine(in)) != null) {
+        String[] fields = header.split(" ");
+        SinkType format;
+        int length;
+        try {
+          if (fields.length != 2) {
+            throw new IllegalArgumentException("Malformed request header: " + header);
+          }
+          format = SinkType.fromName(fields[0]);
+          length = Integer.parseInt(fields[1]);
+          if (format != SinkType.XML && format != SinkType.CSV) {
+            throw new IllegalArgumentException("Output format not supported: " + fields[0]);
+          }
+          if (length < 0 || length > MAX_REQUEST_BYTES) {
+            throw new IllegalArgumentException("Request length out of range: " + length);
+          }
+        } catch (IllegalArgumentException e) {
+          String error = "ERROR " + e.getMessage() + "\n";
+          writeFully(connection, error.getBytes(StandardCharsets.UTF_8));
+          return;
+        }
+        byte[] text = in.readNBytes(length);
+        if (text.length < length) {
+          throw new EOFException("Connection closed within a request.");
+        }
+        writeFully(connection, OK);
+        ChunkedChannel response = new ChunkedChannel(connection);
+        try {
+          service.process(new String(text, StandardCharsets.UTF_8), format, response);
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+          logger.warn("Request failed, sending error trailer: {}", e.getMessage(), e);
+          response.fail(e.getMessage() != null ? e.getMessage() : e.toString());
+          continue;
+        }
+        response.end();
+      }
+    } catch (IOException | RuntimeException e) {
+      if (serverChannel.isOpen()) {
+        logger.warn("Request failed, closing connection: {}", e.getMessage(), e);
+      }
+    } finally {
+      openConnections.remove(connection);
+    }
+  }
+
+  /** Reads a line ending with {@code \n}, or returns null at the end of the stream. */
+  private static String readLine(InputStream in) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream(MAX_HEADER_LENGTH);
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b < 0) {
+        if (line.size() == 0) {
+          return null;
+        }
+        throw new EOFException("Connection closed within a request header.");
+      }
+      if (line.size() == MAX_HEADER_LENGTH) {
+        throw new IOException("Request header too long.");
+      }
+      line.write(b);
+    }
+    return line.toString(StandardCharsets.UTF_8);
+  }
+
+  private static void writeFully(SocketChannel connection, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      connection.write(buffer);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverChannel.close();
+    for (SocketChannel connection : openConnections) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        logger.debug("Error closing connection: {}", e.getMessage());
+      }
+    }
+    connections.shutdown();
+    if (address.address() instanceof UnixDomainSocketAddress unix) {
+      Files.deleteIfExists(unix.getPath());
+    }
+    logger.info("SentenceServer on {} closed.", address);
+  }
+}
@@ -0,0 +1,130 @@
+package com.tarasiuk.nordeahomework.statistics;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregates corpus-wide statistics over a stream of sentence batches: the number of sentences
+ * and words, the frequency of every distinct word, and a histogram of sentence lengths in words.
+ * Lengths up to {@value #EXACT_LENGTHS} words are counted exactly, longer ones in buckets of
+ * doubling width (65-128, 129-256, ...), so the histogram has a fixed size however long a sentence
+ * is. Instances are not thread-safe.
+ */
+public final class CorpusStatistics {
+  /** Sentence lengths up to this number of words have a histogram bucket of their own. */
+  public static final int EXACT_LENGTHS = 64;
+
+  // Exact buckets 0..64, then one bucket per power of two up to 2^63.
+  private static final int BUCKET_COUNT = EXACT_LENGTHS + 1 + 57;
+
+  private final WordCounter words = new WordCounter();
+  private final long[] lengthBuckets = new long[BUCKET_COUNT];
+  private long sentenceCount = 0;
+  private long maxSentenceLength = 0;
+
+  /** The sentences of a histogram bucket, whose sentences have between min and max words. */
+  public record LengthBucket(long minWords, long maxWords, long sentences) {}
+
+  /**
+   * Adds the sentences of a batch, reading the words of an external sentence one at a time.
+   *
+   * @param batch The batch to add.
+   * @throws IOException If the words of an external sentence cannot be read.
+   */
+  public void add(SentenceBatch batch) throws IOException {
+    ExternalSentence external = batch.externalSentence();
+    if (external != null) {
+      try (ExternalSentence.WordReader reader = external.openWords()) {
+        for (String word = reader.next(); word != null; word = reader.next()) {
+          words.add(word);
+        }
+      }
+      addSentenceLength(external.wordCount());
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      int wordCount = batch.wordCount(i);
+      for (int j = 0; j < wordCount; j++) {
+        words.add(batch.word(i, j));
+      }
+      addSentenceLength(wordCount);
+    }
+  }
+
+  private void addSentenceLength(long wordCount) {
+    lengthBuckets[bucketOf(wordCount)]++;
+    sentenceCount++;
+    maxSentenceLength = Math.max(maxSentenceLength, wordCount);
+  }
+
+  /**
+   * Returns the number of sentences added.
+   *
+   * @return The sentence count.
+   */
+  public long sentenceCount() {
+    return sentenceCount;
+  }
+
+  /**
+   * Returns the number of words in all sentences added.
+   *
+   * @return The word count.
+   */
+  public long wordCount() {
+    return words.total();
+  }
+
+  /**
+   * Returns the number of words of the longest sentence.
+   *
+   * @return The maximum sentence length, {@code 0} if no sentence was added.
+   */
+  public long maxSentenceLength() {
+    return maxSentenceLength;
+  }
+
+  /**
+   * Returns the word frequencies. The counter is live and must not be modified.
+   *
+   * @return The counter of all words added.
+   */
+  public WordCounter words() {
+    return words;
+  }
+
+  /**
+   * Returns the sentence length histogram, omitting empty buckets.
+   *
+   * @return The non-empty buckets in order of increasing length.
+   */
+  public List<LengthBucket> lengthHistogram() {
+    List<LengthBucket> histogram = new ArrayList<>();
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      if (lengthBuckets[bucket] == 0) {
+        continue;
+      }
+      if (bucket <= EXACT_LENGTHS) {
+        histogram.add(new LengthBucket(bucket, bucket, lengthBuckets[bucket]));
+      } else {
+        int log2 = bucket - EXACT_LENGTHS + 6;
+        long maxWords = log2 == 63 ? Long.MAX_VALUE : 1L << log2;
+        histogram.add(new LengthBucket((1L << (log2 - 1)) + 1, maxWords, lengthBuckets[bucket]));
+      }
+    }
+    return histogram;
+  }
+
+  /** Returns the bucket of a sentence length: the length itself, or the index of its power of 2. */
+  private static int bucketOf(long wordCount) {
+    if (wordCount <= EXACT_LENGTHS) {
+      return (int) wordCount;
+    }
+    // ceil(log2(wordCount)) is 7 for lengths 65..128, the first bucket after the exact ones.
+    int log2 = 64 - Long.numberOfLeadingZeros(wordCount - 1);
+    return EXACT_LENGTHS + log2 - 6;
+  }
+}
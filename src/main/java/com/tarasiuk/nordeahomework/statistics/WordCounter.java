@@ -0,0 +1,171 @@
+package com.tarasiuk.nordeahomework.statistics;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Counts occurrences of words in an open-addressing hash table with linear probing. Words, their
+ * hash codes and their counts are kept in three parallel arrays, so a distinct word costs one
+ * table slot of a reference, an int and a long instead of a map entry and a boxed counter, and
+ * counting an already known word allocates nothing. The table is kept at most half full.
+ *
+ * <p>The counter holds on to the first {@link String} instance it sees for each word. Instances
+ * are not thread-safe.
+ */
+public final class WordCounter {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private String[] words = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private long[] counts = new long[INITIAL_CAPACITY];
+  private int size = 0;
+  private long total = 0;
+
+  /**
+   * Counts one occurrence of a word.
+   *
+   * @param word The word.
+   */
+  public void add(String word) {
+    add(word, 1);
+  }
+
+  /**
+   * Counts occurrences of a word.
+   *
+   * @param word The word.
+   * @param count The number of occurrences to add.
+   */
+  public void add(String word, long count) {
+    int hash = hash(word);
+    int mask = words.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      String key = words[slot];
+      if (key == null) {
+        words[slot] = word;
+        hashes[slot] = hash;
+        counts[slot] = count;
+        total += count;
+        if (++size > words.length / 2) {
+          grow();
+        }
+        return;
+      }
+      if (hashes[slot] == hash && key.equals(word)) {
+        counts[slot] += count;
+        total += count;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of occurrences of a word.
+   *
+   * @param word The word.
+   * @return The count, {@code 0} if the word was never added.
+   */
+  public long count(String word) {
+    int hash = hash(word);
+    int mask = words.length - 1;
+    for (int slot = hash & mask; words[slot] != null; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash && words[slot].equals(word)) {
+        return counts[slot];
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the number of distinct words.
+   *
+   * @return The vocabulary size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of occurrences of all words.
+   *
+   * @return The sum of all counts.
+   */
+  public long total() {
+    return total;
+  }
+
+  /**
+   * Passes every distinct word with its count to the action, in no particular order.
+   *
+   * @param action The action receiving each word and its count.
+   */
+  public void forEach(ObjLongConsumer<String> action) {
+    for (int slot = 0; slot < words.length; slot++) {
+      if (words[slot] != null) {
+        action.accept(words[slot], counts[slot]);
+      }
+    }
+  }
+
+  /**
+   * Returns the distinct words ordered by descending count, and words with the same count in
+   * {@link String#compareTo natural order}. Counts beyond {@link Integer#MAX_VALUE} are ordered as
+   * if they were equal to it.
+   *
+   * @return A new array of the distinct words.
+   */
+  public String[] wordsByFrequency() {
+    String[] sorted = new String[size];
+    int next = 0;
+    for (String word : words) {
+      if (word != null) {
+        sorted[next++] = word;
+      }
+    }
+    Arrays.sort(sorted);
+
+    // Sort the ranks of the words by descending count, packed with the count into one long so a
+    // primitive sort keeps ties in rank order.
+    long[] keys = new long[size];
+    for (int rank = 0; rank < size; rank++) {
+      long count = Math.min(count(sorted[rank]), Integer.MAX_VALUE);
+      keys[rank] = (Integer.MAX_VALUE - count) << 32 | rank;
+    }
+    Arrays.sort(keys);
+
+    String[] result = new String[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = sorted[(int) keys[i]];
+    }
+    return result;
+  }
+
+  /** Doubles the table, reinserting every word at its slot in the larger table. */
+  private void grow() {
+    String[] oldWords = words;
+    int[] oldHashes = hashes;
+    long[] oldCounts = counts;
+    words = new String[oldWords.length * 2];
+    hashes = new int[words.length];
+    counts = new long[words.length];
+    int mask = words.length - 1;
+    for (int oldSlot = 0; oldSlot < oldWords.length; oldSlot++) {
+      if (oldWords[oldSlot] == null) {
+        continue;
+      }
+      int slot = oldHashes[oldSlot] & mask;
+      while (words[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      words[slot] = oldWords[oldSlot];
+      hashes[slot] = oldHashes[oldSlot];
+      counts[slot] = oldCounts[oldSlot];
+    }
+  }
+
+  /** Spreads the bits of the string hash code, so similar words do not cluster in the table. */
+  private static int hash(String word) {
+    int h = word.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,265 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.BinaryReader;
+import com.tarasiuk.nordeahomework.output.BinaryWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BinaryWriterTest {
+  @TempDir Path tempDir;
+
+  @Test
+  void writeSentences_roundTripsThroughReader() throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("round_trip.bin");
+    List<Sentence> sentences =
+        List.of(
+            new Sentence(List.of("a", "is", "test", "This")),
+            new Sentence(List.of("停在那儿", "Comma,here", "Quote\"there")),
+            new Sentence(List.of("a", "test")));
+
+    // When
+    try (BinaryWriter writer = new BinaryWriter(outputFile)) {
+      writer.writeSentences(toBatch(sentences));
+    }
+
+    // Then
+    assertEquals(sentences, readAll(outputFile));
+  }
+
+  @Test
+  void writeSentences_manyBlocks_supportsSeeking() throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("many_blocks.bin");
+    List<Sentence> sentences = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      sentences.add(new Sentence(List.of("common", "word" + i)));
+    }
+
+    // When
+    try (BinaryWriter writer = new BinaryWriter(outputFile)) {
+      writer.writeSentences(toBatch(sentences));
+    }
+
+    // Then
+    assertEquals(sentences, readAll(outputFile));
+    try (BinaryReader reader = new BinaryReader(outputFile)) {
+      SentenceBatch batch = new SentenceBatch();
+      assertEquals(50_000, reader.sentenceCount());
+      for (long sentence : new long[] {49_999, 31_337, 0}) {
+        reader.seek(sentence);
+        assertTrue(reader.readNextSentences(batch));
+        assertEquals(sentences.get((int) sentence), batch.toSentences().get(0));
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.seek(50_000));
+    }
+  }
+
+  @Test
+  void writeSentences_externalSentenceWithManyNewWords_roundTripsThroughReader()
+      throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("external.bin");
+    List<String> longWords = new ArrayList<>();
+    for (int i = 0; i < BinaryReader.EXTERNAL_SENTENCE_WORDS + 10_000; i++) {
+      longWords.add("long" + i);
+    }
+    List<Sentence> before =
+        List.of(new Sentence(List.of("a", "long")), new Sentence(List.of("sentence")));
+    List<Sentence> after = List.of(new Sentence(List.of("long0", "new")));
+    SentenceBatch external = new SentenceBatch();
+    external.setExternalSentence(externalSentence(longWords));
+
+    // When
+    try (BinaryWriter writer = new BinaryWriter(outputFile)) {
+      writer.writeSentences(toBatch(before));
+      writer.writeSentences(external);
+      writer.writeSentences(toBatch(after));
+    }
+
+    // Then
+    List<Sentence> expected = new ArrayList<>(before);
+    expected.add(new Sentence(longWords));
+    expected.addAll(after);
+    assertEquals(expected, readAll(outputFile));
+    try (BinaryReader reader = new BinaryReader(outputFile)) {
+      SentenceBatch batch = new SentenceBatch();
+      reader.seek(3);
+      assertTrue(reader.readNextSentences(batch));
+      assertEquals(after, batch.toSentences());
+      reader.seek(2);
+      assertTrue(reader.readNextSentences(batch));
+      assertEquals(longWords.size(), batch.externalSentence().wordCount());
+      assertEquals(
+          longWords.stream().mapToLong(String::length).sum(),
+          batch.externalSentence().charCount());
+      assertEquals(List.of(new Sentence(longWords)), batch.toSentences());
+    }
+  }
+
+  @Test
+  void readNextSentences_longSentence_isCopiedAsExternalSentence() throws IOException {
+    // Given
+    Path inputFile = tempDir.resolve("long.bin");
+    Path copyFile = tempDir.resolve("copy.bin");
+    List<String> longWords = new ArrayList<>();
+    for (int i = 0; i <= BinaryReader.EXTERNAL_SENTENCE_WORDS; i++) {
+      longWords.add(i % 2 == 0 ? "even" : "odd");
+    }
+    List<Sentence> sentences =
+        List.of(
+            new Sentence(List.of("short")),
+            new Sentence(longWords),
+            new Sentence(List.of("end")));
+    try (BinaryWriter writer = new BinaryWriter(inputFile)) {
+      writer.writeSentences(toBatch(sentences.subList(0, 1)));
+      SentenceBatch external = new SentenceBatch();
+      external.setExternalSentence(externalSentence(longWords));
+      writer.writeSentences(external);
+      writer.writeSentences(toBatch(sentences.subList(2, 3)));
+    }
+    List<Boolean> external = new ArrayList<>();
+
+    // When
+    try (BinaryReader reader = new BinaryReader(inputFile);
+        BinaryWriter writer = new BinaryWriter(copyFile)) {
+      SentenceBatch batch = new SentenceBatch();
+      while (reader.readNextSentences(batch)) {
+        external.add(batch.externalSentence() != null);
+        writer.writeSentences(batch);
+      }
+    }
+
+    // Then
+    assertEquals(List.of(false, true, false), external);
+    assertEquals(sentences, readAll(copyFile));
+  }
+
+  @Test
+  void writeSentences_handlesNullBatchLikeEmptyBatch() throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("null_batch.bin");
+
+    // When
+    try (BinaryWriter writer = new BinaryWriter(outputFile)) {
+      writer.writeSentences(null);
+    }
+
+    // Then
+    assertEquals(List.of(), readAll(outputFile));
+  }
+
+  @Test
+  void writeSentences_isSmallerThanCsv() throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("small.bin");
+    List<Sentence> sentences = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      sentences.add(new Sentence(List.of("and", "markets", "Nordea", "the", "we", "you")));
+    }
+
+    // When
+    try (BinaryWriter writer = new BinaryWriter(outputFile)) {
+      writer.writeSentences(toBatch(sentences));
+    }
+
+    // Then
+    long csvSize =
+        sentences.stream()
+            .mapToLong(s -> String.join(", ", s.words()).getBytes(StandardCharsets.UTF_8).length)
+            .sum();
+    assertTrue(
+        Files.size(outputFile) * 4 < csvSize, "Binary output should be several times smaller");
+  }
+
+  @Test
+  void reader_rejectsNonBinaryFile() throws IOException {
+    // Given
+    Path file = tempDir.resolve("not_binary.bin");
+    Files.writeString(file, "Sentence 1, Hello, world", StandardCharsets.UTF_8);
+
+    // When / Then
+    assertThrows(IOException.class, () -> new BinaryReader(file));
+  }
+
+  @Test
+  void reader_rejectsLengthOverIntRange() throws IOException {
+    // Given
+    // A block with one sentence whose dictionary section claims 2^32 bytes
+    byte[] block = {0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10, 1, 0};
+    ByteBuffer file = ByteBuffer.allocate(64);
+    file.put(new byte[] {'N', 'H', 'W', 'B', 1});
+    file.put(block);
+    int indexOffset = file.position();
+    file.put(new byte[] {1, 5, 1});
+    file.putLong(indexOffset);
+    file.put(new byte[] {'N', 'H', 'W', 'B'});
+    Path path = tempDir.resolve("oversized.bin");
+    Files.write(path, Arrays.copyOf(file.array(), file.position()));
+
+    // When / Then
+    try (BinaryReader reader = new BinaryReader(path)) {
+      assertThrows(IOException.class, () -> reader.readNextSentences(new SentenceBatch()));
+    }
+  }
+
+  private static SentenceBatch toBatch(List<Sentence> sentences) {
+    SentenceBatch batch = new SentenceBatch();
+    for (Sentence sentence : sentences) {
+      sentence.words().forEach(batch::addWord);
+      batch.endSentence();
+    }
+    return batch;
+  }
+
+  private static List<Sentence> readAll(Path file) throws IOException {
+    List<Sentence> sentences = new ArrayList<>();
+    try (BinaryReader reader = new BinaryReader(file)) {
+      SentenceBatch batch = new SentenceBatch();
+      while (reader.readNextSentences(batch)) {
+        sentences.addAll(batch.toSentences());
+      }
+    }
+    return sentences;
+  }
+
+  private static ExternalSentence externalSentence(List<String> words) {
+    return new ExternalSentence() {
+      @Override
+      public long wordCount() {
+        return words.size();
+      }
+
+      @Override
+      public long charCount() {
+        return words.stream().mapToLong(String::length).sum();
+      }
+
+      @Override
+      public WordReader openWords() {
+        Iterator<String> iterator = words.iterator();
+        return new WordReader() {
+          @Override
+          public String next() {
+            return iterator.hasNext() ? iterator.next() : null;
+          }
+
+          @Override
+          public void close() {}
+        };
+      }
+    };
+  }
+}
@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.processing.CollationOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+class CollationOrderTest {
+
+  @Test
+  void sort_withGermanLocale_placesAccentedWordsNextToBaseLetters() {
+    // Given
+    CollationOrder order = new CollationOrder(Locale.GERMAN);
+    String[] words = {"zebra", "Äpfel", "ahnen", "Émile", "apple", "ähnlich", "emu"};
+
+    // When
+    order.sort(words, 0, words.length);
+
+    // Then
+    assertArrayEquals(
+        new String[] {"ahnen", "ähnlich", "Äpfel", "apple", "Émile", "emu", "zebra"}, words);
+  }
+
+  @Test
+  void sort_withSwedishLocale_placesUmlautsAfterZ() {
+    // Given
+    CollationOrder order = new CollationOrder(Locale.forLanguageTag("sv"));
+    String[] words = {"Öl", "ähnlich", "zebra", "apple", "Oslo"};
+
+    // When
+    order.sort(words, 0, words.length);
+
+    // Then
+    assertArrayEquals(new String[] {"apple", "Oslo", "zebra", "ähnlich", "Öl"}, words);
+  }
+
+  @Test
+  void sort_caseTies_putsLowercaseFirstAndSortsOnlyTheRange() {
+    // Given
+    CollationOrder order = new CollationOrder(Locale.ENGLISH);
+    String[] words = {"keep", "Apple", "apple", "Banana", "apple", "first"};
+
+    // When
+    order.sort(words, 1, 5);
+
+    // Then
+    assertArrayEquals(new String[] {"keep", "apple", "apple", "Apple", "Banana", "first"}, words);
+  }
+
+  @Test
+  void compare_agreesWithSortOnRepeatedWords() {
+    // Given
+    CollationOrder order = new CollationOrder(Locale.forLanguageTag("pl"));
+    String[] words = {"Łódź", "Lodz", "lody", "mama", "Łódź", "łódka", "Mama"};
+    List<String> compared = new ArrayList<>(Arrays.asList(words));
+
+    // When
+    order.sort(words, 0, words.length);
+    compared.sort(order);
+
+    // Then
+    assertEquals(compared, Arrays.asList(words));
+    assertEquals(0, order.compare("Łódź", "Łódź"));
+    assertTrue(order.compare("Lodz", "Łódź") < 0);
+  }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.loadtest.CorpusGenerator;
+import com.tarasiuk.nordeahomework.loadtest.CorpusGenerator.Scenario;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.ProcessorOptions;
+import com.tarasiuk.nordeahomework.processing.RuleBasedSegmentationEngine;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class CorpusGeneratorTest {
+  private static final long SIZE = 256 * 1024;
+  private static final Comparator<String> WORD_ORDER =
+      Comparator.<String, String>comparing(word -> word, String.CASE_INSENSITIVE_ORDER)
+          .thenComparing(word -> Character.isUpperCase(word.charAt(0)))
+          .thenComparing(Comparator.naturalOrder());
+
+  @TempDir Path tempDir;
+
+  @Test
+  void next_withSameSeed_generatesSameSentences() {
+    // Given
+    CorpusGenerator first = new CorpusGenerator(Scenario.MIXED, SIZE, 7);
+    CorpusGenerator second = new CorpusGenerator(Scenario.MIXED, SIZE, 7);
+
+    // When
+    List<CorpusGenerator.GeneratedSentence> firstSentences = new ArrayList<>();
+    List<CorpusGenerator.GeneratedSentence> secondSentences = new ArrayList<>();
+    while (first.hasNext()) {
+      firstSentences.add(first.next());
+    }
+    while (second.hasNext()) {
+      secondSentences.add(second.next());
+    }
+
+    // Then
+    assertFalse(firstSentences.isEmpty());
+    assertEquals(firstSentences, secondSentences);
+  }
+
+  @ParameterizedTest
+  @EnumSource(Scenario.class)
+  void write_processedByRuleBasedEngine_yieldsGeneratedWordsSorted(Scenario scenario)
+      throws IOException {
+    // Given
+    Path corpus = tempDir.resolve("corpus.in");
+    CorpusGenerator.write(scenario, SIZE, 7, corpus);
+    List<Sentence> expected = new ArrayList<>();
+    CorpusGenerator generator = new CorpusGenerator(scenario, SIZE, 7);
+    while (generator.hasNext()) {
+      List<String> words = new ArrayList<>(generator.next().words());
+      words.sort(WORD_ORDER);
+      expected.add(new Sentence(words));
+    }
+    List<Sentence> actual = new ArrayList<>();
+
+    // When
+    try (Processor processor =
+        new Processor(
+            corpus,
+            new RuleBasedSegmentationEngine(),
+            ProcessorOptions.defaults().withSpillThreshold(1000))) {
+      SentenceBatch batch = new SentenceBatch();
+      while (processor.readNextSentences(batch)) {
+        actual.addAll(batch.toSentences());
+      }
+    }
+
+    // Then
+    assertTrue(Files.size(corpus) >= SIZE * 9 / 10, "The corpus should have about its size");
+    assertEquals(expected.size(), actual.size());
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void constructor_withNonPositiveSize_throwsException() {
+    // When / Then
+    assertThrows(
+        IllegalArgumentException.class, () -> new CorpusGenerator(Scenario.MIXED, 0, 7));
+  }
+}
@@ -4,7 +4,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
 import com.tarasiuk.nordeahomework.output.CsvWriter;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -19,6 +21,7 @@ import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class CsvWriterTest {
   @TempDir Path tempDir;
@@ -119,7 +122,7 @@ class CsvWriterTest {
 
     // When
     try (CsvWriter writer = new CsvWriter(outputFile)) {
-      writer.writeSentences(null);
+      writer.writeSentences((List<Sentence>) null);
     }
 
     // Then
@@ -127,4 +130,41 @@ class CsvWriterTest {
     String actual = Files.readString(outputFile, StandardCharsets.UTF_8);
     assertEquals("", actual, "CSV content for null list mismatch");
   }
+
+  @Test
+  void writeSentences_handlesNullBatchLikeNullList() throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("null_batch.csv");
+
+    // When
+    try (CsvWriter writer = new CsvWriter(outputFile)) {
+      writer.writeSentences((SentenceBatch) null);
+    }
+
+    // Then
+    assertEquals("", Files.readString(outputFile, StandardCharsets.UTF_8));
+  }
+
+  @ParameterizedTest(name = "[{index}] Asynchronous writes: {0}")
+  @ValueSource(booleans = {false, true})
+  void writeSentences_copiesLinesLongerThanTheBuffer(boolean asyncWrites) throws IOException {
+    // Given
+    Path outputFile = tempDir.resolve("small_buffer.csv");
+    SinkOptions smallBuffer =
+        SinkOptions.defaults().withBufferSize(1).withAsyncWrites(asyncWrites);
+    List<String> words = Collections.nCopies(1000, "say \"żółć\", 停");
+
+    // When
+    try (CsvWriter writer = new CsvWriter(outputFile, smallBuffer)) {
+      writer.writeSentences(List.of(new Sentence(words), new Sentence(List.of("end"))));
+    }
+
+    // Then
+    List<String> lines = Files.readAllLines(outputFile, StandardCharsets.UTF_8);
+    StringJoiner expectedFirst = new StringJoiner(DELIMITER, "Sentence 1" + DELIMITER, "");
+    words.forEach(word -> expectedFirst.add("\"say \"\"żółć\"\", 停\""));
+    assertEquals(3, lines.size(), "Header and two sentences expected");
+    assertEquals(expectedFirst.toString(), lines.get(1));
+    assertEquals("Sentence 2" + DELIMITER + "end", lines.get(2));
+  }
 }
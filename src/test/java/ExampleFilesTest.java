@@ -2,11 +2,14 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.xmlunit.assertj3.XmlAssert.assertThat; // XMLUnit AssertJ
 
 import com.tarasiuk.nordeahomework.Main;
+import com.tarasiuk.nordeahomework.Options;
+import com.tarasiuk.nordeahomework.output.SinkType;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -55,4 +58,21 @@ class ExampleFilesTest {
         .withNodeMatcher(new DefaultNodeMatcher(ElementSelectors.byNameAndText))
         .areIdentical();
   }
+
+  @Test
+  void process_withAsyncWritesAndThreadLimit_throwsException() {
+    // Given
+    Map<SinkType, Path> outputFiles =
+        Map.of(SinkType.CSV, actualOutputDir.resolve(CSV_OUTPUT_FILE));
+    Options options = Options.parse("--async-io", "--max-threads=2");
+
+    // When
+    IllegalArgumentException exception =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> Main.process(testInputPath, outputFiles, options));
+
+    // Then
+    assertTrue(exception.getMessage().contains("--async-io"), exception.getMessage());
+  }
 }
@@ -0,0 +1,126 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.FanOutSink;
+import com.tarasiuk.nordeahomework.output.SentenceSink;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class FanOutSinkTest {
+
+  @Test
+  void writeSentences_deliversEveryBatchToEverySink() throws Exception {
+    // Given
+    RecordingSink first = new RecordingSink();
+    RecordingSink second = new RecordingSink();
+    RecordingSink third = new RecordingSink();
+    SentenceBatch batch = new SentenceBatch();
+
+    // When
+    try (FanOutSink sink = new FanOutSink(List.of(first, second, third))) {
+      sink.open();
+      for (String word : List.of("one", "two")) {
+        batch.clear();
+        batch.addWord(word);
+        batch.endSentence(Comparator.naturalOrder());
+        sink.writeSentences(batch);
+      }
+    }
+
+    // Then
+    for (RecordingSink recordingSink : List.of(first, second, third)) {
+      assertTrue(recordingSink.opened, "Sink should be opened");
+      assertEquals(List.of("one", "two"), recordingSink.words, "Sink should receive all batches");
+      assertTrue(recordingSink.closed, "Sink should be closed");
+    }
+  }
+
+  @Test
+  void close_closesAllSinksAndRethrowsFailure() {
+    // Given
+    RecordingSink healthy = new RecordingSink();
+    SentenceSink failing =
+        new RecordingSink() {
+          @Override
+          public void close() throws IOException {
+            throw new IOException("disk full");
+          }
+        };
+    FanOutSink sink = new FanOutSink(List.of(healthy, failing));
+
+    // When
+    IOException exception = assertThrows(IOException.class, sink::close);
+
+    // Then
+    assertEquals("disk full", exception.getMessage());
+    assertTrue(healthy.closed, "Healthy sink should be closed despite the failure");
+  }
+
+  @Test
+  void writeSentences_withOneThread_writesEverySinkOnCallingThread() throws Exception {
+    // Given
+    List<Thread> writers = Collections.synchronizedList(new ArrayList<>());
+    List<RecordingSink> sinks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      sinks.add(
+          new RecordingSink() {
+            @Override
+            public void writeSentences(SentenceBatch batch) {
+              writers.add(Thread.currentThread());
+              super.writeSentences(batch);
+            }
+          });
+    }
+    SentenceBatch batch = new SentenceBatch();
+    batch.addWord("one");
+    batch.endSentence(Comparator.naturalOrder());
+
+    // When
+    int threadCount;
+    try (FanOutSink sink = new FanOutSink(sinks, 1)) {
+      sink.open();
+      sink.writeSentences(batch);
+      threadCount = sink.threadCount();
+    }
+
+    // Then
+    assertEquals(1, threadCount);
+    assertEquals(3, writers.size());
+    assertTrue(writers.stream().allMatch(thread -> thread == Thread.currentThread()));
+    for (RecordingSink recordingSink : sinks) {
+      assertEquals(List.of("one"), recordingSink.words);
+    }
+  }
+
+  @Test
+  void constructor_withoutSinks_throwsException() {
+    assertThrows(IllegalArgumentException.class, () -> new FanOutSink(List.of()));
+  }
+
+  private static class RecordingSink implements SentenceSink {
+    final List<String> words = Collections.synchronizedList(new ArrayList<>());
+    volatile boolean opened;
+    volatile boolean closed;
+
+    @Override
+    public void open() {
+      opened = true;
+    }
+
+    @Override
+    public void writeSentences(SentenceBatch batch) {
+      for (int i = 0; i < batch.size(); i++) {
+        words.add(batch.word(i, 0));
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+    }
+  }
+}
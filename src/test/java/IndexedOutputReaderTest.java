@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.output.CsvWriter;
+import com.tarasiuk.nordeahomework.output.IndexedOutputReader;
+import com.tarasiuk.nordeahomework.output.OutputIndex;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
+import com.tarasiuk.nordeahomework.output.XmlWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class IndexedOutputReaderTest {
+  private static final SinkOptions EVERY_THIRD_SENTENCE =
+      new SinkOptions(
+          3,
+          0,
+          0,
+          SinkOptions.DEFAULT_BUFFER_SIZE,
+          false,
+          SinkOptions.DEFAULT_SHARD_CLOSER_THREADS);
+
+  @TempDir Path tempDir;
+  private List<Sentence> sentences;
+
+  @BeforeEach
+  void setUp() {
+    sentences = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      sentences.add(new Sentence(List.of("Comma,here", "Quote\"there", "less<than", "word" + i)));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"indexed.xml", "indexed.csv"})
+  void readSentences_returnsRequestedRange(String outputFileName)
+      throws IOException, XMLStreamException {
+    // Given
+    Path outputFile = write(outputFileName);
+
+    // When
+    try (IndexedOutputReader reader = new IndexedOutputReader(outputFile)) {
+
+      // Then
+      assertEquals(20, reader.sentenceCount());
+      assertEquals(sentences.subList(0, 2), reader.readSentences(0, 2));
+      assertEquals(sentences.subList(7, 12), reader.readSentences(7, 5));
+      assertEquals(sentences.subList(18, 20), reader.readSentences(18, 10));
+      assertEquals(List.of(), reader.readSentences(20, 1));
+    }
+  }
+
+  @Test
+  void writers_withoutIndexInterval_writeNoIndex() throws IOException, XMLStreamException {
+    // Given
+    Path xmlFile = tempDir.resolve("plain.xml");
+    Path csvFile = tempDir.resolve("plain.csv");
+
+    // When
+    try (XmlWriter xmlWriter = new XmlWriter(xmlFile);
+        CsvWriter csvWriter = new CsvWriter(csvFile)) {
+      xmlWriter.openDocument();
+      xmlWriter.writeSentences(sentences);
+      csvWriter.writeSentences(sentences);
+    }
+
+    // Then
+    assertFalse(Files.exists(OutputIndex.indexFileOf(xmlFile)));
+    assertFalse(Files.exists(OutputIndex.indexFileOf(csvFile)));
+  }
+
+  private Path write(String outputFileName) throws IOException, XMLStreamException {
+    Path outputFile = tempDir.resolve(outputFileName);
+    if (outputFileName.endsWith(".xml")) {
+      try (XmlWriter writer = new XmlWriter(outputFile, EVERY_THIRD_SENTENCE)) {
+        writer.openDocument();
+        writer.writeSentences(sentences.subList(0, 10));
+        writer.writeSentences(sentences.subList(10, 20));
+      }
+    } else {
+      try (CsvWriter writer = new CsvWriter(outputFile, EVERY_THIRD_SENTENCE)) {
+        writer.writeSentences(sentences.subList(0, 10));
+        writer.writeSentences(sentences.subList(10, 20));
+      }
+    }
+    assertTrue(Files.exists(OutputIndex.indexFileOf(outputFile)), "Index should be written");
+    return outputFile;
+  }
+}
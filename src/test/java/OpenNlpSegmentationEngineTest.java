@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.processing.OpenNlpSegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngine;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OpenNlpSegmentationEngineTest {
+  private static final Path testInputPath = Paths.get("src", "test", "resources", "in", "small.in");
+
+  @TempDir Path tempDir;
+
+  @Test
+  void constructor_withPreparedModels_createsFileAndMatchesClasspathModels() throws IOException {
+    // Given
+    Path preparedModels = tempDir.resolve("models.bin");
+    List<Sentence> expected = readAll(new OpenNlpSegmentationEngine());
+
+    // When
+    List<Sentence> whilePreparing = readAll(new OpenNlpSegmentationEngine(preparedModels));
+    List<Sentence> fromPrepared = readAll(new OpenNlpSegmentationEngine(preparedModels));
+
+    // Then
+    assertTrue(Files.size(preparedModels) > 0, "Prepared models file should be created");
+    assertEquals(expected, whilePreparing);
+    assertEquals(expected, fromPrepared);
+  }
+
+  @Test
+  void constructor_withCorruptPreparedModels_loadsClasspathModelsAndReplacesFile()
+      throws IOException {
+    // Given
+    Path preparedModels = tempDir.resolve("models.bin");
+    Files.write(preparedModels, new byte[] {1, 2, 3});
+    List<Sentence> expected = readAll(new OpenNlpSegmentationEngine());
+
+    // When
+    List<Sentence> actual = readAll(new OpenNlpSegmentationEngine(preparedModels));
+
+    // Then
+    assertEquals(expected, actual);
+    assertTrue(Files.size(preparedModels) > 3, "Corrupt file should be replaced");
+  }
+
+  private static List<Sentence> readAll(SegmentationEngine engine) throws IOException {
+    List<Sentence> sentences = new ArrayList<>();
+    try (Processor processor = new Processor(testInputPath, engine)) {
+      List<Sentence> batch;
+      while (!(batch = processor.readNextSentences()).isEmpty()) {
+        sentences.addAll(batch);
+      }
+    }
+    return sentences;
+  }
+}
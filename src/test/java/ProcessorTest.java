@@ -2,15 +2,26 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.FanOutSink;
+import com.tarasiuk.nordeahomework.output.SentenceSink;
+import com.tarasiuk.nordeahomework.processing.CollationOrder;
 import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.ProcessorOptions;
+import com.tarasiuk.nordeahomework.processing.ResourceBudget;
+import com.tarasiuk.nordeahomework.processing.RuleBasedSegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngine;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Stream;
+import opennlp.tools.util.Span;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -37,6 +48,9 @@ class ProcessorTest {
             "It's a test, don't fail.",
             List.of(new Sentence(Arrays.asList("a", "don't", "fail", "It's", "test")))),
         arguments("Just a phrase", List.of(new Sentence(Arrays.asList("a", "Just", "phrase")))),
+        arguments(
+            "Mr. Smith said \"hi\" - (twice)...",
+            List.of(new Sentence(Arrays.asList("hi", "Mr.", "said", "Smith", "twice")))),
         arguments("  .   ? !  ", List.of()));
   }
 
@@ -86,6 +100,293 @@ class ProcessorTest {
     assertTrue(sentencesAfterEof.isEmpty(), "Should return empty list after EOF");
   }
 
+  @Test
+  void readNextSentences_ruleBasedInputShorterThanOneChunk_returnsSentenceBeforeEof()
+      throws IOException {
+    // Given
+    testFile = createTestFile("Hello big world.");
+    processor = new Processor(testFile, new RuleBasedSegmentationEngine());
+
+    // When
+    List<Sentence> sentences = processor.readNextSentences();
+    List<Sentence> sentencesAfterEof = processor.readNextSentences();
+
+    // Then
+    assertEquals(List.of(new Sentence(Arrays.asList("big", "Hello", "world"))), sentences);
+    assertTrue(sentencesAfterEof.isEmpty(), "Should return empty list after EOF");
+  }
+
+  @Test
+  void readNextSentences_reusesBatchUntilEof() throws IOException {
+    // Given
+    testFile = createTestFile("First one. Second one.");
+    processor = new Processor(testFile);
+    SentenceBatch batch = new SentenceBatch();
+    List<Sentence> actualSentences = new ArrayList<>();
+
+    // When
+    while (processor.readNextSentences(batch)) {
+      actualSentences.addAll(batch.toSentences());
+    }
+
+    // Then
+    assertTrue(batch.isEmpty(), "Batch should be empty once input is exhausted");
+    assertEquals(
+        List.of(
+            new Sentence(Arrays.asList("First", "one")),
+            new Sentence(Arrays.asList("one", "Second"))),
+        actualSentences);
+  }
+
+  @Test
+  void readNextSentences_withSpillThreshold_providesLongSentencesExternallyInSameOrder()
+      throws IOException {
+    // Given
+    testFile = createTestFile("Short one. The zebra And apple bee Apple and banana. Last one.");
+    processor =
+        new Processor(
+            testFile,
+            new RuleBasedSegmentationEngine(),
+            ProcessorOptions.defaults().withSpillThreshold(2));
+    SentenceBatch batch = new SentenceBatch();
+    List<Sentence> actualSentences = new ArrayList<>();
+    int externalBatches = 0;
+
+    // When
+    while (processor.readNextSentences(batch)) {
+      if (batch.externalSentence() != null) {
+        externalBatches++;
+        assertEquals(1, batch.size(), "An external sentence should form a batch of its own");
+      }
+      actualSentences.addAll(batch.toSentences());
+    }
+
+    // Then
+    assertEquals(1, externalBatches);
+    assertEquals(
+        List.of(
+            new Sentence(Arrays.asList("one", "Short")),
+            new Sentence(
+                Arrays.asList("and", "And", "apple", "Apple", "banana", "bee", "The", "zebra")),
+            new Sentence(Arrays.asList("Last", "one"))),
+        actualSentences);
+  }
+
+  @Test
+  void readNextSentences_unterminatedTextBeyondLimit_matchesInMemorySort() throws IOException {
+    // Given
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 40_000; i++) {
+      text.append(i % 2 == 0 ? "Word" : "word").append(i % 997).append(' ');
+    }
+    testFile = createTestFile(text.toString());
+    List<Sentence> expected;
+    try (Processor inMemory = new Processor(testFile, new RuleBasedSegmentationEngine())) {
+      expected = inMemory.readNextSentences();
+    }
+    processor =
+        new Processor(
+            testFile,
+            new RuleBasedSegmentationEngine(),
+            ProcessorOptions.defaults().withSpillThreshold(1000));
+    SentenceBatch batch = new SentenceBatch();
+
+    // When
+    boolean found = processor.readNextSentences(batch);
+    boolean external = batch.externalSentence() != null;
+    List<Sentence> actual = batch.toSentences();
+    boolean foundAfterEnd = processor.readNextSentences(batch);
+
+    // Then
+    assertTrue(found);
+    assertTrue(external, "The sentence should have been sorted externally");
+    assertEquals(40_000, expected.get(0).words().size());
+    assertEquals(expected, actual);
+    assertFalse(foundAfterEnd);
+  }
+
+  @Test
+  void readNextSentences_sentencesLongerThanChunks_matchesScanningWholeBuffer()
+      throws IOException {
+    // Given
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      for (int j = 0; j < i * 37; j++) {
+        text.append(j % 5 == 0 ? "Mr. " : "word").append(j % 13).append(' ');
+      }
+      text.append(i % 3 == 0 ? "end.\" " : "end?! ");
+    }
+    testFile = createTestFile(text.toString());
+    RuleBasedSegmentationEngine ruleBased = new RuleBasedSegmentationEngine();
+    SegmentationEngine rescanning =
+        new SegmentationEngine() {
+          @Override
+          public Span[] sentPosDetect(CharSequence text) {
+            return ruleBased.sentPosDetect(text);
+          }
+
+          @Override
+          public void tokenizePos(CharSequence text, int start, int end, TokenConsumer consumer) {
+            ruleBased.tokenizePos(text, start, end, consumer);
+          }
+        };
+    List<Sentence> expected = readAll(new Processor(testFile, rescanning));
+
+    // When
+    List<Sentence> actual = readAll(new Processor(testFile, ruleBased));
+
+    // Then
+    assertEquals(200, expected.size());
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  void readNextSentences_withBatchBudget_providesSmallerBatchesOfSameSentences()
+      throws IOException {
+    // Given
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      text.append("Sentence number ").append(i).append(" is here. ");
+    }
+    testFile = createTestFile(text.toString());
+    List<Sentence> expected = new ArrayList<>();
+    try (Processor unlimited = new Processor(testFile, new RuleBasedSegmentationEngine())) {
+      for (List<Sentence> sentences = unlimited.readNextSentences();
+          !sentences.isEmpty();
+          sentences = unlimited.readNextSentences()) {
+        expected.addAll(sentences);
+      }
+    }
+    ResourceBudget budget = new ResourceBudget(0, 1024, 0);
+    processor =
+        new Processor(
+            testFile,
+            new RuleBasedSegmentationEngine(),
+            ProcessorOptions.defaults().withBudget(budget));
+    SentenceBatch batch = new SentenceBatch();
+    List<Sentence> actual = new ArrayList<>();
+    int batches = 0;
+
+    // When
+    while (processor.readNextSentences(batch)) {
+      batches++;
+      actual.addAll(batch.toSentences());
+    }
+
+    // Then
+    assertEquals(expected, actual);
+    assertTrue(batches > 10, "Batches should end at the budget, got " + batches);
+    assertTrue(processor.peakBatchBytes() < 2048, "Peak batch: " + processor.peakBatchBytes());
+  }
+
+  @Test
+  void readNextSentences_unterminatedTextBeyondBufferBudget_throwsException() throws IOException {
+    // Given
+    testFile = createTestFile("word ".repeat(20_000));
+    ResourceBudget budget = new ResourceBudget(ResourceBudget.MIN_BUFFER_CHARS, 0, 0);
+    processor =
+        new Processor(
+            testFile,
+            new RuleBasedSegmentationEngine(),
+            ProcessorOptions.defaults().withBudget(budget));
+    SentenceBatch batch = new SentenceBatch();
+
+    // When
+    IOException exception =
+        assertThrows(IOException.class, () -> processor.readNextSentences(batch));
+
+    // Then
+    assertTrue(exception.getMessage().contains("buffer limit"), exception.getMessage());
+    assertTrue(processor.peakBufferChars() <= ResourceBudget.MIN_BUFFER_CHARS);
+  }
+
+  @Test
+  void readNextSentences_withCollation_sortsWordsByLocaleRulesInMemoryAndExternally()
+      throws IOException {
+    // Given
+    testFile = createTestFile("Zebra äpfel Apfel apple Émile early. Öl ol Oslo.");
+    List<Sentence> expected =
+        List.of(
+            new Sentence(Arrays.asList("Apfel", "äpfel", "apple", "early", "Émile", "Zebra")),
+            new Sentence(Arrays.asList("ol", "Öl", "Oslo")));
+    List<List<Sentence>> actual = new ArrayList<>();
+
+    // When
+    for (int spillThreshold : new int[] {0, 2}) {
+      try (Processor collating =
+          new Processor(
+              testFile,
+              new RuleBasedSegmentationEngine(),
+              ProcessorOptions.defaults()
+                  .withSpillThreshold(spillThreshold)
+                  .withCollation(Locale.GERMAN))) {
+        List<Sentence> sentences = new ArrayList<>();
+        SentenceBatch batch = new SentenceBatch();
+        while (collating.readNextSentences(batch)) {
+          sentences.addAll(batch.toSentences());
+        }
+        actual.add(sentences);
+      }
+    }
+
+    // Then
+    assertEquals(List.of(expected, expected), actual);
+  }
+
+  @Test
+  void readNextSentences_withCollationAndSpilling_sortsSentenceReadBySinksConcurrently()
+      throws Exception {
+    // Given
+    String alphabet = "aäbcdeéfgoöz";
+    List<String> words = new ArrayList<>();
+    for (int i = 0; i < 70_000; i++) {
+      StringBuilder word = new StringBuilder();
+      for (int n = i; n > 0 || word.isEmpty(); n /= alphabet.length()) {
+        word.append(alphabet.charAt(n % alphabet.length()));
+      }
+      words.add(i % 7 == 0 ? word.toString().toUpperCase(Locale.ROOT) : word.toString());
+    }
+    testFile = createTestFile(String.join(" ", words) + ".");
+    words.sort(new CollationOrder(Locale.GERMAN));
+    List<List<Sentence>> received = new ArrayList<>();
+    List<SentenceSink> sinks = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      List<Sentence> sentences = Collections.synchronizedList(new ArrayList<>());
+      received.add(sentences);
+      sinks.add(
+          new SentenceSink() {
+            @Override
+            public void writeSentences(SentenceBatch batch) {
+              sentences.addAll(batch.toSentences());
+            }
+
+            @Override
+            public void close() {}
+          });
+    }
+
+    // When
+    try (Processor collating =
+            new Processor(
+                testFile,
+                new RuleBasedSegmentationEngine(),
+                ProcessorOptions.defaults()
+                    .withSpillThreshold(1000)
+                    .withCollation(Locale.GERMAN));
+        FanOutSink sink = new FanOutSink(sinks, sinks.size())) {
+      sink.open();
+      SentenceBatch batch = new SentenceBatch();
+      while (collating.readNextSentences(batch)) {
+        sink.writeSentences(batch);
+      }
+    }
+
+    // Then
+    for (List<Sentence> sentences : received) {
+      assertEquals(List.of(new Sentence(words)), sentences);
+    }
+  }
+
   @Test
   void close_canBeCalledMultipleTimes() throws IOException {
     // Given
@@ -106,4 +407,16 @@ class ProcessorTest {
 
     return file;
   }
+
+  private static List<Sentence> readAll(Processor processor) throws IOException {
+    List<Sentence> sentences = new ArrayList<>();
+    try (processor) {
+      for (List<Sentence> batch = processor.readNextSentences();
+          !batch.isEmpty();
+          batch = processor.readNextSentences()) {
+        sentences.addAll(batch);
+      }
+    }
+    return sentences;
+  }
 }
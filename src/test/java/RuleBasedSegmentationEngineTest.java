@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.processing.OpenNlpSegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.RuleBasedSegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngine;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import opennlp.tools.util.Span;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class RuleBasedSegmentationEngineTest {
+  private static final Path testInputPath = Paths.get("src", "test", "resources", "in", "small.in");
+
+  private final RuleBasedSegmentationEngine engine = new RuleBasedSegmentationEngine();
+
+  static Stream<Arguments> sentenceProvider() {
+    return Stream.of(
+        arguments("One. Two! Three? Four", List.of("One.", "Two!", "Three?")),
+        arguments("Ask Mr. Young. He knows.", List.of("Ask Mr. Young.")),
+        arguments("See e.g. the docs. Then stop. ", List.of("See e.g. the docs.")),
+        arguments("J. Smith left. Bye now", List.of("J. Smith left.")),
+        arguments("He said \"Stop.\" Then left.", List.of("He said \"Stop.\"")),
+        arguments("version 1.5 is out. ok then. Done", List.of("version 1.5 is out. ok then.")),
+        arguments("停在那儿。你好", List.of("停在那儿。")),
+        arguments("End…\u00A0Next one.\u2003Last", List.of("End…", "Next one.")));
+  }
+
+  static Stream<Arguments> tokenProvider() {
+    return Stream.of(
+        arguments("word,perhaps", List.of("word", "perhaps")),
+        arguments("Mr. Young (and you'd)", List.of("Mr.", "Young", "and", "you'd")),
+        arguments("停在那儿, 你这肮脏的掠夺者!", List.of("停在那儿", "你这肮脏的掠夺者")),
+        arguments("no\u00A0break\u3000wide\u2003em", List.of("no", "break", "wide", "em")),
+        arguments("unit\u001Fseparated\u000Bline", List.of("unit", "separated", "line")),
+        arguments("  \t ", List.of()));
+  }
+
+  @ParameterizedTest
+  @MethodSource("sentenceProvider")
+  void sentPosDetect_splitsOnTerminalsOnly(String text, List<String> expectedSentences) {
+    // When
+    Span[] spans = engine.sentPosDetect(text);
+
+    // Then
+    assertEquals(expectedSentences, List.of(Span.spansToStrings(spans, text)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("sentenceProvider")
+  void sentPosDetect_afterPrefixWithoutSentence_matchesFullScan(
+      String text, List<String> expectedSentences) {
+    for (int scanned = 0; scanned <= text.length(); scanned++) {
+      if (engine.sentPosDetect(text.substring(0, scanned)).length > 0) {
+        break;
+      }
+
+      // When
+      Span[] spans = engine.sentPosDetect(text, scanned);
+
+      // Then
+      assertEquals(
+          expectedSentences,
+          List.of(Span.spansToStrings(spans, text)),
+          "After scanning " + scanned + " characters");
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("tokenProvider")
+  void tokenizePos_splitsOnWhitespaceAndSeparators(String sentence, List<String> expectedTokens) {
+    // Given
+    String text = "<" + sentence + ">";
+    List<String> actualTokens = new ArrayList<>();
+
+    // When
+    engine.tokenizePos(
+        text, 1, text.length() - 1, (start, end) -> actualTokens.add(text.substring(start, end)));
+
+    // Then
+    assertEquals(expectedTokens, actualTokens);
+  }
+
+  @Test
+  void processSmallFile_matchesOpenNlpEngine() throws IOException {
+    // When
+    List<Sentence> expected = readAll(new OpenNlpSegmentationEngine());
+    List<Sentence> actual = readAll(engine);
+
+    // Then
+    assertEquals(expected, actual, "Rule-based engine should agree with OpenNLP on small.in");
+  }
+
+  private List<Sentence> readAll(SegmentationEngine segmentationEngine) throws IOException {
+    List<Sentence> sentences = new ArrayList<>();
+    try (Processor processor = new Processor(testInputPath, segmentationEngine)) {
+      List<Sentence> batch;
+      while (!(batch = processor.readNextSentences()).isEmpty()) {
+        sentences.addAll(batch);
+      }
+    }
+    return sentences;
+  }
+}
@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.ExternalSentence;
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SentenceBatchTest {
+
+  @Test
+  void endSentence_sortsWordsAndSkipsEmptySentences() {
+    // Given
+    SentenceBatch batch = new SentenceBatch();
+
+    // When
+    batch.addWord("world");
+    batch.addWord("hello");
+    batch.endSentence(Comparator.naturalOrder());
+    batch.endSentence(Comparator.naturalOrder());
+    batch.addWord("again");
+    batch.endSentence(Comparator.naturalOrder());
+
+    // Then
+    assertEquals(2, batch.size());
+    assertEquals(2, batch.wordCount(0));
+    assertEquals("hello", batch.word(0, 0));
+    assertEquals("again", batch.word(1, 0));
+    assertEquals(
+        List.of(new Sentence(List.of("hello", "world")), new Sentence(List.of("again"))),
+        batch.toSentences());
+  }
+
+  @Test
+  void clear_allowsReuseBeyondInitialCapacity() {
+    // Given
+    SentenceBatch batch = new SentenceBatch();
+    batch.addWord("stale");
+    batch.endSentence(Comparator.naturalOrder());
+
+    // When
+    batch.clear();
+    for (int i = 0; i < 1000; i++) {
+      batch.addWord("w" + i);
+      batch.endSentence(Comparator.naturalOrder());
+    }
+
+    // Then
+    assertEquals(1000, batch.size());
+    assertEquals("w0", batch.word(0, 0));
+    assertEquals("w999", batch.word(999, 0));
+  }
+
+  @Test
+  void estimatedBytes_growsWithWordsAndResetsOnClear() {
+    // Given
+    SentenceBatch batch = new SentenceBatch();
+
+    // When
+    batch.addWord("ab");
+    long oneWord = batch.estimatedBytes();
+    batch.addWord("abcd");
+    batch.endSentence(Comparator.naturalOrder());
+    long twoWords = batch.estimatedBytes();
+    batch.clear();
+
+    // Then
+    assertTrue(oneWord > 4, "Per-word overhead should be counted");
+    assertEquals(oneWord + 4, twoWords - oneWord, "Two bytes per character");
+    assertEquals(0, batch.estimatedBytes());
+  }
+
+  @Test
+  void setExternalSentence_replacesContentWithSingleSentence() {
+    // Given
+    SentenceBatch batch = new SentenceBatch();
+    batch.addWord("stale");
+    batch.endSentence(Comparator.naturalOrder());
+    ExternalSentence external = externalSentence("a", "b", "c");
+
+    // When
+    batch.setExternalSentence(external);
+
+    // Then
+    assertEquals(1, batch.size());
+    assertSame(external, batch.externalSentence());
+    assertEquals(List.of(new Sentence(List.of("a", "b", "c"))), batch.toSentences());
+    assertThrows(IllegalStateException.class, () -> batch.wordCount(0));
+    batch.clear();
+    assertTrue(batch.isEmpty());
+    assertNull(batch.externalSentence());
+  }
+
+  private static ExternalSentence externalSentence(String... words) {
+    return new ExternalSentence() {
+      @Override
+      public long wordCount() {
+        return words.length;
+      }
+
+      @Override
+      public long charCount() {
+        return String.join("", words).length();
+      }
+
+      @Override
+      public WordReader openWords() {
+        Iterator<String> iterator = List.of(words).iterator();
+        return new WordReader() {
+          @Override
+          public String next() {
+            return iterator.hasNext() ? iterator.next() : null;
+          }
+
+          @Override
+          public void close() {}
+        };
+      }
+    };
+  }
+}
@@ -0,0 +1,177 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import com.tarasiuk.nordeahomework.processing.SentencePublisher;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.Test;
+
+class SentencePublisherTest {
+
+  @Test
+  void subscribe_deliversAllSentencesAndCompletes() throws IOException {
+    // Given
+    SentencePublisher publisher =
+        new SentencePublisher(processor(new StringReader("First one. Second one.")), Runnable::run);
+    RecordingSubscriber subscriber = new RecordingSubscriber(1);
+
+    // When
+    publisher.subscribe(subscriber);
+
+    // Then
+    assertEquals(
+        List.of(
+            new Sentence(Arrays.asList("First", "one")),
+            new Sentence(Arrays.asList("one", "Second"))),
+        subscriber.sentences);
+    assertTrue(subscriber.completed, "Stream should complete after the last sentence");
+    assertNull(subscriber.error);
+  }
+
+  @Test
+  void subscribe_readsInputOnlyForRequestedSentences() throws IOException {
+    // Given
+    String text = "This sentence is repeated many times. ".repeat(10_000);
+    CountingReader input = new CountingReader(new StringReader(text));
+    SentencePublisher publisher = new SentencePublisher(processor(input), Runnable::run);
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+
+    // When
+    publisher.subscribe(subscriber);
+    long readBeforeRequest = input.charsRead;
+    subscriber.subscription.request(3);
+
+    // Then
+    assertEquals(0, readBeforeRequest, "Nothing should be read without demand");
+    assertEquals(3, subscriber.sentences.size());
+    assertFalse(subscriber.completed);
+    assertTrue(
+        input.charsRead < text.length() / 10,
+        "Only enough input for the requested sentences should be read, not " + input.charsRead);
+  }
+
+  @Test
+  void cancel_stopsDeliveryAndClosesInput() throws IOException {
+    // Given
+    CountingReader input = new CountingReader(new StringReader("One. Two. Three."));
+    SentencePublisher publisher = new SentencePublisher(processor(input), Runnable::run);
+    RecordingSubscriber subscriber = new RecordingSubscriber(1);
+    subscriber.cancelAfter = 1;
+
+    // When
+    publisher.subscribe(subscriber);
+
+    // Then
+    assertEquals(1, subscriber.sentences.size());
+    assertFalse(subscriber.completed);
+    assertTrue(input.closed, "Input should be closed on cancellation");
+  }
+
+  @Test
+  void request_withNonPositiveCount_signalsError() throws IOException {
+    // Given
+    SentencePublisher publisher =
+        new SentencePublisher(processor(new StringReader("One.")), Runnable::run);
+    RecordingSubscriber subscriber = new RecordingSubscriber(0);
+    publisher.subscribe(subscriber);
+
+    // When
+    subscriber.subscription.request(0);
+
+    // Then
+    assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    assertTrue(subscriber.sentences.isEmpty());
+  }
+
+  @Test
+  void subscribe_secondSubscriber_signalsError() throws IOException {
+    // Given
+    SentencePublisher publisher =
+        new SentencePublisher(processor(new StringReader("One.")), Runnable::run);
+    publisher.subscribe(new RecordingSubscriber(0));
+    RecordingSubscriber second = new RecordingSubscriber(1);
+
+    // When
+    publisher.subscribe(second);
+
+    // Then
+    assertInstanceOf(IllegalStateException.class, second.error);
+    assertTrue(second.sentences.isEmpty());
+  }
+
+  private static Processor processor(Reader input) throws IOException {
+    return new Processor(input, SegmentationEngineType.RULE_BASED.create());
+  }
+
+  /** Requests a number of sentences up front and then one more per sentence received. */
+  private static class RecordingSubscriber implements Flow.Subscriber<Sentence> {
+    final List<Sentence> sentences = new ArrayList<>();
+    final long initialRequest;
+    Flow.Subscription subscription;
+    int cancelAfter = -1;
+    boolean completed;
+    Throwable error;
+
+    RecordingSubscriber(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (initialRequest > 0) {
+        subscription.request(initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(Sentence sentence) {
+      sentences.add(sentence);
+      if (sentences.size() == cancelAfter) {
+        subscription.cancel();
+      } else if (initialRequest > 0) {
+        subscription.request(1);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  private static class CountingReader extends FilterReader {
+    long charsRead;
+    boolean closed;
+
+    CountingReader(Reader in) {
+      super(in);
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      charsRead += Math.max(read, 0);
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      super.close();
+    }
+  }
+}
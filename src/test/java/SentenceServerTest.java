@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.output.SinkType;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import com.tarasiuk.nordeahomework.server.ListenAddress;
+import com.tarasiuk.nordeahomework.server.SentenceClient;
+import com.tarasiuk.nordeahomework.server.SentenceServer;
+import com.tarasiuk.nordeahomework.server.SentenceService;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import javax.xml.stream.XMLStreamException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class SentenceServerTest {
+  private static final String TEXT = "Hello world. Mr. Smith is here.";
+  private static final String EXPECTED_XML =
+      """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <text>
+      <sentence><word>Hello</word><word>world</word></sentence>
+      <sentence><word>here</word><word>is</word><word>Mr.</word><word>Smith</word></sentence>
+      </text>
+      """;
+  private static final String EXPECTED_CSV =
+      """
+      , Word 1, Word 2, Word 3, Word 4
+      Sentence 1, Hello, world
+      Sentence 2, here, is, Mr., Smith
+      """;
+
+  private static SentenceService service;
+
+  @BeforeAll
+  static void setUp() throws IOException {
+    service = new SentenceService(SegmentationEngineType.RULE_BASED, 2);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    service = null;
+  }
+
+  @ParameterizedTest(name = "[{index}] Serving {0}")
+  @ValueSource(strings = {"tcp:127.0.0.1:0", "http:127.0.0.1:0"})
+  void process_returnsOutputForEachRequestOnOneConnection(String listenAddress)
+      throws IOException {
+    // Given
+    try (SentenceServer server = SentenceServer.start(ListenAddress.parse(listenAddress), service);
+        SentenceClient client = new SentenceClient(server.address())) {
+
+      // When
+      byte[] xml = client.process(SinkType.XML, TEXT);
+      byte[] csv = client.process(SinkType.CSV, TEXT);
+
+      // Then
+      assertEquals(EXPECTED_XML, new String(xml, StandardCharsets.UTF_8));
+      assertEquals(EXPECTED_CSV, new String(csv, StandardCharsets.UTF_8));
+    }
+  }
+
+  @ParameterizedTest(name = "[{index}] Serving {0}")
+  @ValueSource(strings = {"tcp:127.0.0.1:0", "http:127.0.0.1:0"})
+  void process_withUnsupportedFormat_reportsError(String listenAddress) throws IOException {
+    // Given
+    try (SentenceServer server = SentenceServer.start(ListenAddress.parse(listenAddress), service);
+        SentenceClient client = new SentenceClient(server.address())) {
+
+      // When
+      IOException exception =
+          assertThrows(IOException.class, () -> client.process(SinkType.BINARY, TEXT));
+
+      // Then
+      assertTrue(
+          exception.getMessage().matches(".*(not supported|Use /xml or /csv).*"),
+          exception.getMessage());
+    }
+  }
+
+  @Test
+  void process_failingAfterPartialOutput_reportsErrorAndKeepsConnection() throws IOException {
+    // Given
+    SentenceService failing =
+        new SentenceService(SegmentationEngineType.RULE_BASED, 1) {
+          @Override
+          public void process(String text, SinkType format, WritableByteChannel output)
+              throws IOException, XMLStreamException {
+            if (!text.equals("fail")) {
+              super.process(text, format, output);
+              return;
+            }
+            output.write(ByteBuffer.wrap("<?xml".getBytes(StandardCharsets.UTF_8)));
+            throw new IllegalStateException("Engine failed\nmid-document");
+          }
+        };
+    try (SentenceServer server =
+            SentenceServer.start(ListenAddress.parse("tcp:127.0.0.1:0"), failing);
+        SentenceClient client = new SentenceClient(server.address())) {
+
+      // When
+      IOException exception =
+          assertThrows(IOException.class, () -> client.process(SinkType.XML, "fail"));
+      byte[] xml = client.process(SinkType.XML, TEXT);
+
+      // Then
+      assertEquals("Server error: Engine failed mid-document", exception.getMessage());
+      assertEquals(EXPECTED_XML, new String(xml, StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void process_overHttpFailingAfterPartialOutput_reportsServerError() throws IOException {
+    // Given
+    SentenceService failing =
+        new SentenceService(SegmentationEngineType.RULE_BASED, 1) {
+          @Override
+          public void process(String text, SinkType format, WritableByteChannel output)
+              throws IOException, XMLStreamException {
+            if (!text.equals("fail")) {
+              super.process(text, format, output);
+              return;
+            }
+            output.write(ByteBuffer.wrap("<?xml".getBytes(StandardCharsets.UTF_8)));
+            throw new IllegalStateException("Engine failed");
+          }
+        };
+    try (SentenceServer server =
+            SentenceServer.start(ListenAddress.parse("http:127.0.0.1:0"), failing);
+        SentenceClient client = new SentenceClient(server.address())) {
+
+      // When
+      IOException exception =
+          assertThrows(IOException.class, () -> client.process(SinkType.XML, "fail"));
+      byte[] xml = client.process(SinkType.XML, TEXT);
+
+      // Then
+      assertEquals("Server error: Processing failed: Engine failed", exception.getMessage());
+      assertEquals(EXPECTED_XML, new String(xml, StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void parse_readsProtocolAndAddress() {
+    assertEquals("tcp:127.0.0.1:7070", ListenAddress.parse("tcp:127.0.0.1:7070").toString());
+    assertEquals("unix:/tmp/server.sock", ListenAddress.parse("unix:/tmp/server.sock").toString());
+    assertThrows(IllegalArgumentException.class, () -> ListenAddress.parse("udp:localhost:1"));
+    assertThrows(IllegalArgumentException.class, () -> ListenAddress.parse("tcp:localhost"));
+  }
+}
@@ -0,0 +1,180 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.ShardedSink;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
+import com.tarasiuk.nordeahomework.output.SinkType;
+import com.tarasiuk.nordeahomework.output.XmlWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ShardedSinkTest {
+
+  private static final SinkOptions TWO_SENTENCES_PER_SHARD =
+      new SinkOptions(
+          0,
+          2,
+          0,
+          SinkOptions.DEFAULT_BUFFER_SIZE,
+          false,
+          SinkOptions.DEFAULT_SHARD_CLOSER_THREADS);
+  private static final SinkOptions ONE_BYTE_PER_SHARD =
+      new SinkOptions(
+          0,
+          0,
+          1,
+          SinkOptions.DEFAULT_BUFFER_SIZE,
+          false,
+          SinkOptions.DEFAULT_SHARD_CLOSER_THREADS);
+  private static final SinkOptions SHARD_LIMIT =
+      new SinkOptions(
+          0,
+          0,
+          300,
+          SinkOptions.DEFAULT_BUFFER_SIZE,
+          false,
+          SinkOptions.DEFAULT_SHARD_CLOSER_THREADS);
+
+  @TempDir Path tempDir;
+
+  @Test
+  void writeSentences_splitsCsvIntoShardsWithContinuedNumbering() throws Exception {
+    // Given
+    Path outputFile = tempDir.resolve("output.csv");
+    SentenceBatch batch = new SentenceBatch();
+    for (String word : List.of("one", "two", "three", "four", "five")) {
+      batch.addWord(word);
+      batch.endSentence(Comparator.naturalOrder());
+    }
+
+    // When
+    try (ShardedSink sink = new ShardedSink(outputFile, SinkType.CSV, TWO_SENTENCES_PER_SHARD)) {
+      sink.open();
+      sink.writeSentences(batch);
+    }
+
+    // Then
+    assertFalse(Files.exists(outputFile), "Unsharded output should not be written");
+    assertEquals(
+        List.of(", Word 1", "Sentence 1, one", "Sentence 2, two"),
+        Files.readAllLines(ShardedSink.shardFileOf(outputFile, 1), StandardCharsets.UTF_8));
+    assertEquals(
+        List.of(", Word 1", "Sentence 3, three", "Sentence 4, four"),
+        Files.readAllLines(ShardedSink.shardFileOf(outputFile, 2), StandardCharsets.UTF_8));
+    assertEquals(
+        List.of(", Word 1", "Sentence 5, five"),
+        Files.readAllLines(ShardedSink.shardFileOf(outputFile, 3), StandardCharsets.UTF_8));
+    assertEquals(
+        List.of(
+            "Shard, First sentence, Last sentence",
+            "output-00001.csv, 1, 2",
+            "output-00002.csv, 3, 4",
+            "output-00003.csv, 5, 5"),
+        Files.readAllLines(ShardedSink.manifestFileOf(outputFile), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void writeSentences_withSizeLimit_keepsAtLeastOneSentencePerShard() throws Exception {
+    // Given
+    Path outputFile = tempDir.resolve("output.xml");
+    SentenceBatch batch = new SentenceBatch();
+    batch.addWord("long");
+    batch.addWord("sentence");
+    batch.endSentence(Comparator.naturalOrder());
+    batch.addWord("next");
+    batch.endSentence(Comparator.naturalOrder());
+
+    // When
+    try (ShardedSink sink = new ShardedSink(outputFile, SinkType.XML, ONE_BYTE_PER_SHARD)) {
+      sink.open();
+      sink.writeSentences(batch);
+    }
+
+    // Then
+    String first =
+        Files.readString(ShardedSink.shardFileOf(outputFile, 1), StandardCharsets.UTF_8);
+    String second =
+        Files.readString(ShardedSink.shardFileOf(outputFile, 2), StandardCharsets.UTF_8);
+    assertTrue(first.contains("<word>sentence</word>") && first.strip().endsWith("</text>"));
+    assertTrue(second.contains("<word>next</word>") && second.strip().endsWith("</text>"));
+  }
+
+  @ParameterizedTest
+  @EnumSource(
+      value = SinkType.class,
+      names = {"XML", "CSV"})
+  void writeSentences_withSizeLimit_endsShardsAtWrittenSize(SinkType type) throws Exception {
+    // Given
+    Path outputFile = tempDir.resolve(type == SinkType.XML ? "output.xml" : "output.csv");
+    SentenceBatch batch = new SentenceBatch();
+    for (int i = 0; i < 40; i++) {
+      for (String word : List.of("ćma", "łąka" + i, "żółw")) {
+        batch.addWord(word);
+      }
+      batch.endSentence();
+    }
+    int documentEnd = type == SinkType.XML ? "</text>".length() + XmlWriter.NEWLINE.length() : 0;
+
+    // When
+    try (ShardedSink sink = new ShardedSink(outputFile, type, SHARD_LIMIT)) {
+      sink.open();
+      sink.writeSentences(batch);
+    }
+
+    // Then
+    int shards = 0;
+    while (Files.exists(ShardedSink.shardFileOf(outputFile, shards + 1))) {
+      shards++;
+    }
+    assertTrue(shards > 2, "The output should be split into several shards");
+    for (int shard = 1; shard < shards; shard++) {
+      long size = Files.size(ShardedSink.shardFileOf(outputFile, shard)) - documentEnd;
+      assertTrue(
+          size >= SHARD_LIMIT.shardBytes() && size < SHARD_LIMIT.shardBytes() + 100,
+          "Shard " + shard + " should end with the sentence reaching the limit: " + size);
+    }
+  }
+
+  @Test
+  void writeSentences_withoutCloserThreads_closesShardOnWritingThread() throws Exception {
+    // Given
+    Path outputFile = tempDir.resolve("output.csv");
+    SentenceBatch batch = new SentenceBatch();
+    for (String word : List.of("one", "two", "three")) {
+      batch.addWord(word);
+      batch.endSentence(Comparator.naturalOrder());
+    }
+    List<String> firstShard;
+
+    // When
+    try (ShardedSink sink =
+        new ShardedSink(
+            outputFile, SinkType.CSV, TWO_SENTENCES_PER_SHARD.withShardCloserThreads(0))) {
+      sink.open();
+      sink.writeSentences(batch);
+      firstShard =
+          Files.readAllLines(ShardedSink.shardFileOf(outputFile, 1), StandardCharsets.UTF_8);
+    }
+
+    // Then
+    assertEquals(List.of(", Word 1", "Sentence 1, one", "Sentence 2, two"), firstShard);
+    assertEquals(
+        List.of(", Word 1", "Sentence 3, three"),
+        Files.readAllLines(ShardedSink.shardFileOf(outputFile, 2), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void constructor_forBinaryOutput_throwsException() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new ShardedSink(tempDir.resolve("output.bin"), SinkType.BINARY, ONE_BYTE_PER_SHARD));
+  }
+}
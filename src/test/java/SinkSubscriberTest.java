@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.SentenceSink;
+import com.tarasiuk.nordeahomework.output.SinkSubscriber;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.Test;
+
+class SinkSubscriberTest {
+
+  @Test
+  void onNext_writesFullBatchesAndRequestsMoreAfterEachWrite() throws Exception {
+    // Given
+    RecordingSink sink = new RecordingSink();
+    RecordingSubscription subscription = new RecordingSubscription();
+    SinkSubscriber subscriber = new SinkSubscriber(sink, 2);
+
+    // When
+    subscriber.onSubscribe(subscription);
+    for (String word : List.of("one", "two", "three")) {
+      subscriber.onNext(new Sentence(List.of(word)));
+    }
+    List<Long> requestsBeforeCompletion = List.copyOf(subscription.requests);
+    subscriber.onComplete();
+
+    // Then
+    assertTrue(sink.opened, "Sink should be opened on subscription");
+    assertEquals(List.of(2L, 2L), requestsBeforeCompletion);
+    assertEquals(List.of(List.of("one", "two"), List.of("three")), sink.batches);
+    assertTrue(sink.closed, "Sink should be closed on completion");
+    assertEquals(3L, subscriber.completion().get());
+  }
+
+  @Test
+  void onNext_whenSinkFails_cancelsAndCompletesExceptionally() {
+    // Given
+    RecordingSink sink =
+        new RecordingSink() {
+          @Override
+          public void writeSentences(SentenceBatch batch) throws IOException {
+            throw new IOException("disk full");
+          }
+        };
+    RecordingSubscription subscription = new RecordingSubscription();
+    SinkSubscriber subscriber = new SinkSubscriber(sink, 1);
+    subscriber.onSubscribe(subscription);
+
+    // When
+    subscriber.onNext(new Sentence(List.of("one")));
+
+    // Then
+    assertTrue(subscription.cancelled, "Subscription should be cancelled");
+    assertTrue(sink.closed, "Sink should be closed after the failure");
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> subscriber.completion().get());
+    assertEquals("disk full", exception.getCause().getMessage());
+  }
+
+  @Test
+  void onError_closesSinkAndCompletesExceptionally() {
+    // Given
+    RecordingSink sink = new RecordingSink();
+    SinkSubscriber subscriber = new SinkSubscriber(sink);
+    subscriber.onSubscribe(new RecordingSubscription());
+
+    // When
+    subscriber.onError(new IOException("read failed"));
+
+    // Then
+    assertTrue(sink.closed);
+    assertTrue(subscriber.completion().isCompletedExceptionally());
+  }
+
+  private static class RecordingSubscription implements Flow.Subscription {
+    final List<Long> requests = new ArrayList<>();
+    boolean cancelled;
+
+    @Override
+    public void request(long n) {
+      requests.add(n);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+
+  private static class RecordingSink implements SentenceSink {
+    final List<List<String>> batches = new ArrayList<>();
+    boolean opened;
+    boolean closed;
+
+    @Override
+    public void open() {
+      opened = true;
+    }
+
+    @Override
+    public void writeSentences(SentenceBatch batch) throws IOException {
+      List<String> words = new ArrayList<>();
+      for (int i = 0; i < batch.size(); i++) {
+        words.add(batch.word(i, 0));
+      }
+      batches.add(words);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
+import com.tarasiuk.nordeahomework.output.StatisticsWriter;
+import com.tarasiuk.nordeahomework.statistics.CorpusStatistics.LengthBucket;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StatisticsWriterTest {
+  @TempDir Path tempDir;
+
+  @Test
+  void close_writesReportAndFrequencies() throws IOException {
+    // Given
+    Path reportFile = tempDir.resolve("corpus.stats");
+    SentenceBatch batch = new SentenceBatch();
+    addSentence(batch, "a", "is", "test", "This");
+    addSentence(batch, "a", "test");
+    addSentence(batch, "Comma,here", "test");
+
+    // When
+    try (StatisticsWriter writer = new StatisticsWriter(reportFile, SinkOptions.defaults(), 2)) {
+      writer.writeSentences(batch);
+    }
+
+    // Then
+    String nl = System.lineSeparator();
+    assertEquals(
+        "Statistic\tvalue" + nl
+            + "Sentences\t3" + nl
+            + "Words\t8" + nl
+            + "Vocabulary\t5" + nl
+            + "Mean sentence length\t2.67" + nl
+            + "Longest sentence\t4" + nl
+            + nl
+            + "Rank\tword\tcount\tshare" + nl
+            + "1\ttest\t3\t37.50%" + nl
+            + "2\ta\t2\t25.00%" + nl
+            + nl
+            + "Sentence length\tsentences" + nl
+            + "2\t2" + nl
+            + "4\t1" + nl,
+        Files.readString(reportFile, StandardCharsets.UTF_8));
+    assertEquals(
+        List.of("Word, Count", "test, 3", "a, 2", "\"Comma,here\", 1", "This, 1", "is, 1"),
+        Files.readAllLines(tempDir.resolve("corpus.words.csv"), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void statistics_longSentences_areCountedInPowerOfTwoBuckets() throws IOException {
+    // Given
+    SentenceBatch batch = new SentenceBatch();
+    addSentence(batch, new String[65]);
+    addSentence(batch, new String[128]);
+    addSentence(batch, new String[129]);
+    StatisticsWriter writer =
+        new StatisticsWriter(tempDir.resolve("long.stats"), SinkOptions.defaults());
+
+    // When
+    writer.writeSentences(batch);
+
+    // Then
+    assertEquals(
+        List.of(new LengthBucket(65, 128, 2), new LengthBucket(129, 256, 1)),
+        writer.statistics().lengthHistogram());
+    assertEquals(129, writer.statistics().maxSentenceLength());
+    assertEquals(1, writer.statistics().words().size());
+  }
+
+  private static void addSentence(SentenceBatch batch, String... words) {
+    for (String word : words) {
+      batch.addWord(word == null ? "w" : word);
+    }
+    batch.endSentence();
+  }
+}
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.tarasiuk.nordeahomework.statistics.WordCounter;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class WordCounterTest {
+
+  @Test
+  void add_beyondInitialCapacity_countsEveryWord() {
+    // Given
+    WordCounter counter = new WordCounter();
+    Map<String, Long> expected = new HashMap<>();
+
+    // When
+    for (int i = 0; i < 100_000; i++) {
+      String word = "word" + (i % 5_000);
+      counter.add(word);
+      expected.merge(word, 1L, Long::sum);
+    }
+
+    // Then
+    Map<String, Long> actual = new HashMap<>();
+    counter.forEach(actual::put);
+    assertEquals(expected, actual);
+    assertEquals(5_000, counter.size());
+    assertEquals(100_000, counter.total());
+    assertEquals(20, counter.count("word42"));
+    assertEquals(0, counter.count("missing"));
+  }
+
+  @Test
+  void wordsByFrequency_ordersByDescendingCountThenWord() {
+    // Given
+    WordCounter counter = new WordCounter();
+    counter.add("pear", 2);
+    counter.add("apple");
+    counter.add("the", 5);
+    counter.add("Zebra", 2);
+    counter.add("pear");
+
+    // When
+    String[] ranked = counter.wordsByFrequency();
+
+    // Then
+    assertArrayEquals(new String[] {"the", "pear", "Zebra", "apple"}, ranked);
+  }
+}
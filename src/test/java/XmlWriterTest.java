@@ -3,6 +3,8 @@ import static org.junit.jupiter.params.provider.Arguments.arguments;
 import static org.xmlunit.assertj3.XmlAssert.assertThat;
 
 import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.output.SinkOptions;
 import com.tarasiuk.nordeahomework.output.XmlWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -18,6 +20,7 @@ import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 class XmlWriterTest {
 
@@ -92,7 +95,7 @@ class XmlWriterTest {
     // When
     try (XmlWriter writer = new XmlWriter(outputFile)) {
       writer.openDocument();
-      writer.writeSentences(null); // Pass null list
+      writer.writeSentences((List<Sentence>) null); // Pass null list
     }
     assertTrue(Files.exists(outputFile), "Output file should exist");
     String actual = Files.readString(outputFile, StandardCharsets.UTF_8);
@@ -103,6 +106,25 @@ class XmlWriterTest {
     assertThat(actual).and(expected).ignoreWhitespace().areIdentical();
   }
 
+  @Test
+  void writeSentences_handlesNullBatchLikeNullList() throws IOException, XMLStreamException {
+    // Given
+    Path outputFile = tempDir.resolve("null_batch.xml");
+
+    // When
+    try (XmlWriter writer = new XmlWriter(outputFile)) {
+      writer.openDocument();
+      writer.writeSentences((SentenceBatch) null);
+    }
+
+    // Then
+    String actual = Files.readString(outputFile, StandardCharsets.UTF_8);
+    assertThat(actual)
+        .and(XML_DECL_HEADER + "<text>\n</text>\n")
+        .ignoreWhitespace()
+        .areIdentical();
+  }
+
   @Test
   void writeSentences_withoutOpenDocument_throwsException() throws IOException, XMLStreamException {
     // Given
@@ -116,4 +138,32 @@ class XmlWriterTest {
           "Should throw IllegalStateException if document is not opened");
     }
   }
+
+  @ParameterizedTest(name = "[{index}] Asynchronous writes: {0}")
+  @ValueSource(booleans = {false, true})
+  void writeSentences_encodesAndEscapesWordsAcrossBufferBoundaries(boolean asyncWrites)
+      throws IOException, XMLStreamException {
+    // Given
+    Path outputFile = tempDir.resolve("small_buffer.xml");
+    SinkOptions smallBuffer =
+        SinkOptions.defaults().withBufferSize(1).withAsyncWrites(asyncWrites);
+    List<String> words = List.of("a<b>&c", "żółć", "停在那儿", "\uD83D\uDE00smile");
+    List<Sentence> sentences = Collections.nCopies(500, new Sentence(words));
+    StringBuilder expected = new StringBuilder(XML_DECL_HEADER).append("<text>\n");
+    for (int i = 0; i < sentences.size(); i++) {
+      expected.append("<sentence><word>a&lt;b&gt;&amp;c</word><word>żółć</word>");
+      expected.append("<word>停在那儿</word><word>\uD83D\uDE00smile</word></sentence>\n");
+    }
+    expected.append("</text>\n");
+
+    // When
+    try (XmlWriter writer = new XmlWriter(outputFile, smallBuffer)) {
+      writer.openDocument();
+      writer.writeSentences(sentences);
+    }
+
+    // Then
+    String actual = Files.readString(outputFile, StandardCharsets.UTF_8);
+    assertEquals(expected.toString().replace("\n", XmlWriter.NEWLINE), actual);
+  }
 }
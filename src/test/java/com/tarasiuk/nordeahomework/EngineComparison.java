@@ -0,0 +1,124 @@
+package com.tarasiuk.nordeahomework;
+
+import com.tarasiuk.nordeahomework.domain.Sentence;
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the sentences of the {@code rule-based} engine to those of {@code opennlp}: how many of
+ * the sentences and words found by {@code opennlp} in an input file the {@code rule-based} engine
+ * finds identically, and how many sentences each engine finds in the file repeated to a larger
+ * corpus. Produces the accuracy rows of the engine table in the README; {@link
+ * ProcessorBenchmark} measures the throughput.
+ *
+ * <p>Usage: {@code EngineComparison [input file name] [corpus MB]}, e.g. {@code EngineComparison
+ * small.in 20}, run from the project directory.
+ */
+public class EngineComparison {
+  private static final Logger logger = LoggerFactory.getLogger(EngineComparison.class);
+  private static final String INPUT_DIR = "src/test/resources/in";
+  private static final int DEFAULT_CORPUS_MB = 20;
+
+  public static void main(String[] args) throws IOException {
+    String inputFileName = args.length > 0 ? args[0] : "small.in";
+    int corpusMegabytes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CORPUS_MB;
+    String text = Files.readString(Path.of(INPUT_DIR, inputFileName), StandardCharsets.UTF_8);
+
+    List<Sentence> reference = sentences(SegmentationEngineType.OPENNLP, text);
+    List<Sentence> candidate = sentences(SegmentationEngineType.RULE_BASED, text);
+    Map<String, Integer> referenceWords = new HashMap<>();
+    int wordCount = 0;
+    for (Sentence sentence : reference) {
+      wordCount += sentence.words().size();
+      sentence.words().forEach(word -> referenceWords.merge(word, 1, Integer::sum));
+    }
+    int identicalWords = 0;
+    for (Sentence sentence : candidate) {
+      for (String word : sentence.words()) {
+        identicalWords += take(referenceWords, word);
+      }
+    }
+    Map<Sentence, Integer> referenceSentences = new HashMap<>();
+    reference.forEach(sentence -> referenceSentences.merge(sentence, 1, Integer::sum));
+    int identicalSentences = 0;
+    for (Sentence sentence : candidate) {
+      identicalSentences += take(referenceSentences, sentence);
+    }
+    logger.info(
+        "{}: {}/{} sentences and {}% of the words of opennlp found identically by rule-based.",
+        inputFileName,
+        identicalSentences,
+        reference.size(),
+        wordCount == 0 ? 100 : Math.round(100.0 * identicalWords / wordCount));
+
+    String corpus = createCorpus(text, corpusMegabytes);
+    for (SegmentationEngineType type : SegmentationEngineType.values()) {
+      logger.info(
+          "{} repeated to {} MB: {} sentences found by {}.",
+          inputFileName,
+          corpusMegabytes,
+          countSentences(type, corpus),
+          type.name().toLowerCase(Locale.ROOT).replace('_', '-'));
+    }
+  }
+
+  /** Removes one occurrence of the key from the counts, returning 1 if it was present. */
+  private static <T> int take(Map<T, Integer> counts, T key) {
+    Integer count = counts.get(key);
+    if (count == null) {
+      return 0;
+    }
+    if (count == 1) {
+      counts.remove(key);
+    } else {
+      counts.put(key, count - 1);
+    }
+    return 1;
+  }
+
+  private static List<Sentence> sentences(SegmentationEngineType type, String text)
+      throws IOException {
+    List<Sentence> sentences = new ArrayList<>();
+    try (Processor processor = new Processor(new StringReader(text), type.create())) {
+      SentenceBatch batch = new SentenceBatch();
+      while (processor.readNextSentences(batch)) {
+        sentences.addAll(batch.toSentences());
+      }
+    }
+    return sentences;
+  }
+
+  private static long countSentences(SegmentationEngineType type, String corpus)
+      throws IOException {
+    long sentences = 0;
+    try (Processor processor = new Processor(new StringReader(corpus), type.create())) {
+      SentenceBatch batch = new SentenceBatch();
+      while (processor.readNextSentences(batch)) {
+        sentences += batch.size();
+      }
+    }
+    return sentences;
+  }
+
+  /** Repeats the text, separated by line breaks, to at least the given size. */
+  private static String createCorpus(String text, int megabytes) {
+    StringBuilder corpus = new StringBuilder(megabytes * 1_000_000 + text.length() + 1);
+    do {
+      corpus.append(text).append('\n');
+    } while (corpus.length() < megabytes * 1_000_000);
+    return corpus.toString();
+  }
+}
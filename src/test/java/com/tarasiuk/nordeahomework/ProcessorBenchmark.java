@@ -0,0 +1,133 @@
+package com.tarasiuk.nordeahomework;
+
+import com.tarasiuk.nordeahomework.domain.SentenceBatch;
+import com.tarasiuk.nordeahomework.processing.Processor;
+import com.tarasiuk.nordeahomework.processing.ProcessorOptions;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngine;
+import com.tarasiuk.nordeahomework.processing.SegmentationEngineType;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the steady-state cost of {@link Processor#readNextSentences(SentenceBatch)} per
+ * sentence, without reading a file or writing output. The input file is repeated in memory to the
+ * requested corpus size, and each engine first processes it for a number of unmeasured warmup
+ * iterations, so the measured ones run the code compiled by C2. Reports the median and minimum
+ * time per sentence and the throughput of the median iteration.
+ *
+ * <p>Usage: {@code ProcessorBenchmark [engine|all] [input file name] [corpus MB] [warmup]
+ * [iterations] [collation]}, e.g. {@code ProcessorBenchmark rule-based small.in 20 5 10}, run from
+ * the project directory. A collation language tag, e.g. {@code de}, sorts the words with a {@link
+ * com.tarasiuk.nordeahomework.processing.CollationOrder} instead of the default order. Add {@code
+ * -XX:+PrintCompilation} to the JVM options to check that the hot methods reach tier 4 during
+ * warmup and are not deoptimized ("made not entrant") while measuring.
+ */
+public class ProcessorBenchmark {
+  private static final Logger logger = LoggerFactory.getLogger(ProcessorBenchmark.class);
+  private static final String INPUT_DIR = "src/test/resources/in";
+  private static final int DEFAULT_CORPUS_MB = 4;
+  private static final int DEFAULT_WARMUP = 5;
+  private static final int DEFAULT_ITERATIONS = 10;
+
+  public static void main(String[] args) throws IOException {
+    String engineName = args.length > 0 ? args[0] : "all";
+    String inputFileName = args.length > 1 ? args[1] : "small.in";
+    int corpusMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CORPUS_MB;
+    int warmup = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_WARMUP;
+    int iterations = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_ITERATIONS;
+    Locale collation = args.length > 5 ? Locale.forLanguageTag(args[5]) : null;
+
+    List<SegmentationEngineType> engines =
+        engineName.equals("all")
+            ? List.of(SegmentationEngineType.values())
+            : List.of(SegmentationEngineType.fromName(engineName));
+    String corpus = createCorpus(Path.of(INPUT_DIR, inputFileName), corpusMegabytes);
+
+    logger.info(
+        "{} repeated to {} MB, {} warmup and {} measured iterations, {} order",
+        inputFileName,
+        String.format(Locale.ROOT, "%.1f", corpus.length() / 1e6),
+        warmup,
+        iterations,
+        collation == null ? "default" : collation.toLanguageTag() + " collation");
+    logger.info(
+        String.format(
+            Locale.ROOT,
+            "%-12s %10s %24s %10s",
+            "",
+            "sentences",
+            "ns/sentence median (min)",
+            "MB/s"));
+    for (SegmentationEngineType type : engines) {
+      measure(type, corpus, collation, warmup, iterations);
+    }
+  }
+
+  private static void measure(
+      SegmentationEngineType type, String corpus, Locale collation, int warmup, int iterations)
+      throws IOException {
+    SegmentationEngine engine = type.create();
+    long sentences = 0;
+    for (int i = 0; i < warmup; i++) {
+      sentences = run(engine, corpus, collation);
+    }
+    long[] nanos = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      sentences = run(engine, corpus, collation);
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    long median = nanos[iterations / 2];
+    logger.info(
+        String.format(
+            Locale.ROOT,
+            "%-12s %10d %24s %10.1f",
+            type.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+            sentences,
+            String.format(
+                Locale.ROOT,
+                "%.0f (%.0f)",
+                (double) median / sentences,
+                (double) nanos[0] / sentences),
+            corpus.length() / 1e6 / (median / 1e9)));
+  }
+
+  /** Processes the whole corpus, returning the number of sentences. */
+  private static long run(SegmentationEngine engine, String corpus, Locale collation)
+      throws IOException {
+    long sentences = 0;
+    try (Processor processor =
+        new Processor(
+            new StringReader(corpus),
+            engine,
+            ProcessorOptions.defaults().withCollation(collation))) {
+      SentenceBatch batch = new SentenceBatch();
+      while (processor.readNextSentences(batch)) {
+        sentences += batch.size();
+      }
+    }
+    return sentences;
+  }
+
+  /** Repeats the text of the file, separated by line breaks, to at least the given size. */
+  private static String createCorpus(Path inputFile, int megabytes) throws IOException {
+    String text = Files.readString(inputFile, StandardCharsets.UTF_8);
+    if (text.isEmpty()) {
+      throw new IOException("Input file is empty: " + inputFile);
+    }
+    StringBuilder corpus = new StringBuilder(megabytes * 1_000_000 + text.length() + 1);
+    do {
+      corpus.append(text).append('\n');
+    } while (corpus.length() < megabytes * 1_000_000);
+    return corpus.toString();
+  }
+}
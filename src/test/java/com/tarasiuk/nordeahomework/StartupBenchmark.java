@@ -0,0 +1,133 @@
+package com.tarasiuk.nordeahomework;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the startup cost of processing a small file: each run starts a new JVM executing {@link
+ * Main} and records the time until it reports its first sentences, and until it exits. The same
+ * runs are repeated with prepared models ({@code --prepared-models}) and, if a class data sharing
+ * archive is given, with that archive (see the {@code appcds} Maven profile). Every configuration
+ * gets one unmeasured run first, which also creates the prepared models file.
+ *
+ * <p>Usage: {@code StartupBenchmark [runs] [input file name] [CDS archive]}, e.g. {@code
+ * StartupBenchmark 10 small.in target/nordeahomework.jsa}, run from the project directory with the
+ * classpath the archive was created with followed by the test classes.
+ */
+public class StartupBenchmark {
+  private static final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class);
+  private static final int DEFAULT_RUNS = 10;
+  private static final String FIRST_SENTENCES_MARKER = "First sentences ready";
+
+  public static void main(String[] args) throws Exception {
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+    String inputFileName = args.length > 1 ? args[1] : "small.in";
+    Path archive = args.length > 2 ? Path.of(args[2]) : null;
+    if (archive != null && !Files.isRegularFile(archive)) {
+      logger.error("CDS archive not found: {}", archive);
+      System.exit(2);
+    }
+
+    Path workDir = Files.createTempDirectory("startup-benchmark");
+    String preparedModels = "--prepared-models=" + workDir.resolve("opennlp-models.bin");
+    String sharedArchive = archive == null ? null : "-XX:SharedArchiveFile=" + archive;
+
+    logger.info("{}, {} runs per configuration, median (min) in ms", inputFileName, runs);
+    logger.info(row("", "first sentences", "exit"));
+    List<String> program = List.of(inputFileName, workDir.toString());
+    try {
+      measure("classpath models", runs, List.of(), program, List.of());
+      measure("prepared models", runs, List.of(), program, List.of(preparedModels));
+      if (sharedArchive != null) {
+        measure("AppCDS", runs, List.of(sharedArchive), program, List.of());
+        measure(
+            "AppCDS + prepared models",
+            runs,
+            List.of(sharedArchive),
+            program,
+            List.of(preparedModels));
+      }
+    } finally {
+      try (Stream<Path> files = Files.list(workDir)) {
+        for (Path file : files.toList()) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(workDir);
+    }
+  }
+
+  private static void measure(
+      String name, int runs, List<String> jvmOptions, List<String> program, List<String> options)
+      throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Main.class.getName());
+    command.addAll(program);
+    command.addAll(options);
+
+    run(command);
+    long[] firstSentences = new long[runs];
+    long[] exits = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      Timing timing = run(command);
+      firstSentences[i] = timing.firstSentencesNanos();
+      exits[i] = timing.exitNanos();
+    }
+    logger.info(row(name, summary(firstSentences), summary(exits)));
+  }
+
+  /** Formats a row of the results table with aligned columns. */
+  private static String row(String name, String firstSentences, String exit) {
+    return String.format(Locale.ROOT, "%-30s %18s %18s", name, firstSentences, exit);
+  }
+
+  private record Timing(long firstSentencesNanos, long exitNanos) {}
+
+  /** Runs the command, timing the output line announcing the first sentences and the exit. */
+  private static Timing run(List<String> command) throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    long firstSentences = -1;
+    List<String> output = new ArrayList<>();
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (firstSentences < 0 && line.contains(FIRST_SENTENCES_MARKER)) {
+          firstSentences = System.nanoTime() - start;
+        }
+        output.add(line);
+      }
+    }
+    int exitCode = process.waitFor();
+    long exit = System.nanoTime() - start;
+    if (exitCode != 0 || firstSentences < 0) {
+      output.forEach(logger::error);
+      throw new IOException("Run failed with exit code " + exitCode + ": " + command);
+    }
+    return new Timing(firstSentences, exit);
+  }
+
+  private static String summary(long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return String.format(
+        Locale.ROOT, "%.0f (%.0f)", sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6);
+  }
+}
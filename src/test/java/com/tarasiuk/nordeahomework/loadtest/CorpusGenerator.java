@@ -0,0 +1,271 @@
+package com.tarasiuk.nordeahomework.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a deterministic synthetic corpus of roughly a given size, one sentence at a time,
+ * together with the words each sentence must be tokenized into. The same scenario, size and seed
+ * always produce the same sentences, so a corpus too large to keep in memory can be written once
+ * and generated again to check the output of processing it.
+ *
+ * <p>Sentences vary in length and mix plain English words with accented, Cyrillic, Greek and CJK
+ * words, numbers, {@code Mr.} with a name, commas, semicolons, parentheses, quotes and several
+ * kinds of whitespace, including line breaks and non-breaking spaces. The vocabulary avoids every
+ * abbreviation and single-letter initial the {@code rule-based} engine treats specially, so its
+ * sentence boundaries are exactly the generated ones. The {@link Scenario#PATHOLOGICAL} scenario
+ * adds sentences of millions of words and ends with text that has no terminator at all.
+ */
+public final class CorpusGenerator {
+  /** The kinds of corpus that can be generated. */
+  public enum Scenario {
+    /** Sentences of varied length, up to a few hundred words. */
+    MIXED,
+    /** Mixed sentences, interrupted by huge ones and ending with text without a terminator. */
+    PATHOLOGICAL
+  }
+
+  /**
+   * A generated sentence.
+   *
+   * @param text The text of the sentence, including the whitespace that follows it.
+   * @param words The words processing the text must yield, in the order they appear.
+   */
+  public record GeneratedSentence(String text, List<String> words) {}
+
+  private static final String[] WORDS = {
+    "the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "and", "then", "runs", "away",
+    "because", "nobody", "was", "watching", "it", "is", "an", "old", "story", "about", "river",
+    "stones", "light", "morning", "people", "said", "that", "they", "would", "come", "back",
+    "later", "don't", "isn't", "couldn't", "o'clock", "well-known", "e-mail", "perhaps",
+    "window", "garden", "between", "under", "across", "every", "small", "large", "without",
+    "naïve", "façade", "café", "über", "straße", "jalapeño", "smörgåsbord", "crème", "привет",
+    "мир", "книга", "ελλάδα", "θάλασσα", "42", "3.14", "1984", "2.5"
+  };
+
+  private static final String[] NAMES = {
+    "Anna", "Zürich", "Łódź", "Øresund", "Émile", "Tokyo", "Smith", "Young", "Oslo", "Ana"
+  };
+
+  private static final String[] CJK_WORDS = {"你好", "世界", "日本語", "停在那儿", "掠夺者", "한국어"};
+
+  private static final String[] TERMINATORS = {".", ".", ".", "!", "?", "?!"};
+
+  /** Share of the corpus size taken by each huge sentence and by the unterminated tail. */
+  private static final int PATHOLOGICAL_PART_DIVISOR = 8;
+
+  /** The largest huge sentence or unterminated tail, in bytes, however large the corpus. */
+  private static final long MAX_PATHOLOGICAL_PART_BYTES = 16L << 20;
+
+  private final Scenario scenario;
+  private final long targetBytes;
+  private final SplittableRandom random;
+  private final long pathologicalPartBytes;
+  private long generatedBytes = 0;
+  private int hugeSentences = 0;
+  private boolean tailGenerated = false;
+
+  /**
+   * Constructs a generator of a corpus of the given scenario and size.
+   *
+   * @param scenario The kind of corpus.
+   * @param targetBytes The approximate size of the corpus in UTF-8 bytes. The last sentence may
+   *     exceed it.
+   * @param seed The seed of the pseudo-random choices.
+   * @throws IllegalArgumentException If the size is not positive.
+   */
+  public CorpusGenerator(Scenario scenario, long targetBytes, long seed) {
+    if (targetBytes <= 0) {
+      throw new IllegalArgumentException("Corpus size must be positive: " + targetBytes);
+    }
+    this.scenario = scenario;
+    this.targetBytes = targetBytes;
+    this.random = new SplittableRandom(seed);
+    this.pathologicalPartBytes =
+        Math.min(targetBytes / PATHOLOGICAL_PART_DIVISOR, MAX_PATHOLOGICAL_PART_BYTES);
+  }
+
+  /**
+   * Writes a whole corpus to a file in UTF-8.
+   *
+   * @param scenario The kind of corpus.
+   * @param targetBytes The approximate size of the corpus in bytes.
+   * @param seed The seed of the pseudo-random choices.
+   * @param file The file to write.
+   * @return The number of sentences written.
+   * @throws IOException If the file cannot be written.
+   */
+  public static long write(Scenario scenario, long targetBytes, long seed, Path file)
+      throws IOException {
+    CorpusGenerator generator = new CorpusGenerator(scenario, targetBytes, seed);
+    long sentences = 0;
+    try (Writer writer =
+        new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+      while (generator.hasNext()) {
+        writer.write(generator.next().text());
+        sentences++;
+      }
+    }
+    return sentences;
+  }
+
+  /**
+   * Checks whether the corpus has more sentences.
+   *
+   * @return {@code true} until the corpus has reached its size.
+   */
+  public boolean hasNext() {
+    return generatedBytes < targetBytes;
+  }
+
+  /**
+   * Generates the next sentence.
+   *
+   * @return The sentence.
+   * @throws NoSuchElementException If the corpus is complete.
+   */
+  public GeneratedSentence next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    GeneratedSentence sentence;
+    if (scenario == Scenario.PATHOLOGICAL
+        && !tailGenerated
+        && generatedBytes >= targetBytes - pathologicalPartBytes) {
+      sentence = generateBytes(pathologicalPartBytes, false);
+      tailGenerated = true;
+    } else if (scenario == Scenario.PATHOLOGICAL
+        && generatedBytes >= (hugeSentences + 1) * (targetBytes / 3)) {
+      sentence = generateBytes(pathologicalPartBytes, true);
+      hugeSentences++;
+    } else {
+      sentence = generate(sentenceLength(), true);
+    }
+    generatedBytes += utf8Length(sentence.text());
+    if (tailGenerated) {
+      generatedBytes = Math.max(generatedBytes, targetBytes);
+    }
+    return sentence;
+  }
+
+  /** Picks a sentence length: mostly short, sometimes long, rarely very long. */
+  private int sentenceLength() {
+    int kind = random.nextInt(100);
+    if (kind < 70) {
+      return 1 + random.nextInt(20);
+    }
+    if (kind < 95) {
+      return 20 + random.nextInt(60);
+    }
+    return 80 + random.nextInt(320);
+  }
+
+  /** Generates a sentence of about the given number of bytes instead of words. */
+  private GeneratedSentence generateBytes(long bytes, boolean terminated) {
+    // Words average about eight bytes including punctuation and whitespace.
+    return generate((int) Math.max(1, bytes / 8), terminated);
+  }
+
+  private GeneratedSentence generate(int length, boolean terminated) {
+    StringBuilder text = new StringBuilder(length * 8);
+    List<String> words = new ArrayList<>(length);
+    int quoteStart = length > 3 && random.nextInt(20) == 0 ? random.nextInt(length - 1) : -1;
+    int quoteEnd = quoteStart < 0 ? -1 : quoteStart + 1 + random.nextInt(length - quoteStart - 1);
+
+    for (int i = 0; i < length; i++) {
+      boolean first = i == 0;
+      boolean last = i == length - 1;
+      if (!first) {
+        text.append(wordSeparator());
+      }
+      if (i == quoteStart) {
+        text.append('"');
+      }
+      // An opening quote would hide the abbreviation from the rule-based engine.
+      if (!first && !last && i != quoteStart && random.nextInt(40) == 0) {
+        words.add("Mr.");
+        words.add(pick(NAMES));
+        text.append("Mr. ").append(words.get(words.size() - 1));
+      } else {
+        String word = first || last ? pick(WORDS) : pickWord();
+        if (first) {
+          word = capitalize(word);
+        }
+        boolean parenthesized = !first && !last && random.nextInt(30) == 0;
+        text.append(parenthesized ? "(" : "").append(word).append(parenthesized ? ")" : "");
+        words.add(word);
+      }
+      if (last) {
+        if (terminated) {
+          text.append(pick(TERMINATORS));
+        }
+      } else if (random.nextInt(12) == 0) {
+        text.append(random.nextInt(4) == 0 ? ";" : ",");
+      }
+      if (i == quoteEnd) {
+        text.append('"');
+      }
+    }
+    text.append(random.nextInt(10) == 0 ? "\n" : " ");
+    return new GeneratedSentence(text.toString(), words);
+  }
+
+  private String pickWord() {
+    int kind = random.nextInt(100);
+    if (kind < 80) {
+      return pick(WORDS);
+    }
+    if (kind < 92) {
+      return pick(NAMES);
+    }
+    return pick(CJK_WORDS);
+  }
+
+  private String wordSeparator() {
+    int kind = random.nextInt(100);
+    if (kind < 92) {
+      return " ";
+    }
+    if (kind < 96) {
+      return "\n";
+    }
+    if (kind < 98) {
+      return "\u00A0";
+    }
+    return kind < 99 ? "  " : "\t";
+  }
+
+  private String pick(String[] choices) {
+    return choices[random.nextInt(choices.length)];
+  }
+
+  private static String capitalize(String word) {
+    return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+  }
+
+  private static int utf8Length(String text) {
+    int length = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c)) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+}
@@ -0,0 +1,353 @@
+package com.tarasiuk.nordeahomework.loadtest;
+
+import com.tarasiuk.nordeahomework.Main;
+import com.tarasiuk.nordeahomework.Options;
+import com.tarasiuk.nordeahomework.output.SinkType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * End-to-end load test: generates deterministic corpora of the given sizes with {@link
+ * CorpusGenerator}, runs {@link Main#process} on each of them in a new JVM with a fixed heap, and
+ * records the processing throughput, the peak resident set size, the GC pauses and whether the CSV
+ * output matches the generated sentences, with their words sorted by a reference implementation of
+ * the word order. Corpora are kept in the work directory and reused by later runs.
+ *
+ * <p>The results are written to {@code results.tsv} in the work directory. If a baseline results
+ * file is given, every run is compared to the run of the same scenario and size in it, and a
+ * throughput or peak memory more than {@value #TOLERANCE_PERCENT}% worse counts as a regression.
+ * If the baseline file does not exist, the run only records results, which can be copied to it.
+ * The exit code is {@code 1} if any output is wrong or any run regressed. The peak RSS is read from
+ * {@code /proc}, so it is only available on Linux.
+ *
+ * <p>Usage: {@code LoadTest [sizes] [work dir] [baseline file]}, e.g. {@code LoadTest 100m,1g
+ * target/load-test load-test-baseline.tsv}; sizes accept a {@code k}, {@code m} or {@code g}
+ * suffix. See the {@code load-test} Maven profile.
+ */
+public class LoadTest {
+  private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+  private static final String DEFAULT_SIZES = "100m";
+  private static final String DEFAULT_WORK_DIR = "target/load-test";
+  private static final String RESULTS_FILE = "results.tsv";
+  private static final long SEED = 42;
+  private static final String CHILD_HEAP = "-Xmx512m";
+  private static final List<String> PROCESS_OPTIONS =
+      List.of("--engine=rule-based", "--spill-words=64k");
+  private static final int TOLERANCE_PERCENT = 20;
+  private static final long RSS_POLL_MILLIS = 50;
+
+  private static final Pattern PROCESSING_TIME =
+      Pattern.compile("Processing finished in (\\d+) ms");
+  private static final Pattern GC_PAUSE = Pattern.compile("Pause.* ([0-9.]+)ms$");
+  private static final String RESULTS_HEADER =
+      "scenario\tsize\tcorpus bytes\tsentences\tprocessing ms\tMB/s\tpeak RSS MB\tGC pauses"
+          + "\tGC pause ms\tcorrect";
+
+  /** The measurements of processing one corpus. */
+  private record Result(
+      CorpusGenerator.Scenario scenario,
+      long size,
+      long corpusBytes,
+      long sentences,
+      long processingMillis,
+      long peakRssKilobytes,
+      int gcPauses,
+      double gcPauseMillis,
+      String mismatch) {
+
+    double megabytesPerSecond() {
+      return corpusBytes / 1e6 / (Math.max(processingMillis, 1) / 1e3);
+    }
+
+    String toTsv() {
+      return String.join(
+          "\t",
+          scenario.name().toLowerCase(Locale.ROOT),
+          Long.toString(size),
+          Long.toString(corpusBytes),
+          Long.toString(sentences),
+          Long.toString(processingMillis),
+          String.format(Locale.ROOT, "%.1f", megabytesPerSecond()),
+          peakRssKilobytes < 0 ? "" : Long.toString(peakRssKilobytes / 1024),
+          Integer.toString(gcPauses),
+          String.format(Locale.ROOT, "%.1f", gcPauseMillis),
+          Boolean.toString(mismatch == null));
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    String sizes = args.length > 0 ? args[0] : DEFAULT_SIZES;
+    Path workDir = Path.of(args.length > 1 ? args[1] : DEFAULT_WORK_DIR);
+    Path baseline = args.length > 2 ? Path.of(args[2]) : null;
+    Files.createDirectories(workDir);
+
+    List<Result> results = new ArrayList<>();
+    for (String size : sizes.split(",")) {
+      for (CorpusGenerator.Scenario scenario : CorpusGenerator.Scenario.values()) {
+        Result result = run(scenario, parseSize(size.trim()), workDir);
+        logger.info(result.toTsv());
+        results.add(result);
+      }
+    }
+
+    Path resultsFile = workDir.resolve(RESULTS_FILE);
+    try (PrintStream out =
+        new PrintStream(Files.newOutputStream(resultsFile), true, StandardCharsets.UTF_8)) {
+      out.println(RESULTS_HEADER);
+      results.forEach(result -> out.println(result.toTsv()));
+    }
+    logger.info("Results written to {}", resultsFile);
+
+    boolean failed = false;
+    for (Result result : results) {
+      if (result.mismatch() != null) {
+        logger.error("Wrong output of {}: {}", describe(result), result.mismatch());
+        failed = true;
+      }
+    }
+    if (baseline != null && Files.exists(baseline)) {
+      failed |= compareToBaseline(results, baseline);
+    } else if (baseline != null) {
+      logger.info(
+          "No baseline at {}, nothing compared. Copy {} there to compare later runs to this one.",
+          baseline,
+          resultsFile);
+    }
+    if (failed) {
+      System.exit(1);
+    }
+  }
+
+  /** Generates the corpus if it does not exist yet, processes it and checks the output. */
+  private static Result run(CorpusGenerator.Scenario scenario, long size, Path workDir)
+      throws IOException, InterruptedException {
+    String name = scenario.name().toLowerCase(Locale.ROOT) + "-" + size + "-" + SEED;
+    Path corpus = workDir.resolve(name + ".in");
+    if (!Files.exists(corpus)) {
+      logger.info("Generating {}", corpus);
+      Path partial = workDir.resolve(name + ".in.partial");
+      CorpusGenerator.write(scenario, size, SEED, partial);
+      Files.move(partial, corpus);
+    }
+    Path output = workDir.resolve(name + ".csv");
+    Path gcLog = workDir.resolve(name + ".gc.log");
+    Path log = workDir.resolve(name + ".log");
+
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.add(CHILD_HEAP);
+    command.add("-Xlog:gc:file=" + gcLog);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ProcessRun.class.getName());
+    command.add(corpus.toString());
+    command.add(output.toString());
+    command.addAll(PROCESS_OPTIONS);
+
+    logger.info("Processing {}", corpus);
+    Process process =
+        new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+    Path status = Path.of("/proc", Long.toString(process.pid()), "status");
+    long peakRss = -1;
+    while (!process.waitFor(RSS_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+      // VmHWM is the high-water mark, so the last value read is the peak up to that point.
+      peakRss = Math.max(peakRss, readHighWaterMark(status));
+    }
+    if (process.exitValue() != 0) {
+      throw new IOException(
+          "Processing failed with exit code " + process.exitValue() + ", see " + log);
+    }
+
+    long processingMillis = -1;
+    for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+      Matcher matcher = PROCESSING_TIME.matcher(line);
+      if (matcher.find()) {
+        processingMillis = Long.parseLong(matcher.group(1));
+      }
+    }
+    int gcPauses = 0;
+    double gcPauseMillis = 0;
+    for (String line : Files.readAllLines(gcLog, StandardCharsets.UTF_8)) {
+      Matcher matcher = GC_PAUSE.matcher(line);
+      if (matcher.find()) {
+        gcPauses++;
+        gcPauseMillis += Double.parseDouble(matcher.group(1));
+      }
+    }
+
+    Verification verification = verify(scenario, size, output);
+    return new Result(
+        scenario,
+        size,
+        Files.size(corpus),
+        verification.sentences(),
+        processingMillis,
+        peakRss,
+        gcPauses,
+        gcPauseMillis,
+        verification.mismatch());
+  }
+
+  private static long readHighWaterMark(Path status) {
+    try {
+      for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+        if (line.startsWith("VmHWM:")) {
+          return Long.parseLong(line.replaceAll("\\D", ""));
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      // Not on Linux, or the process has just exited.
+    }
+    return -1;
+  }
+
+  private record Verification(long sentences, String mismatch) {}
+
+  /**
+   * Compares the CSV output line by line to the sentences generated again from the same seed,
+   * with their words sorted by {@link #compareWords}.
+   */
+  private static Verification verify(CorpusGenerator.Scenario scenario, long size, Path output)
+      throws IOException {
+    CorpusGenerator generator = new CorpusGenerator(scenario, size, SEED);
+    long sentences = 0;
+    try (BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+      reader.readLine(); // header
+      while (generator.hasNext()) {
+        String[] expected = generator.next().words().toArray(new String[0]);
+        Arrays.sort(expected, LoadTest::compareWords);
+        sentences++;
+        String line = reader.readLine();
+        String prefix = "Sentence " + sentences + ", ";
+        if (line == null || !line.startsWith(prefix)) {
+          return new Verification(sentences, "sentence " + sentences + " is missing");
+        }
+        String[] actual = line.substring(prefix.length()).split(", ", -1);
+        if (!Arrays.equals(expected, actual)) {
+          return new Verification(
+              sentences,
+              String.format(
+                  "sentence %d has %d words, expected %d: %.200s",
+                  sentences, actual.length, expected.length, line));
+        }
+      }
+      if (reader.readLine() != null) {
+        return new Verification(sentences, "output has more than " + sentences + " sentences");
+      }
+    }
+    return new Verification(sentences, null);
+  }
+
+  /**
+   * The documented word order, implemented independently of the Processor: case-insensitive
+   * alphabetical, then the word starting with a lowercase letter first, then case-sensitive.
+   */
+  static int compareWords(String a, String b) {
+    int result = a.compareToIgnoreCase(b);
+    if (result != 0) {
+      return result;
+    }
+    boolean aUpper = Character.isUpperCase(a.charAt(0));
+    boolean bUpper = Character.isUpperCase(b.charAt(0));
+    if (aUpper != bUpper) {
+      return aUpper ? 1 : -1;
+    }
+    return a.compareTo(b);
+  }
+
+  /** Logs the change of every run against the baseline and returns whether any regressed. */
+  private static boolean compareToBaseline(List<Result> results, Path baseline) throws IOException {
+    Map<String, String[]> baselineRows = new HashMap<>();
+    for (String line : Files.readAllLines(baseline, StandardCharsets.UTF_8)) {
+      if (!line.equals(RESULTS_HEADER) && !line.isBlank()) {
+        String[] fields = line.split("\t", -1);
+        baselineRows.put(fields[0] + "\t" + fields[1], fields);
+      }
+    }
+    boolean regressed = false;
+    for (Result result : results) {
+      String[] row =
+          baselineRows.get(
+              result.scenario().name().toLowerCase(Locale.ROOT) + "\t" + result.size());
+      if (row == null) {
+        continue;
+      }
+      double throughputChange =
+          percentChange(Double.parseDouble(row[5]), result.megabytesPerSecond());
+      boolean slower = throughputChange < -TOLERANCE_PERCENT;
+      boolean larger = false;
+      String rss = "n/a";
+      if (!row[6].isEmpty() && result.peakRssKilobytes() >= 0) {
+        double rssChange =
+            percentChange(Double.parseDouble(row[6]), result.peakRssKilobytes() / 1024.0);
+        larger = rssChange > TOLERANCE_PERCENT;
+        rss = String.format(Locale.ROOT, "%+.0f%%", rssChange);
+      }
+      String change =
+          String.format(
+              Locale.ROOT,
+              "%s vs baseline: throughput %+.0f%%, peak RSS %s",
+              describe(result),
+              throughputChange,
+              rss);
+      if (slower || larger) {
+        logger.error("{}: regression", change);
+        regressed = true;
+      } else {
+        logger.info(change);
+      }
+    }
+    return regressed;
+  }
+
+  private static double percentChange(double before, double after) {
+    return before == 0 ? 0 : (after - before) / before * 100;
+  }
+
+  private static String describe(Result result) {
+    return result.scenario().name().toLowerCase(Locale.ROOT) + " " + result.size() + " bytes";
+  }
+
+  /** Parses a size, accepting a {@code k}, {@code m} or {@code g} suffix (base 1024). */
+  private static long parseSize(String size) {
+    String number = size.toLowerCase(Locale.ROOT);
+    int shift =
+        switch (number.isEmpty() ? ' ' : number.charAt(number.length() - 1)) {
+          case 'k' -> 10;
+          case 'm' -> 20;
+          case 'g' -> 30;
+          default -> 0;
+        };
+    if (shift > 0) {
+      number = number.substring(0, number.length() - 1);
+    }
+    return Long.parseLong(number) << shift;
+  }
+
+  /** Entry point of the JVM processing one corpus: {@code ProcessRun input output options...}. */
+  public static final class ProcessRun {
+    private ProcessRun() {}
+
+    public static void main(String[] args) throws Exception {
+      Main.process(
+          Path.of(args[0]),
+          Map.of(SinkType.CSV, Path.of(args[1])),
+          Options.parse(Arrays.copyOfRange(args, 2, args.length)));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.tarasiuk.nordeahomework.server;
+
+import com.tarasiuk.nordeahomework.output.SinkType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the latency and throughput of a running {@link SentenceServer}. The paragraphs of an
+ * input file are sent as separate documents by several concurrent clients, each with its own
+ * connection. The first tenth of each client's requests warm the server up and are not measured.
+ *
+ * <p>Usage: {@code LoadGenerator <address> <input file> [clients] [requests] [xml|csv]}, e.g.
+ * {@code LoadGenerator tcp:127.0.0.1:7070 src/test/resources/in/small.in 8 20000 xml}.
+ */
+public class LoadGenerator {
+  private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+  private static final int DEFAULT_CLIENTS = 8;
+  private static final int DEFAULT_REQUESTS = 10_000;
+  private static final int WARMUP_DIVISOR = 10;
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 2) {
+      logger.error("Usage: LoadGenerator <address> <input file> [clients] [requests] [xml|csv]");
+      System.exit(2);
+    }
+    ListenAddress address = ListenAddress.parse(args[0]);
+    List<String> documents = readDocuments(Path.of(args[1]));
+    int clients = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CLIENTS;
+    int requests = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_REQUESTS;
+    SinkType format = args.length > 4 ? SinkType.fromName(args[4]) : SinkType.XML;
+
+    int requestsPerClient = Math.max(1, requests / clients);
+    int warmup = requestsPerClient / WARMUP_DIVISOR;
+    List<Future<Result>> results = new ArrayList<>(clients);
+    long start;
+    try (ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+      start = System.nanoTime();
+      for (int client = 0; client < clients; client++) {
+        int offset = client;
+        results.add(
+            executor.submit(
+                () -> runClient(address, documents, format, offset, requestsPerClient, warmup)));
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+
+    long[] latencies = new long[0];
+    long outputBytes = 0;
+    for (Future<Result> future : results) {
+      Result result = get(future);
+      int previous = latencies.length;
+      latencies = Arrays.copyOf(latencies, previous + result.latencies().length);
+      System.arraycopy(result.latencies(), 0, latencies, previous, result.latencies().length);
+      outputBytes += result.outputBytes();
+    }
+    Arrays.sort(latencies);
+    int total = requestsPerClient * clients;
+    logger.info(
+        "{}, {} clients, {} requests ({} measured), {} documents of {} bytes on average",
+        address,
+        clients,
+        total,
+        latencies.length,
+        documents.size(),
+        Math.round(documents.stream().mapToInt(String::length).average().orElse(0)));
+    logger.info(
+        "Throughput: {} requests/s, {} MB/s of output",
+        Math.round(total / (elapsed / 1e9)),
+        String.format(Locale.ROOT, "%.1f", outputBytes / (elapsed / 1e9) / 1e6));
+    logger.info(
+        "Latency ms: p50 {}, p90 {}, p99 {}, max {}",
+        millis(percentile(latencies, 50)),
+        millis(percentile(latencies, 90)),
+        millis(percentile(latencies, 99)),
+        millis(latencies.length > 0 ? latencies[latencies.length - 1] : 0));
+  }
+
+  /** The measured latencies of one client, in nanoseconds, and the output it received. */
+  private record Result(long[] latencies, long outputBytes) {}
+
+  private static Result runClient(
+      ListenAddress address,
+      List<String> documents,
+      SinkType format,
+      int offset,
+      int requests,
+      int warmup)
+      throws IOException {
+    long[] latencies = new long[requests - warmup];
+    long outputBytes = 0;
+    try (SentenceClient client = new SentenceClient(address)) {
+      for (int i = 0; i < requests; i++) {
+        String document = documents.get((offset + i) % documents.size());
+        long start = System.nanoTime();
+        byte[] output = client.process(format, document);
+        long latency = System.nanoTime() - start;
+        outputBytes += output.length;
+        if (i >= warmup) {
+          latencies[i - warmup] = latency;
+        }
+      }
+    }
+    return new Result(latencies, outputBytes);
+  }
+
+  /** Splits the file into paragraphs at blank lines, or returns it whole if it has none. */
+  private static List<String> readDocuments(Path inputFile) throws IOException {
+    String text = Files.readString(inputFile, StandardCharsets.UTF_8);
+    List<String> documents = new ArrayList<>();
+    for (String paragraph : text.split("\\R\\s*\\R")) {
+      if (!paragraph.isBlank()) {
+        documents.add(paragraph);
+      }
+    }
+    return documents.isEmpty() ? List.of(text) : documents;
+  }
+
+  /** Returns the latency below which the given percentage of the sorted latencies lie. */
+  private static long percentile(long[] sorted, int percent) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  /** Formats nanoseconds as milliseconds with three decimals. */
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  private static Result get(Future<Result> future) throws IOException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw new IOException("Client failed: " + e.getCause().getMessage(), e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted waiting for clients.", e);
+    }
+  }
+}
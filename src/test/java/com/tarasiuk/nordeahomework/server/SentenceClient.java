@@ -0,0 +1,150 @@
+package com.tarasiuk.nordeahomework.server;
+
+import com.tarasiuk.nordeahomework.output.SinkType;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * A client of a {@link SentenceServer}, sending one request at a time over a single connection
+ * that is kept open between requests. Not thread-safe; use one client per thread.
+ */
+public class SentenceClient implements AutoCloseable {
+  private final ListenAddress address;
+  private final SocketChannel connection;
+  private final InputStream in;
+  private final HttpClient httpClient;
+
+  /**
+   * Constructs a SentenceClient connected to the server at the given address.
+   *
+   * @param address The address the server listens on.
+   * @throws IOException If the server cannot be reached.
+   */
+  public SentenceClient(ListenAddress address) throws IOException {
+    this.address = address;
+    if (address.protocol() == ListenAddress.Protocol.HTTP) {
+      this.connection = null;
+      this.in = null;
+      this.httpClient = HttpClient.newHttpClient();
+      return;
+    }
+    this.connection =
+        SocketChannel.open(
+            address.protocol() == ListenAddress.Protocol.UNIX
+                ? StandardProtocolFamily.UNIX
+                : StandardProtocolFamily.INET);
+    connection.connect(address.address());
+    if (address.address() instanceof InetSocketAddress) {
+      connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+    this.in = new BufferedInputStream(Channels.newInputStream(connection));
+    this.httpClient = null;
+  }
+
+  /**
+   * Sends a document and waits for the complete output.
+   *
+   * @param format The output format, {@link SinkType#XML} or {@link SinkType#CSV}.
+   * @param text The document text.
+   * @return The output, UTF-8 encoded.
+   * @throws IOException If the request fails or the server answers with an error, also if the
+   *     error occurs after part of the output has been sent.
+   */
+  public byte[] process(SinkType format, String text) throws IOException {
+    String formatName = format.name().toLowerCase(Locale.ROOT);
+    byte[] body = text.getBytes(StandardCharsets.UTF_8);
+    if (httpClient != null) {
+      return processHttp(formatName, body);
+    }
+
+    ByteBuffer request =
+        ByteBuffer.wrap((formatName + " " + body.length + "\n").getBytes(StandardCharsets.UTF_8));
+    ByteBuffer[] parts = {request, ByteBuffer.wrap(body)};
+    while (parts[1].hasRemaining()) {
+      connection.write(parts);
+    }
+
+    String status = readLine();
+    if (!"OK".equals(status)) {
+      throw new IOException("Server error: " + status);
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    int chunkLength;
+    while ((chunkLength = Integer.parseInt(readLine())) != 0) {
+      if (chunkLength < 0) {
+        throw new IOException("Server error: " + readLine());
+      }
+      byte[] chunk = in.readNBytes(chunkLength);
+      if (chunk.length < chunkLength) {
+        throw new EOFException("Connection closed within a response.");
+      }
+      output.write(chunk);
+    }
+    return output.toByteArray();
+  }
+
+  private byte[] processHttp(String formatName, byte[] body) throws IOException {
+    InetSocketAddress inet = (InetSocketAddress) address.address();
+    HttpRequest request =
+        HttpRequest.newBuilder(
+                URI.create(
+                    "http://" + inet.getHostString() + ":" + inet.getPort() + "/" + formatName))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+    try {
+      HttpResponse<byte[]> response =
+          httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() != 200) {
+        throw new IOException(
+            "Server error: " + new String(response.body(), StandardCharsets.UTF_8).trim());
+      }
+      return response.body();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for the server.");
+    }
+  }
+
+  private String readLine() throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b < 0) {
+        throw new EOFException("Connection closed by the server.");
+      }
+      line.write(b);
+    }
+    return line.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Closes the connection.
+   *
+   * @throws IOException If an error occurs closing the connection.
+   */
+  @Override
+  public void close() throws IOException {
+    if (connection != null) {
+      connection.close();
+    }
+    if (httpClient != null) {
+      httpClient.close();
+    }
+  }
+}